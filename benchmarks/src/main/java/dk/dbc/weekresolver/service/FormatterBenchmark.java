@@ -0,0 +1,47 @@
+package dk.dbc.weekresolver.service;
+
+import java.util.concurrent.TimeUnit;
+
+import dk.dbc.weekresolver.model.YearPlanResult;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Rendering of a year plan as CSV and HTML
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FormatterBenchmark {
+    @Param({"true", "false"})
+    boolean displayAllDays;
+
+    private YearPlanResult yearPlan;
+
+    @Setup
+    public void setup() {
+        yearPlan = WeekResolverEngine.of("Europe/Copenhagen").getYearPlan("BKM", 2025, true, displayAllDays);
+    }
+
+    @Benchmark
+    public String csv() {
+        return CsvFormatter.format(yearPlan);
+    }
+
+    @Benchmark
+    public String html() {
+        return HtmlFormatter.format(yearPlan);
+    }
+}
@@ -0,0 +1,64 @@
+package dk.dbc.weekresolver.service;
+
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+import dk.dbc.commons.jsonb.JSONBContext;
+import dk.dbc.commons.jsonb.JSONBException;
+import dk.dbc.weekresolver.model.WeekResolverBinaryFormat;
+import dk.dbc.weekresolver.model.WeekResolverResult;
+import dk.dbc.weekresolver.model.YearPlanResult;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * JSON-B marshalling of a result and a year plan, as done by the service, and the binary format for comparison
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SerializationBenchmark {
+    private final JSONBContext jsonbContext = new JSONBContext();
+
+    private WeekResolverEngine engine;
+    private WeekResolverResult result;
+    private YearPlanResult yearPlan;
+
+    @Setup
+    public void setup() {
+        engine = WeekResolverEngine.of("Europe/Copenhagen");
+        result = engine.getWeekCode("BKM", LocalDate.parse("2025-03-12"));
+        yearPlan = engine.getYearPlan("BKM", 2025, true, true);
+    }
+
+    @Benchmark
+    public String marshallResult() throws JSONBException {
+        return jsonbContext.marshall(result);
+    }
+
+    @Benchmark
+    public String marshallYearPlan() throws JSONBException {
+        return jsonbContext.marshall(yearPlan);
+    }
+
+    @Benchmark
+    public byte[] encodeResult() {
+        return WeekResolverBinaryFormat.encode(result, engine.getZoneId());
+    }
+
+    @Benchmark
+    public byte[] encodeYearPlan() {
+        return WeekResolverBinaryFormat.encode(yearPlan);
+    }
+}
@@ -0,0 +1,51 @@
+package dk.dbc.weekresolver.service;
+
+import java.util.concurrent.TimeUnit;
+
+import dk.dbc.weekresolver.model.WeekResolverResult;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Weekcode and current weekcode of a date, through {@link WeekResolver}. The dates are an ordinary week, the Friday
+ * before Christmas, the days between Christmas and New Year, and the week before Easter
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class WeekCodeBenchmark {
+    @Param({"BKM", "DPF", "ACC", "EMO"})
+    String catalogueCode;
+
+    @Param({"2025-03-12", "2024-12-20", "2024-12-27", "2025-04-16"})
+    String date;
+
+    private WeekResolver weekResolver;
+
+    @Setup
+    public void setup() {
+        weekResolver = new WeekResolver("Europe/Copenhagen").withCatalogueCode(catalogueCode).withDate(date);
+    }
+
+    @Benchmark
+    public WeekResolverResult getWeekCode() {
+        return weekResolver.getWeekCode();
+    }
+
+    @Benchmark
+    public WeekResolverResult getCurrentWeekCode() {
+        return weekResolver.getCurrentWeekCode();
+    }
+}
@@ -0,0 +1,53 @@
+package dk.dbc.weekresolver.service;
+
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+import dk.dbc.weekresolver.model.WeekCodeConfiguration;
+import dk.dbc.weekresolver.model.WeekDescription;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Calculation of the description of a week, bypassing the cache of descriptions
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class WeekDescriptionBenchmark {
+    @Param({"BKM", "DPF"})
+    String catalogueCode;
+
+    @Param({"2025-03-12", "2024-12-20", "2025-04-16"})
+    String date;
+
+    private WeekResolverEngine engine;
+    private WeekCodeConfiguration configuration;
+    private LocalDate localDate;
+    private String weekCode;
+
+    @Setup
+    public void setup() {
+        engine = WeekResolverEngine.of("Europe/Copenhagen");
+        configuration = engine.getConfiguration(catalogueCode);
+        localDate = LocalDate.parse(date);
+        weekCode = engine.getWeekCode(catalogueCode, localDate).getWeekCode();
+    }
+
+    @Benchmark
+    public WeekDescription calculateWeekDescription() {
+        return engine.calculateWeekDescription(configuration, localDate, weekCode);
+    }
+}
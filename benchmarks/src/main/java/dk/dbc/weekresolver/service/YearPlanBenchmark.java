@@ -0,0 +1,53 @@
+package dk.dbc.weekresolver.service;
+
+import java.util.concurrent.TimeUnit;
+
+import dk.dbc.weekresolver.model.WeekCodeConfiguration;
+import dk.dbc.weekresolver.model.YearPlanResult;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Year plans, as served (from the cache of the engine) and as calculated
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class YearPlanBenchmark {
+    @Param({"BKM", "DPF"})
+    String catalogueCode;
+
+    @Param({"2024", "2025", "2026"})
+    int year;
+
+    private WeekResolverEngine engine;
+    private WeekCodeConfiguration configuration;
+
+    @Setup
+    public void setup() {
+        engine = WeekResolverEngine.of("Europe/Copenhagen");
+        configuration = engine.getConfiguration(catalogueCode);
+    }
+
+    @Benchmark
+    public YearPlanResult getYearPlan() {
+        return engine.getYearPlan(catalogueCode, year, true, true);
+    }
+
+    @Benchmark
+    public YearPlanResult calculateYearPlan() {
+        return engine.calculateYearPlan(configuration, catalogueCode, year, true, true);
+    }
+}
@@ -2,24 +2,34 @@ package dk.dbc.weekresolver.connector;
 
 import dk.dbc.httpclient.FailSafeHttpClient;
 import dk.dbc.httpclient.HttpGet;
+import dk.dbc.httpclient.HttpPost;
 import dk.dbc.invariant.InvariantUtil;
 import dk.dbc.util.Stopwatch;
+import dk.dbc.commons.jsonb.JSONBContext;
+import dk.dbc.commons.jsonb.JSONBException;
+import dk.dbc.weekresolver.model.WeekCodeBatchItem;
 import dk.dbc.weekresolver.model.WeekCodeFulfilledResult;
+import dk.dbc.weekresolver.model.WeekCodeIntervalResult;
 import dk.dbc.weekresolver.model.WeekResolverQueryParameterDays;
+import dk.dbc.weekresolver.model.WeekResolverBinaryFormat;
 import dk.dbc.weekresolver.model.WeekResolverQueryParameterDisplay;
 import dk.dbc.weekresolver.model.WeekResolverResult;
 import dk.dbc.weekresolver.model.YearPlanFormat;
 import dk.dbc.weekresolver.model.YearPlanResult;
 import jakarta.ws.rs.ProcessingException;
 import jakarta.ws.rs.client.Client;
+import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.Response;
 import net.jodah.failsafe.RetryPolicy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.time.Duration;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
+import java.util.List;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -31,6 +41,10 @@ import java.util.concurrent.TimeUnit;
  * <p>
  * This class is thread safe, as long as the given web resources client remains thread safe.
  * </p>
+ * <p>
+ * Results and JSON year plans are requested in the compact binary format (see {@link WeekResolverBinaryFormat}),
+ * with JSON as fallback, and decoded according to the media type of the response.
+ * </p>
  */
 public class WeekResolverConnector {
     private static final Logger LOGGER = LoggerFactory.getLogger(WeekResolverConnector.class);
@@ -45,6 +59,11 @@ public class WeekResolverConnector {
     private final FailSafeHttpClient failSafeHttpClient;
     private final String baseUrl;
 
+    // Prefer the binary format, but accept JSON from services that do not support it
+    private static final String ACCEPT = WeekResolverBinaryFormat.MEDIA_TYPE + ", " + MediaType.APPLICATION_JSON + ";q=0.9";
+
+    private static final JSONBContext jsonbContext = new JSONBContext();
+
     private final DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd");
 
     public WeekResolverConnector(Client httpClient, String baseUrl) {
@@ -74,10 +93,12 @@ public class WeekResolverConnector {
         final Stopwatch stopwatch = new Stopwatch();
         try {
             final Response response = new HttpGet(failSafeHttpClient).withBaseUrl(baseUrl)
-                    .withPathElements("api", "v1", "date", catalogueCode, date.format(formatter)).execute();
+                    .withPathElements("api", "v1", "date", catalogueCode, date.format(formatter))
+                    .withHeader("Accept", ACCEPT)
+                    .execute();
             assertResponseStatus(response);
 
-            return response.readEntity(WeekResolverResult.class);
+            return readResult(response);
         } finally {
             LOGGER.info("getWeekCode took {} ms", stopwatch.getElapsedTime(TimeUnit.MILLISECONDS));
 
@@ -94,10 +115,12 @@ public class WeekResolverConnector {
         final Stopwatch stopwatch = new Stopwatch();
         try {
             final Response response = new HttpGet(failSafeHttpClient).withBaseUrl(baseUrl)
-                    .withPathElements("api", "v1", "current", catalogueCode, date.format(formatter)).execute();
+                    .withPathElements("api", "v1", "current", catalogueCode, date.format(formatter))
+                    .withHeader("Accept", ACCEPT)
+                    .execute();
             assertResponseStatus(response);
 
-            return response.readEntity(WeekResolverResult.class);
+            return readResult(response);
         } finally {
             LOGGER.info("getWeekCode took {} ms", stopwatch.getElapsedTime(TimeUnit.MILLISECONDS));
         }
@@ -116,10 +139,16 @@ public class WeekResolverConnector {
                     .withPathElements("api", "v1", "year", format.name(), catalogueCode, String.format("%04d", year))
                     .withQueryParameter("days", WeekResolverQueryParameterDays.ON.name())
                     .withQueryParameter("display", WeekResolverQueryParameterDisplay.ALL.name())
+                    .withHeader("Accept", ACCEPT)
                     .execute();
             assertResponseStatus(response);
 
+            if (isBinary(response)) {
+                return WeekResolverBinaryFormat.decodeYearPlan(response.readEntity(InputStream.class));
+            }
             return response.readEntity(YearPlanResult.class);
+        } catch (IOException ioException) {
+            throw new WeekResolverConnectorException("Unable to decode year plan", ioException);
         } finally {
             LOGGER.info("getWeekCode took {} ms", stopwatch.getElapsedTime(TimeUnit.MILLISECONDS));
         }
@@ -145,6 +174,23 @@ public class WeekResolverConnector {
         }
     }
 
+    public WeekCodeIntervalResult getWeekCodeInterval(String weekCode) throws WeekResolverConnectorException {
+        LOGGER.info("Getting dates of weekcode {}", weekCode);
+        final Stopwatch stopwatch = new Stopwatch();
+        try {
+            final Response response = new HttpGet(failSafeHttpClient).withBaseUrl(baseUrl)
+                    .withPathElements("api", "v1", "weekcode", weekCode).execute();
+            assertResponseStatus(response);
+
+            // Read with the same JSON binding as the service writes it with, since the result has local dates
+            return jsonbContext.unmarshall(response.readEntity(String.class), WeekCodeIntervalResult.class);
+        } catch (JSONBException jsonbException) {
+            throw new WeekResolverConnectorException("Unable to read the dates of the weekcode", jsonbException);
+        } finally {
+            LOGGER.info("getWeekCodeInterval took {} ms", stopwatch.getElapsedTime(TimeUnit.MILLISECONDS));
+        }
+    }
+
     public WeekCodeFulfilledResult getWeekCodeFulfilled(String weekCode) throws WeekResolverConnectorException {
         LOGGER.info("Checking if weekcode {} is fulfilled", weekCode);
         final Stopwatch stopwatch = new Stopwatch();
@@ -159,10 +205,58 @@ public class WeekResolverConnector {
         }
     }
 
+    /**
+     * Resolve the weekcodes of many dates in one request
+     * @param items The items, with cataloguecode and date
+     * @return The same items, in the same order, with the weekcode or the error
+     * @throws WeekResolverConnectorException if the request fails
+     */
+    public List<WeekCodeBatchItem> getWeekCodes(List<WeekCodeBatchItem> items) throws WeekResolverConnectorException {
+        LOGGER.info("Getting weekcodes for {} items", items.size());
+        final Stopwatch stopwatch = new Stopwatch();
+        try {
+            final Response response = new HttpPost(failSafeHttpClient).withBaseUrl(baseUrl)
+                    .withPathElements("api", "v1", "date")
+                    .withHeader("Accept", WeekResolverBinaryFormat.MEDIA_TYPE)
+                    .withData(jsonbContext.marshall(items), MediaType.APPLICATION_JSON)
+                    .execute();
+            assertResponseStatus(response);
+
+            List<WeekCodeBatchItem> results = WeekResolverBinaryFormat.decodeBatch(response.readEntity(InputStream.class));
+            if (results.size() != items.size()) {
+                throw new WeekResolverConnectorException(String.format("Expected %d weekcodes, got %d", items.size(), results.size()));
+            }
+            for (int i = 0; i < items.size(); i++) {
+                items.get(i).withWeekCode(results.get(i).getWeekCode()).withError(results.get(i).getError());
+            }
+            return items;
+        } catch (JSONBException | IOException exception) {
+            throw new WeekResolverConnectorException("Unable to get weekcodes", exception);
+        } finally {
+            LOGGER.info("getWeekCodes took {} ms", stopwatch.getElapsedTime(TimeUnit.MILLISECONDS));
+        }
+    }
+
     public void close() {
         failSafeHttpClient.getClient().close();
     }
 
+    private WeekResolverResult readResult(Response response) throws WeekResolverConnectorException {
+        if (!isBinary(response)) {
+            return response.readEntity(WeekResolverResult.class);
+        }
+        try {
+            return WeekResolverBinaryFormat.decodeResult(response.readEntity(InputStream.class));
+        } catch (IOException ioException) {
+            throw new WeekResolverConnectorException("Unable to decode result", ioException);
+        }
+    }
+
+    private static boolean isBinary(Response response) {
+        MediaType mediaType = response.getMediaType();
+        return mediaType != null && WeekResolverBinaryFormat.MEDIA_TYPE.equals(mediaType.getType() + "/" + mediaType.getSubtype());
+    }
+
     private void assertResponseStatus(Response response)
             throws WeekResolverUnexpectedStatusCodeException {
         final Response.Status actualStatus =
@@ -4,4 +4,8 @@ public class WeekResolverConnectorException extends Exception {
     public WeekResolverConnectorException(String message) {
         super(message);
     }
+
+    public WeekResolverConnectorException(String message, Throwable cause) {
+        super(message, cause);
+    }
 }
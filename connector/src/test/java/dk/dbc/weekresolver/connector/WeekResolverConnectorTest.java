@@ -0,0 +1,212 @@
+package dk.dbc.weekresolver.connector;
+
+import com.github.tomakehurst.wiremock.WireMockServer;
+import dk.dbc.commons.jsonb.JSONBContext;
+import dk.dbc.commons.jsonb.JSONBException;
+import dk.dbc.httpclient.FailSafeHttpClient;
+import dk.dbc.httpclient.HttpClient;
+import dk.dbc.weekresolver.model.WeekCodeBatchItem;
+import dk.dbc.weekresolver.model.WeekCodeIntervalResult;
+import dk.dbc.weekresolver.model.WeekDescription;
+import dk.dbc.weekresolver.model.WeekResolverBinaryFormat;
+import dk.dbc.weekresolver.model.WeekResolverResult;
+import dk.dbc.weekresolver.model.YearPlanFormat;
+import dk.dbc.weekresolver.model.YearPlanResult;
+import jakarta.ws.rs.core.Response;
+import net.jodah.failsafe.RetryPolicy;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.equalTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.getRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.matchingJsonPath;
+import static com.github.tomakehurst.wiremock.client.WireMock.post;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlEqualTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathEqualTo;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.options;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class WeekResolverConnectorTest {
+    private static final ZoneId ZONE = ZoneId.of("Europe/Copenhagen");
+    private static final String ACCEPT = "application/x-weekresolver, application/json;q=0.9";
+    private static final JSONBContext jsonbContext = new JSONBContext();
+
+    private static WireMockServer server;
+    private static WeekResolverConnector connector;
+
+    @BeforeAll
+    static void startServer() {
+        server = new WireMockServer(options().dynamicPort());
+        server.start();
+        connector = new WeekResolverConnector(FailSafeHttpClient.create(HttpClient.newClient(),
+                new RetryPolicy<Response>().withMaxRetries(0)), server.baseUrl());
+    }
+
+    @AfterAll
+    static void stopServer() {
+        server.stop();
+    }
+
+    @BeforeEach
+    void resetServer() {
+        server.resetAll();
+    }
+
+    @Test
+    void testBinaryResult() throws WeekResolverConnectorException {
+        WeekResolverResult expected = result();
+        server.stubFor(get(urlEqualTo("/api/v1/date/BKM/2024-11-07"))
+                .willReturn(aResponse().withStatus(200)
+                        .withHeader("Content-Type", WeekResolverBinaryFormat.MEDIA_TYPE)
+                        .withBody(WeekResolverBinaryFormat.encode(expected, ZONE))));
+
+        assertResult(connector.getWeekCodeForDate("BKM", LocalDate.parse("2024-11-07")), expected);
+        server.verify(getRequestedFor(urlEqualTo("/api/v1/date/BKM/2024-11-07")).withHeader("Accept", equalTo(ACCEPT)));
+    }
+
+    @Test
+    void testJsonResultFromServiceWithoutBinaryFormat() throws WeekResolverConnectorException, JSONBException {
+        // A service that does not support the binary format answers with JSON, which is accepted with q=0.9
+        WeekResolverResult expected = result();
+        server.stubFor(get(urlEqualTo("/api/v1/current/BKM/2024-11-07"))
+                .willReturn(aResponse().withStatus(200)
+                        .withHeader("Content-Type", "application/json")
+                        .withBody(jsonbContext.marshall(expected))));
+
+        assertResult(connector.getCurrentWeekCodeForDate("BKM", LocalDate.parse("2024-11-07")), expected);
+        server.verify(getRequestedFor(urlEqualTo("/api/v1/current/BKM/2024-11-07")).withHeader("Accept", equalTo(ACCEPT)));
+    }
+
+    @Test
+    void testInvalidBinaryResult() {
+        server.stubFor(get(urlEqualTo("/api/v1/date/BKM/2024-11-07"))
+                .willReturn(aResponse().withStatus(200)
+                        .withHeader("Content-Type", WeekResolverBinaryFormat.MEDIA_TYPE)
+                        .withBody(new byte[] {1, 2, 3})));
+
+        assertThrows(WeekResolverConnectorException.class, () -> connector.getWeekCodeForDate("BKM", LocalDate.parse("2024-11-07")));
+    }
+
+    @Test
+    void testYearPlan() throws WeekResolverConnectorException, JSONBException {
+        YearPlanResult expected = yearPlan();
+        server.stubFor(get(urlPathEqualTo("/api/v1/year/JSON/BKM/2024"))
+                .willReturn(aResponse().withStatus(200)
+                        .withHeader("Content-Type", WeekResolverBinaryFormat.MEDIA_TYPE)
+                        .withBody(WeekResolverBinaryFormat.encode(expected))));
+        server.stubFor(get(urlPathEqualTo("/api/v1/year/JSON/BKM/2025"))
+                .willReturn(aResponse().withStatus(200)
+                        .withHeader("Content-Type", "application/json")
+                        .withBody(jsonbContext.marshall(expected))));
+
+        for (int year : List.of(2024, 2025)) {
+            YearPlanResult yearPlan = connector.getYearPlanForCodeAndYear(YearPlanFormat.JSON, "BKM", year);
+            assertThat(yearPlan.getYear(), is(expected.getYear()));
+            assertThat(yearPlan.size(), is(expected.size()));
+            for (int row = 0; row < expected.size(); row++) {
+                for (int column = 0; column < expected.getRows().get(row).getColumns().size(); column++) {
+                    YearPlanResult.YearPlanRowColumn actualColumn = yearPlan.getRows().get(row).getColumns().get(column);
+                    YearPlanResult.YearPlanRowColumn expectedColumn = expected.getRows().get(row).getColumns().get(column);
+                    assertThat(actualColumn.getContent(), is(expectedColumn.getContent()));
+                    assertThat(actualColumn.getHeader(), is(expectedColumn.getHeader()));
+                    assertThat(actualColumn.getIsAbnormalDay(), is(expectedColumn.getIsAbnormalDay()));
+                    assertThat(actualColumn.getIsVisible(), is(expectedColumn.getIsVisible()));
+                }
+            }
+        }
+        server.verify(getRequestedFor(urlPathEqualTo("/api/v1/year/JSON/BKM/2024")).withHeader("Accept", equalTo(ACCEPT)));
+    }
+
+    @Test
+    void testWeekCodes() throws WeekResolverConnectorException, IOException {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        WeekResolverBinaryFormat.BatchWriter writer = new WeekResolverBinaryFormat.BatchWriter(body);
+        writer.writeWeekCode("BKM202447");
+        writer.writeError(WeekResolverBinaryFormat.ERROR_UNSUPPORTED);
+        writer.finish();
+        server.stubFor(post(urlEqualTo("/api/v1/date"))
+                .withHeader("Accept", equalTo(WeekResolverBinaryFormat.MEDIA_TYPE))
+                .withRequestBody(matchingJsonPath("$[1].catalogueCode", equalTo("XYZ")))
+                .willReturn(aResponse().withStatus(200)
+                        .withHeader("Content-Type", WeekResolverBinaryFormat.MEDIA_TYPE)
+                        .withBody(body.toByteArray())));
+
+        List<WeekCodeBatchItem> items = new ArrayList<>(List.of(
+                new WeekCodeBatchItem().withCatalogueCode("BKM").withDate("2024-11-07"),
+                new WeekCodeBatchItem().withCatalogueCode("XYZ").withDate("2024-11-07")));
+        List<WeekCodeBatchItem> results = connector.getWeekCodes(items);
+        assertThat(results.size(), is(2));
+        assertThat(results.get(0).getWeekCode(), is("BKM202447"));
+        assertThat(results.get(0).getError(), is(nullValue()));
+        assertThat(results.get(1).getWeekCode(), is(nullValue()));
+        assertThat(results.get(1).getError(), is(WeekResolverBinaryFormat.ERROR_UNSUPPORTED));
+
+        // The service must answer every item (the stub answers two)
+        items.add(new WeekCodeBatchItem().withCatalogueCode("DPF").withDate("2024-11-07"));
+        assertThrows(WeekResolverConnectorException.class, () -> connector.getWeekCodes(items));
+    }
+
+    @Test
+    void testWeekCodeInterval() throws WeekResolverConnectorException, JSONBException {
+        WeekCodeIntervalResult expected = new WeekCodeIntervalResult()
+                .withCatalogueCode("BKM")
+                .withWeekCode("BKM202612")
+                .withFrom(LocalDate.parse("2026-03-06"))
+                .withTo(LocalDate.parse("2026-03-12"))
+                .withDescription(new WeekDescription().withWeekCodeShort("202612"));
+        server.stubFor(get(urlEqualTo("/api/v1/weekcode/BKM202612"))
+                .willReturn(aResponse().withStatus(200)
+                        .withHeader("Content-Type", "application/json")
+                        .withBody(jsonbContext.marshall(expected))));
+
+        WeekCodeIntervalResult interval = connector.getWeekCodeInterval("BKM202612");
+        assertThat(interval.getWeekCode(), is("BKM202612"));
+        assertThat(interval.getFrom(), is(expected.getFrom()));
+        assertThat(interval.getTo(), is(expected.getTo()));
+        assertThat(interval.getDescription().getWeekCodeShort(), is("202612"));
+    }
+
+    private static WeekResolverResult result() {
+        Date date = Date.from(LocalDate.parse("2024-11-14").atStartOfDay(ZONE).toInstant());
+        WeekDescription description = new WeekDescription()
+                .withWeekCodeShort("202447")
+                .withWeekCodeFirst(Date.from(LocalDate.parse("2024-11-01").atStartOfDay(ZONE).toInstant()))
+                .withWeekCodeLast(Date.from(LocalDate.parse("2024-11-07").atStartOfDay(ZONE).toInstant()));
+        return new WeekResolverResult(date, 47, 2024, "BKM202447", "BKM", description);
+    }
+
+    private static void assertResult(WeekResolverResult actual, WeekResolverResult expected) {
+        assertThat(actual.getCatalogueCode(), is(expected.getCatalogueCode()));
+        assertThat(actual.getWeekCode(), is(expected.getWeekCode()));
+        assertThat(actual.getWeekNumber(), is(expected.getWeekNumber()));
+        assertThat(actual.getYear(), is(expected.getYear()));
+        assertThat(actual.getDate(), is(expected.getDate()));
+        assertThat(actual.getDescription().getWeekCodeShort(), is(expected.getDescription().getWeekCodeShort()));
+        assertThat(actual.getDescription().getWeekCodeFirst(), is(expected.getDescription().getWeekCodeFirst()));
+        assertThat(actual.getDescription().getWeekCodeLast(), is(expected.getDescription().getWeekCodeLast()));
+    }
+
+    private static YearPlanResult yearPlan() {
+        YearPlanResult yearPlan = new YearPlanResult().withYear("2024");
+        yearPlan.add(List.of(new YearPlanResult.YearPlanRowColumn("Ugekode", false, true, true),
+                new YearPlanResult.YearPlanRowColumn("Bogvogn", false, true, true)));
+        yearPlan.add(List.of(new YearPlanResult.YearPlanRowColumn("202402"),
+                new YearPlanResult.YearPlanRowColumn("2/1-2024 tirsdag", true, true)));
+        return yearPlan;
+    }
+}
@@ -0,0 +1,92 @@
+package dk.dbc.weekresolver.loadtest;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+/**
+ * Latencies and response statuses of the requests to one endpoint, recorded concurrently by the workers.
+ * <p>
+ * A request is an error if it failed (no response, for example a timeout) or was answered with a 5xx status. Other
+ * statuses are counted, but are not errors, since a recorded log may well have requests that are answered with 4xx.
+ * </p>
+ */
+public class EndpointStatistics {
+    // Latencies are recorded in microseconds, up to a minute, with 3 significant digits
+    private static final long HIGHEST_LATENCY_MICROS = TimeUnit.MINUTES.toMicros(1);
+
+    private final String endpoint;
+    private final Histogram latencies = new ConcurrentHistogram(HIGHEST_LATENCY_MICROS, 3);
+    private final Map<String, LongAdder> statuses = new ConcurrentHashMap<>();
+    private final LongAdder errors = new LongAdder();
+
+    public EndpointStatistics(String endpoint) {
+        this.endpoint = endpoint;
+    }
+
+    public String getEndpoint() {
+        return endpoint;
+    }
+
+    /**
+     * @param latencyNanos Time from the request was due to be sent until the response was read
+     * @param status HTTP status of the response
+     */
+    public void recordResponse(long latencyNanos, int status) {
+        record(latencyNanos, Integer.toString(status), status >= 500);
+    }
+
+    /**
+     * @param latencyNanos Time from the request was due to be sent until it failed
+     */
+    public void recordFailure(long latencyNanos) {
+        record(latencyNanos, "failed", true);
+    }
+
+    private void record(long latencyNanos, String status, boolean error) {
+        latencies.recordValue(Math.min(TimeUnit.NANOSECONDS.toMicros(latencyNanos), HIGHEST_LATENCY_MICROS));
+        statuses.computeIfAbsent(status, s -> new LongAdder()).increment();
+        if (error) {
+            errors.increment();
+        }
+    }
+
+    /**
+     * @return Histogram of the latencies in microseconds
+     */
+    public Histogram getLatencies() {
+        return latencies;
+    }
+
+    public long getCount() {
+        return latencies.getTotalCount();
+    }
+
+    public long getErrors() {
+        return errors.sum();
+    }
+
+    /**
+     * @return Number of responses per status, and the number of failed requests as "failed"
+     */
+    public Map<String, Long> getStatuses() {
+        Map<String, Long> counts = new TreeMap<>();
+        statuses.forEach((status, count) -> counts.put(status, count.sum()));
+        return counts;
+    }
+
+    /**
+     * Add the statistics of another endpoint to these, used for the totals
+     * @param other The other statistics
+     */
+    public void add(EndpointStatistics other) {
+        latencies.add(other.latencies);
+        other.statuses.forEach((status, count) -> statuses.computeIfAbsent(status, s -> new LongAdder()).add(count.sum()));
+        errors.add(other.errors.sum());
+    }
+}
@@ -0,0 +1,284 @@
+package dk.dbc.weekresolver.loadtest;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Replays a request log against a running service, and reports the latencies, throughput and errors per endpoint.
+ * <p>
+ * With a rate, the requests are sent on a fixed schedule (an open model, as real clients do not wait for each other),
+ * and the latency of a request is measured from the time it was due. If the service falls behind, so all workers are
+ * busy, the waiting time is part of the latency, rather than hidden by sending fewer requests. Without a rate, the
+ * workers send the requests as fast as the service answers them (a closed model), and the latency is measured from
+ * the time a request is sent.
+ * </p>
+ * <p>
+ * The log is repeated until the given number of requests is sent. Warmup requests are sent first, and are not
+ * recorded.
+ * </p>
+ */
+public class LoadTest {
+    private static final Logger LOGGER = LoggerFactory.getLogger(LoadTest.class);
+
+    private URI url = URI.create("http://localhost:8080");
+    private double rate = 0;
+    private int concurrency = 8;
+    private long requests = 0;
+    private long warmup = 0;
+    private Duration timeout = Duration.ofSeconds(10);
+
+    /**
+     * @param url Scheme, host and port of the service, the paths of the log are resolved against it
+     * @return This
+     */
+    public LoadTest withUrl(URI url) {
+        this.url = url;
+        return this;
+    }
+
+    /**
+     * @param rate Requests per second, or 0 to send them as fast as possible
+     * @return This
+     */
+    public LoadTest withRate(double rate) {
+        this.rate = rate;
+        return this;
+    }
+
+    /**
+     * @param concurrency Maximum number of requests in flight
+     * @return This
+     */
+    public LoadTest withConcurrency(int concurrency) {
+        this.concurrency = concurrency;
+        return this;
+    }
+
+    /**
+     * @param requests Number of requests to send, or 0 to send the log once
+     * @return This
+     */
+    public LoadTest withRequests(long requests) {
+        this.requests = requests;
+        return this;
+    }
+
+    /**
+     * @param warmup Number of requests to send before recording
+     * @return This
+     */
+    public LoadTest withWarmup(long warmup) {
+        this.warmup = warmup;
+        return this;
+    }
+
+    /**
+     * @param timeout Timeout of connecting, and of each request
+     * @return This
+     */
+    public LoadTest withTimeout(Duration timeout) {
+        this.timeout = timeout;
+        return this;
+    }
+
+    /**
+     * Replay a log
+     * @param log The requests to replay
+     * @return The report
+     * @throws InterruptedException if interrupted while replaying
+     */
+    public LoadTestReport run(List<RecordedRequest> log) throws InterruptedException {
+        if (log.isEmpty()) {
+            throw new IllegalArgumentException("No requests to replay");
+        }
+        if (concurrency < 1 || rate < 0) {
+            throw new IllegalArgumentException("The concurrency must be positive, and the rate can not be negative");
+        }
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(timeout)
+                .build();
+        ExecutorService workers = Executors.newFixedThreadPool(concurrency);
+        try {
+            if (warmup > 0) {
+                LOGGER.info("Warming up with {} requests", warmup);
+                replay(client, workers, log, 0, warmup, null);
+            }
+            long count = requests > 0 ? requests : log.size();
+            LOGGER.info("Replaying {} requests to {}, {} at a time, {}", count, url, concurrency,
+                    rate > 0 ? String.format(Locale.ROOT, "%.1f per second", rate) : "as fast as possible");
+            Map<String, EndpointStatistics> statistics = new ConcurrentHashMap<>();
+            long elapsedNanos = replay(client, workers, log, warmup, count, statistics);
+            return new LoadTestReport(url, rate, concurrency, elapsedNanos, statistics.values());
+        } finally {
+            workers.shutdownNow();
+        }
+    }
+
+    private long replay(HttpClient client, ExecutorService workers, List<RecordedRequest> log, long first, long count,
+                        Map<String, EndpointStatistics> statistics) throws InterruptedException {
+        Semaphore inFlight = new Semaphore(concurrency);
+        long intervalNanos = rate > 0 ? (long) (TimeUnit.SECONDS.toNanos(1) / rate) : 0;
+        long start = System.nanoTime();
+        for (long i = 0; i < count; i++) {
+            RecordedRequest request = log.get((int) ((first + i) % log.size()));
+            long due = start + i * intervalNanos;
+            long wait;
+            while (intervalNanos > 0 && (wait = due - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(wait);
+                if (Thread.interrupted()) {
+                    throw new InterruptedException();
+                }
+            }
+            inFlight.acquire();
+            long sent = intervalNanos > 0 ? due : System.nanoTime();
+            EndpointStatistics endpoint = statistics == null ? null
+                    : statistics.computeIfAbsent(request.getEndpoint(), EndpointStatistics::new);
+            workers.execute(() -> {
+                try {
+                    send(client, request, sent, endpoint);
+                } finally {
+                    inFlight.release();
+                }
+            });
+        }
+        inFlight.acquire(concurrency);
+        return System.nanoTime() - start;
+    }
+
+    private void send(HttpClient client, RecordedRequest request, long sent, EndpointStatistics statistics) {
+        try {
+            HttpRequest.Builder builder = HttpRequest.newBuilder(url.resolve(request.getPath()))
+                    .timeout(timeout)
+                    .method(request.getMethod(), request.getBody() == null
+                            ? HttpRequest.BodyPublishers.noBody()
+                            : HttpRequest.BodyPublishers.ofString(request.getBody(), StandardCharsets.UTF_8));
+            request.getHeaders().forEach(builder::header);
+            HttpResponse<Void> response = client.send(builder.build(), HttpResponse.BodyHandlers.discarding());
+            if (statistics != null) {
+                statistics.recordResponse(System.nanoTime() - sent, response.statusCode());
+            }
+        } catch (IOException | IllegalArgumentException exception) {
+            LOGGER.debug("{} failed: {}", request, exception.toString());
+            if (statistics != null) {
+                statistics.recordFailure(System.nanoTime() - sent);
+            }
+        } catch (InterruptedException interruptedException) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static final String USAGE = String.join("\n",
+            "Usage: LoadTest [options] <log file>",
+            "  --format jsonl|access  format of the log (default jsonl)",
+            "  --url <url>            service to test (default http://localhost:8080)",
+            "  --rate <n>             requests per second, 0 is as fast as possible (default 0)",
+            "  --concurrency <n>      maximum number of requests in flight (default 8)",
+            "  --requests <n>         number of requests, the log is repeated as needed (default the size of the log)",
+            "  --warmup <n>           number of requests to send before recording (default 0)",
+            "  --timeout <seconds>    timeout of each request (default 10)",
+            "  --json <file>          write the report as JSON (default loadtest-report.json)",
+            "  --html <file>          write the report as HTML (default loadtest-report.html)");
+
+    /**
+     * Replay a log, run with --help for the options
+     * @param args The options and the log file
+     * @throws Exception if the log can not be read or replayed, or the report can not be written
+     */
+    public static void main(String[] args) throws Exception {
+        LoadTest loadTest = new LoadTest();
+        RequestLog.Format format = RequestLog.Format.JSONL;
+        Path json = Paths.get("loadtest-report.json");
+        Path html = Paths.get("loadtest-report.html");
+        Path logFile = null;
+        try {
+            for (int i = 0; i < args.length; i++) {
+                String arg = args[i];
+                if (!arg.startsWith("--")) {
+                    if (logFile != null) {
+                        throw new IllegalArgumentException("Only one log file can be replayed");
+                    }
+                    logFile = Paths.get(arg);
+                    continue;
+                }
+                if (arg.equals("--help")) {
+                    System.out.println(USAGE);
+                    return;
+                }
+                if (i + 1 == args.length) {
+                    throw new IllegalArgumentException(String.format("%s needs a value", arg));
+                }
+                String value = args[++i];
+                switch (arg) {
+                    case "--format":
+                        format = RequestLog.Format.valueOf(value.toUpperCase(Locale.ROOT));
+                        break;
+                    case "--url":
+                        loadTest.withUrl(URI.create(value));
+                        break;
+                    case "--rate":
+                        loadTest.withRate(Double.parseDouble(value));
+                        break;
+                    case "--concurrency":
+                        loadTest.withConcurrency(Integer.parseInt(value));
+                        break;
+                    case "--requests":
+                        loadTest.withRequests(Long.parseLong(value));
+                        break;
+                    case "--warmup":
+                        loadTest.withWarmup(Long.parseLong(value));
+                        break;
+                    case "--timeout":
+                        loadTest.withTimeout(Duration.ofSeconds(Long.parseLong(value)));
+                        break;
+                    case "--json":
+                        json = Paths.get(value);
+                        break;
+                    case "--html":
+                        html = Paths.get(value);
+                        break;
+                    default:
+                        throw new IllegalArgumentException(String.format("Unknown option %s", arg));
+                }
+            }
+            if (logFile == null) {
+                throw new IllegalArgumentException("No log file");
+            }
+        } catch (IllegalArgumentException illegalArgumentException) {
+            System.err.println(illegalArgumentException.getMessage());
+            System.err.println(USAGE);
+            System.exit(1);
+        }
+
+        LoadTestReport report = loadTest.run(RequestLog.read(logFile, format));
+        try (Writer writer = Files.newBufferedWriter(json, StandardCharsets.UTF_8)) {
+            report.writeJson(writer);
+        }
+        try (Writer writer = Files.newBufferedWriter(html, StandardCharsets.UTF_8)) {
+            report.writeHtml(writer);
+        }
+        System.out.print(report.summary());
+        LOGGER.info("Wrote the report to {} and {}", json, html);
+    }
+}
@@ -0,0 +1,217 @@
+package dk.dbc.weekresolver.loadtest;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import jakarta.json.Json;
+import jakarta.json.stream.JsonGenerator;
+import org.HdrHistogram.Histogram;
+
+/**
+ * The result of a load test: latency percentiles, throughput and error rate per endpoint and in total, written as
+ * JSON for comparing runs, and as HTML for reading.
+ * <p>
+ * Latencies are in microseconds. The HTML report also has the full percentile distribution of each endpoint, in the
+ * format of HdrHistogram, which can be plotted with the HdrHistogram plotter.
+ * </p>
+ */
+public class LoadTestReport {
+    static final String TOTAL = "Total";
+
+    private static final double[] PERCENTILES = {50, 90, 95, 99, 99.9};
+
+    private final URI url;
+    private final double rate;
+    private final int concurrency;
+    private final long elapsedNanos;
+    private final ZonedDateTime finished = ZonedDateTime.now();
+    private final List<EndpointStatistics> endpoints;
+    private final EndpointStatistics total = new EndpointStatistics(TOTAL);
+
+    LoadTestReport(URI url, double rate, int concurrency, long elapsedNanos, Collection<EndpointStatistics> endpoints) {
+        this.url = url;
+        this.rate = rate;
+        this.concurrency = concurrency;
+        this.elapsedNanos = elapsedNanos;
+        this.endpoints = new ArrayList<>(endpoints);
+        this.endpoints.sort(Comparator.comparing(EndpointStatistics::getEndpoint));
+        this.endpoints.forEach(total::add);
+    }
+
+    public List<EndpointStatistics> getEndpoints() {
+        return endpoints;
+    }
+
+    public EndpointStatistics getTotal() {
+        return total;
+    }
+
+    /**
+     * @param statistics Statistics of an endpoint, or the total
+     * @return Requests per second, over the whole test
+     */
+    public double getThroughput(EndpointStatistics statistics) {
+        return elapsedNanos == 0 ? 0 : statistics.getCount() * (double) TimeUnit.SECONDS.toNanos(1) / elapsedNanos;
+    }
+
+    /**
+     * @param statistics Statistics of an endpoint, or the total
+     * @return Fraction of the requests that are errors
+     */
+    public static double getErrorRate(EndpointStatistics statistics) {
+        return statistics.getCount() == 0 ? 0 : statistics.getErrors() / (double) statistics.getCount();
+    }
+
+    public void writeJson(Writer writer) {
+        try (JsonGenerator generator = Json.createGeneratorFactory(Map.of(JsonGenerator.PRETTY_PRINTING, true))
+                .createGenerator(writer)) {
+            generator.writeStartObject()
+                    .write("url", url.toString())
+                    .write("finished", finished.format(DateTimeFormatter.ISO_OFFSET_DATE_TIME))
+                    .write("rate", rate)
+                    .write("concurrency", concurrency)
+                    .write("seconds", elapsedNanos / (double) TimeUnit.SECONDS.toNanos(1));
+            generator.writeStartArray("endpoints");
+            for (EndpointStatistics endpoint : endpoints) {
+                writeJson(generator, endpoint);
+            }
+            generator.writeEnd();
+            generator.writeKey("total");
+            writeJson(generator, total);
+            generator.writeEnd();
+        }
+    }
+
+    private void writeJson(JsonGenerator generator, EndpointStatistics statistics) {
+        Histogram latencies = statistics.getLatencies();
+        generator.writeStartObject()
+                .write("endpoint", statistics.getEndpoint())
+                .write("requests", statistics.getCount())
+                .write("errors", statistics.getErrors())
+                .write("errorRate", getErrorRate(statistics))
+                .write("throughput", getThroughput(statistics));
+        generator.writeStartObject("statuses");
+        statistics.getStatuses().forEach(generator::write);
+        generator.writeEnd();
+        generator.writeStartObject("latencyMicros")
+                .write("min", latencies.getMinValue())
+                .write("mean", latencies.getMean());
+        for (double percentile : PERCENTILES) {
+            generator.write(percentileName(percentile), latencies.getValueAtPercentile(percentile));
+        }
+        generator.write("max", latencies.getMaxValue())
+                .writeEnd()
+                .writeEnd();
+    }
+
+    public void writeHtml(Writer writer) throws IOException {
+        PrintWriter html = new PrintWriter(writer);
+        html.println("<!DOCTYPE html>");
+        html.println("<html><head><meta charset=\"utf-8\"><title>Weekresolver load test</title>");
+        html.println("<style>body{font-family:sans-serif} table{border-collapse:collapse} "
+                + "th,td{border:1px solid #ccc;padding:4px 8px;text-align:right} th:first-child,td:first-child{text-align:left} "
+                + ".errors{color:#c00;font-weight:bold}</style>");
+        html.println("</head><body>");
+        html.println("<h1>Weekresolver load test</h1>");
+        html.printf(Locale.ROOT, "<p>%s, finished %s: %d requests in %.1f seconds, %s, at most %d in flight.</p>%n",
+                escape(url.toString()), finished.format(DateTimeFormatter.ISO_OFFSET_DATE_TIME), total.getCount(),
+                elapsedNanos / (double) TimeUnit.SECONDS.toNanos(1),
+                rate > 0 ? String.format(Locale.ROOT, "scheduled at %.1f per second", rate) : "as fast as possible",
+                concurrency);
+
+        html.println("<table><tr><th>Endpoint</th><th>Requests</th><th>Per second</th><th>Errors</th><th>Statuses</th>"
+                + "<th>Min</th><th>Mean</th>");
+        for (double percentile : PERCENTILES) {
+            html.printf(Locale.ROOT, "<th>%s</th>", percentileName(percentile));
+        }
+        html.println("<th>Max</th></tr>");
+        for (EndpointStatistics endpoint : endpoints) {
+            writeHtmlRow(html, endpoint);
+        }
+        writeHtmlRow(html, total);
+        html.println("</table>");
+        html.println("<p>Latencies in milliseconds, measured from the time each request was due to be sent. "
+                + "Errors are failed requests and 5xx responses.</p>");
+
+        html.println("<h2>Percentile distributions</h2>");
+        for (EndpointStatistics endpoint : endpoints) {
+            html.printf("<details><summary>%s</summary><pre>%n", escape(endpoint.getEndpoint()));
+            html.print(escape(percentileDistribution(endpoint.getLatencies())));
+            html.println("</pre></details>");
+        }
+        html.println("</body></html>");
+        html.flush();
+        if (html.checkError()) {
+            throw new IOException("Unable to write the HTML report");
+        }
+    }
+
+    private void writeHtmlRow(PrintWriter html, EndpointStatistics statistics) {
+        Histogram latencies = statistics.getLatencies();
+        String tag = statistics == total ? "th" : "td";
+        html.printf(Locale.ROOT, "<tr><%1$s>%2$s</%1$s><%1$s>%3$d</%1$s><%1$s>%4$.1f</%1$s><%1$s%5$s>%6$d (%7$.2f%%)</%1$s><%1$s>%8$s</%1$s>",
+                tag, escape(statistics.getEndpoint()), statistics.getCount(), getThroughput(statistics),
+                statistics.getErrors() > 0 ? " class=\"errors\"" : "", statistics.getErrors(),
+                getErrorRate(statistics) * 100, escape(statistics.getStatuses().toString()));
+        html.printf(Locale.ROOT, "<%1$s>%2$.2f</%1$s><%1$s>%3$.2f</%1$s>", tag,
+                millis(latencies.getMinValue()), latencies.getMean() / 1000);
+        for (double percentile : PERCENTILES) {
+            html.printf(Locale.ROOT, "<%1$s>%2$.2f</%1$s>", tag, millis(latencies.getValueAtPercentile(percentile)));
+        }
+        html.printf(Locale.ROOT, "<%1$s>%2$.2f</%1$s></tr>%n", tag, millis(latencies.getMaxValue()));
+    }
+
+    /**
+     * @return A table of the endpoints, for the console
+     */
+    public String summary() {
+        StringBuilder summary = new StringBuilder(String.format(Locale.ROOT, "%-24s %9s %9s %8s %9s %9s %9s %9s%n",
+                "Endpoint", "Requests", "Per sec", "Errors", "p50 ms", "p99 ms", "p99.9 ms", "Max ms"));
+        List<EndpointStatistics> rows = new ArrayList<>(endpoints);
+        rows.add(total);
+        for (EndpointStatistics statistics : rows) {
+            Histogram latencies = statistics.getLatencies();
+            summary.append(String.format(Locale.ROOT, "%-24s %9d %9.1f %8d %9.2f %9.2f %9.2f %9.2f%n",
+                    statistics.getEndpoint(), statistics.getCount(), getThroughput(statistics), statistics.getErrors(),
+                    millis(latencies.getValueAtPercentile(50)), millis(latencies.getValueAtPercentile(99)),
+                    millis(latencies.getValueAtPercentile(99.9)), millis(latencies.getMaxValue())));
+        }
+        return summary.toString();
+    }
+
+    private static String percentileDistribution(Histogram latencies) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (PrintStream out = new PrintStream(bytes, true, StandardCharsets.UTF_8)) {
+            latencies.outputPercentileDistribution(out, 5, 1000.0);
+        }
+        return bytes.toString(StandardCharsets.UTF_8);
+    }
+
+    private static String percentileName(double percentile) {
+        return percentile == Math.rint(percentile)
+                ? String.format(Locale.ROOT, "p%d", (long) percentile)
+                : String.format(Locale.ROOT, "p%s", percentile);
+    }
+
+    private static double millis(long micros) {
+        return micros / 1000.0;
+    }
+
+    private static String escape(String text) {
+        return text.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;").replace("\"", "&quot;");
+    }
+}
@@ -0,0 +1,73 @@
+package dk.dbc.weekresolver.loadtest;
+
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * A request from a request log, replayed as is against the service
+ */
+public class RecordedRequest {
+    private final String method;
+    private final String path;
+    private final Map<String, String> headers;
+    private final String body;
+
+    /**
+     * @param method HTTP method
+     * @param path Path and query, starting with a slash, for example /api/v1/current/BKM
+     * @param headers Headers to send, for example Accept or Content-Type
+     * @param body Body, or null
+     */
+    public RecordedRequest(String method, String path, Map<String, String> headers, String body) {
+        this.method = method;
+        this.path = path;
+        this.headers = headers;
+        this.body = body;
+    }
+
+    public String getMethod() {
+        return method;
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    public Map<String, String> getHeaders() {
+        return headers;
+    }
+
+    public String getBody() {
+        return body;
+    }
+
+    /**
+     * Name of the endpoint, used for grouping the statistics: the method and the path up to the parameters, for
+     * example "GET v1/current". The format is kept for year plans and exports, since they differ a lot
+     * @return The endpoint
+     */
+    public String getEndpoint() {
+        String endpoint = path;
+        int query = endpoint.indexOf('?');
+        if (query >= 0) {
+            endpoint = endpoint.substring(0, query);
+        }
+        if (endpoint.startsWith("/api/")) {
+            endpoint = endpoint.substring("/api/".length());
+        } else if (endpoint.startsWith("/")) {
+            endpoint = endpoint.substring(1);
+        }
+
+        String[] segments = endpoint.split("/");
+        int keep = Math.min(segments.length, 2);
+        if (keep == 2 && segments.length > 2 && (segments[1].equals("year") || segments[1].equals("export"))) {
+            keep = 3;
+        }
+        return method + " " + String.join("/", Arrays.copyOf(segments, keep));
+    }
+
+    @Override
+    public String toString() {
+        return method + " " + path;
+    }
+}
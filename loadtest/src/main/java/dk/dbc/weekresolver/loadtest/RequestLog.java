@@ -0,0 +1,120 @@
+package dk.dbc.weekresolver.loadtest;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import jakarta.json.Json;
+import jakarta.json.JsonException;
+import jakarta.json.JsonObject;
+import jakarta.json.JsonReader;
+import jakarta.json.JsonString;
+import jakarta.json.JsonValue;
+
+/**
+ * Reads the requests to replay, from a request log with a JSON object per line, or from an access log.
+ * <p>
+ * A line of a request log has the path, and optionally the method (GET), headers and the body. A body that is not a
+ * string is sent as JSON:
+ * </p>
+ * <pre>
+ *   {"path": "/api/v1/current/BKM"}
+ *   {"path": "/api/v1/date/BKM/2025-01-01", "headers": {"Accept": "application/x-weekresolver"}}
+ *   {"method": "POST", "path": "/api/v1/fulfilled", "body": {"weekCodes": ["BKM202612", "DPF202614"]}}
+ * </pre>
+ * <p>
+ * An access log is in the common or combined log format. Only GET and HEAD requests are replayed, since the log does
+ * not have the bodies.
+ * </p>
+ */
+public final class RequestLog {
+    public enum Format {
+        JSONL, ACCESS
+    }
+
+    private static final Pattern ACCESS_LOG_REQUEST = Pattern.compile("\"([A-Z]+) (\\S+) HTTP/[0-9.]+\"");
+
+    private RequestLog() {
+    }
+
+    /**
+     * @param path The log file
+     * @param format Format of the log
+     * @return The requests, in the order of the log
+     * @throws IOException if the file can not be read
+     * @throws IllegalArgumentException if a line is not valid, or the log has no requests
+     */
+    public static List<RecordedRequest> read(Path path, Format format) throws IOException, IllegalArgumentException {
+        try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            List<RecordedRequest> requests = format == Format.JSONL ? readJsonLines(reader) : readAccessLog(reader);
+            if (requests.isEmpty()) {
+                throw new IllegalArgumentException(String.format("%s has no requests to replay", path));
+            }
+            return requests;
+        }
+    }
+
+    static List<RecordedRequest> readJsonLines(BufferedReader reader) throws IOException, IllegalArgumentException {
+        List<RecordedRequest> requests = new ArrayList<>();
+        String line;
+        int lineNumber = 0;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank() || line.startsWith("#")) {
+                continue;
+            }
+            try (JsonReader jsonReader = Json.createReader(new StringReader(line))) {
+                JsonObject object = jsonReader.readObject();
+                String path = object.getString("path", null);
+                if (path == null || !path.startsWith("/")) {
+                    throw new IllegalArgumentException(String.format("Line %d has no path starting with /", lineNumber));
+                }
+                String method = object.getString("method", "GET").toUpperCase(Locale.ROOT);
+                Map<String, String> headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+                JsonObject headerObject = object.getJsonObject("headers");
+                if (headerObject != null) {
+                    headerObject.forEach((name, header) -> headers.put(name, ((JsonString) header).getString()));
+                }
+                String body = null;
+                JsonValue value = object.get("body");
+                if (value instanceof JsonString) {
+                    body = ((JsonString) value).getString();
+                } else if (value != null && value != JsonValue.NULL) {
+                    body = value.toString();
+                    headers.putIfAbsent("Content-Type", "application/json");
+                }
+                requests.add(new RecordedRequest(method, path, headers, body));
+            } catch (JsonException | ClassCastException exception) {
+                throw new IllegalArgumentException(String.format("Line %d is not a JSON object with a request: %s",
+                        lineNumber, exception.getMessage()), exception);
+            }
+        }
+        return requests;
+    }
+
+    static List<RecordedRequest> readAccessLog(BufferedReader reader) throws IOException {
+        List<RecordedRequest> requests = new ArrayList<>();
+        String line;
+        while ((line = reader.readLine()) != null) {
+            Matcher matcher = ACCESS_LOG_REQUEST.matcher(line);
+            if (!matcher.find()) {
+                continue;
+            }
+            String method = matcher.group(1);
+            if (method.equals("GET") || method.equals("HEAD")) {
+                requests.add(new RecordedRequest(method, matcher.group(2), Map.of(), null));
+            }
+        }
+        return requests;
+    }
+}
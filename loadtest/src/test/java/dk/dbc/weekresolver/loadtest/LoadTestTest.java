@@ -0,0 +1,104 @@
+package dk.dbc.weekresolver.loadtest;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+class LoadTestTest {
+    private HttpServer server;
+
+    @BeforeEach
+    void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/api/v1/current", exchange -> {
+            byte[] body = "{\"weekCode\":\"BKM202642\"}".getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        server.createContext("/api/v1/fulfilled", exchange -> {
+            exchange.getRequestBody().readAllBytes();
+            int status = exchange.getRequestHeaders().getFirst("Content-Type").equals("application/json") ? 200 : 415;
+            exchange.sendResponseHeaders(status, -1);
+            exchange.close();
+        });
+        server.createContext("/api/v1/year", exchange -> {
+            exchange.sendResponseHeaders(500, -1);
+            exchange.close();
+        });
+        server.setExecutor(Executors.newFixedThreadPool(4));
+        server.start();
+    }
+
+    @AfterEach
+    void stopServer() {
+        server.stop(0);
+    }
+
+    @Test
+    void testRun() throws InterruptedException, IOException {
+        List<RecordedRequest> log = List.of(
+                new RecordedRequest("GET", "/api/v1/current/BKM", Map.of(), null),
+                new RecordedRequest("GET", "/api/v1/current/DPF", Map.of(), null),
+                new RecordedRequest("POST", "/api/v1/fulfilled", Map.of("Content-Type", "application/json"), "{}"),
+                new RecordedRequest("GET", "/api/v1/year/HTML/BKM/2026", Map.of(), null));
+
+        LoadTestReport report = new LoadTest()
+                .withUrl(URI.create("http://localhost:" + server.getAddress().getPort()))
+                .withRate(400)
+                .withConcurrency(4)
+                .withRequests(40)
+                .withWarmup(8)
+                .run(log);
+
+        assertThat(report.getEndpoints().size(), is(3));
+        assertThat(report.getEndpoints().get(0).getEndpoint(), is("GET v1/current"));
+        assertThat(report.getEndpoints().get(0).getCount(), is(20L));
+        assertThat(report.getEndpoints().get(0).getStatuses(), is(Map.of("200", 20L)));
+        assertThat(report.getEndpoints().get(1).getEndpoint(), is("GET v1/year/HTML"));
+        assertThat(report.getEndpoints().get(1).getErrors(), is(10L));
+        assertThat(report.getEndpoints().get(2).getStatuses(), is(Map.of("200", 10L)));
+        assertThat(report.getTotal().getCount(), is(40L));
+        assertThat(report.getTotal().getErrors(), is(10L));
+        assertThat(LoadTestReport.getErrorRate(report.getTotal()), is(0.25));
+
+        StringWriter json = new StringWriter();
+        report.writeJson(json);
+        assertThat(json.toString(), containsString("\"endpoint\": \"GET v1/year/HTML\""));
+        assertThat(json.toString(), containsString("\"p99.9\""));
+
+        StringWriter html = new StringWriter();
+        report.writeHtml(html);
+        assertThat(html.toString(), containsString("<td>GET v1/current</td>"));
+        assertThat(html.toString(), containsString("<th>Total</th>"));
+    }
+
+    @Test
+    void testFailures() throws InterruptedException {
+        int port = server.getAddress().getPort();
+        server.stop(0);
+
+        LoadTestReport report = new LoadTest()
+                .withUrl(URI.create("http://localhost:" + port))
+                .withConcurrency(2)
+                .withRequests(4)
+                .run(List.of(new RecordedRequest("GET", "/api/v1/current/BKM", Map.of(), null)));
+
+        assertThat(report.getTotal().getErrors(), is(4L));
+        assertThat(report.getTotal().getStatuses(), is(Map.of("failed", 4L)));
+    }
+}
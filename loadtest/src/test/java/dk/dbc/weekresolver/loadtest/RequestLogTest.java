@@ -0,0 +1,73 @@
+package dk.dbc.weekresolver.loadtest;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class RequestLogTest {
+
+    @Test
+    void testReadJsonLines() throws IOException {
+        List<RecordedRequest> requests = RequestLog.readJsonLines(reader(
+                "# comment",
+                "{\"path\": \"/api/v1/current/BKM\"}",
+                "",
+                "{\"path\": \"/api/v1/date/BKM/2025-01-01\", \"headers\": {\"Accept\": \"application/x-weekresolver\"}}",
+                "{\"method\": \"post\", \"path\": \"/api/v1/fulfilled\", \"body\": {\"weekCodes\": [\"BKM202612\"]}}",
+                "{\"method\": \"POST\", \"path\": \"/api/v1/date\", \"headers\": {\"content-type\": \"application/x-ndjson\"}, \"body\": {\"catalogueCode\": \"BKM\"}}"));
+
+        assertThat(requests.size(), is(4));
+        assertThat(requests.get(0).getMethod(), is("GET"));
+        assertThat(requests.get(0).getHeaders().isEmpty(), is(true));
+        assertThat(requests.get(0).getBody(), is((String) null));
+        assertThat(requests.get(1).getHeaders(), is(Map.of("Accept", "application/x-weekresolver")));
+        assertThat(requests.get(2).getMethod(), is("POST"));
+        assertThat(requests.get(2).getBody(), is("{\"weekCodes\":[\"BKM202612\"]}"));
+        assertThat(requests.get(2).getHeaders().get("Content-Type"), is("application/json"));
+        assertThat(requests.get(3).getHeaders().size(), is(1));
+        assertThat(requests.get(3).getHeaders().get("Content-Type"), is("application/x-ndjson"));
+
+        assertThrows(IllegalArgumentException.class, () -> RequestLog.readJsonLines(reader("{\"path\": \"api/v1/codes\"}")));
+        assertThrows(IllegalArgumentException.class, () -> RequestLog.readJsonLines(reader("/api/v1/codes")));
+        assertThrows(IllegalArgumentException.class, () -> RequestLog.readJsonLines(reader("{\"path\": 1}")));
+    }
+
+    @Test
+    void testReadAccessLog() throws IOException {
+        List<RecordedRequest> requests = RequestLog.readAccessLog(reader(
+                "10.0.0.1 - - [16/Oct/2026:10:00:00 +0200] \"GET /api/v1/current/BKM HTTP/1.1\" 200 120",
+                "10.0.0.1 - - [16/Oct/2026:10:00:01 +0200] \"POST /api/v1/fulfilled HTTP/1.1\" 200 80",
+                "not a request",
+                "10.0.0.2 - - [16/Oct/2026:10:00:02 +0200] \"GET /api/v1/year/HTML/DPF/2026 HTTP/1.1\" 200 9000 \"-\" \"curl/8.0\""));
+
+        assertThat(requests.size(), is(2));
+        assertThat(requests.get(0).toString(), is("GET /api/v1/current/BKM"));
+        assertThat(requests.get(1).toString(), is("GET /api/v1/year/HTML/DPF/2026"));
+    }
+
+    @Test
+    void testEndpoint() {
+        assertThat(get("/api/v1/current/BKM").getEndpoint(), is("GET v1/current"));
+        assertThat(get("/api/v1/date/BKM/2025-01-01?explain=true").getEndpoint(), is("GET v1/date"));
+        assertThat(get("/api/v1/year/HTML/BKM/2026").getEndpoint(), is("GET v1/year/HTML"));
+        assertThat(get("/api/v1/export/CSV/2025/2026").getEndpoint(), is("GET v1/export/CSV"));
+        assertThat(get("/api/v1/codes").getEndpoint(), is("GET v1/codes"));
+        assertThat(new RecordedRequest("POST", "/api/v1/fulfilled", Map.of(), "{}").getEndpoint(), is("POST v1/fulfilled"));
+    }
+
+    private static RecordedRequest get(String path) {
+        return new RecordedRequest("GET", path, Map.of(), null);
+    }
+
+    private static BufferedReader reader(String... lines) {
+        return new BufferedReader(new StringReader(String.join("\n", lines)));
+    }
+}
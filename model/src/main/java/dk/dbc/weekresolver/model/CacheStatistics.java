@@ -0,0 +1,109 @@
+package dk.dbc.weekresolver.model;
+
+/**
+ * Size and hit/miss counts of one of the caches in the service
+ */
+public class CacheStatistics implements Result {
+
+    private String name;
+
+    private Integer size;
+
+    private Integer maxSize;
+
+    private Long hits;
+
+    private Long misses;
+
+    private Long evictions;
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public CacheStatistics withName(String name) {
+        this.name = name;
+        return this;
+    }
+
+    public Integer getSize() {
+        return size;
+    }
+
+    public void setSize(Integer size) {
+        this.size = size;
+    }
+
+    public CacheStatistics withSize(Integer size) {
+        this.size = size;
+        return this;
+    }
+
+    public Integer getMaxSize() {
+        return maxSize;
+    }
+
+    public void setMaxSize(Integer maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    public CacheStatistics withMaxSize(Integer maxSize) {
+        this.maxSize = maxSize;
+        return this;
+    }
+
+    public Long getHits() {
+        return hits;
+    }
+
+    public void setHits(Long hits) {
+        this.hits = hits;
+    }
+
+    public CacheStatistics withHits(Long hits) {
+        this.hits = hits;
+        return this;
+    }
+
+    public Long getMisses() {
+        return misses;
+    }
+
+    public void setMisses(Long misses) {
+        this.misses = misses;
+    }
+
+    public CacheStatistics withMisses(Long misses) {
+        this.misses = misses;
+        return this;
+    }
+
+    public Long getEvictions() {
+        return evictions;
+    }
+
+    public void setEvictions(Long evictions) {
+        this.evictions = evictions;
+    }
+
+    public CacheStatistics withEvictions(Long evictions) {
+        this.evictions = evictions;
+        return this;
+    }
+
+    @Override
+    public String toString() {
+        return "CacheStatistics{" +
+                "name='" + name + '\'' +
+                ", size=" + size +
+                ", maxSize=" + maxSize +
+                ", hits=" + hits +
+                ", misses=" + misses +
+                ", evictions=" + evictions +
+                '}';
+    }
+}
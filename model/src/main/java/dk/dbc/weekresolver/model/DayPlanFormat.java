@@ -0,0 +1,7 @@
+package dk.dbc.weekresolver.model;
+
+public enum DayPlanFormat {
+    JSON,
+    NDJSON,
+    CSV
+}
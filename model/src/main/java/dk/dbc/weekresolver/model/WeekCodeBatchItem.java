@@ -0,0 +1,81 @@
+package dk.dbc.weekresolver.model;
+
+/**
+ * An item of a batch of dates to resolve, and its weekcode or error
+ */
+public class WeekCodeBatchItem {
+
+    // Cataloguecode, as given
+    private String catalogueCode;
+
+    // The date (yyyy-MM-dd), as given
+    private String date;
+
+    // The weekcode, if the item could be resolved
+    private String weekCode;
+
+    // Why the item could not be resolved
+    private String error;
+
+    public String getCatalogueCode() {
+        return catalogueCode;
+    }
+
+    public void setCatalogueCode(String catalogueCode) {
+        this.catalogueCode = catalogueCode;
+    }
+
+    public WeekCodeBatchItem withCatalogueCode(String catalogueCode) {
+        this.catalogueCode = catalogueCode;
+        return this;
+    }
+
+    public String getDate() {
+        return date;
+    }
+
+    public void setDate(String date) {
+        this.date = date;
+    }
+
+    public WeekCodeBatchItem withDate(String date) {
+        this.date = date;
+        return this;
+    }
+
+    public String getWeekCode() {
+        return weekCode;
+    }
+
+    public void setWeekCode(String weekCode) {
+        this.weekCode = weekCode;
+    }
+
+    public WeekCodeBatchItem withWeekCode(String weekCode) {
+        this.weekCode = weekCode;
+        return this;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+
+    public WeekCodeBatchItem withError(String error) {
+        this.error = error;
+        return this;
+    }
+
+    @Override
+    public String toString() {
+        return "WeekCodeBatchItem{" +
+                "catalogueCode='" + catalogueCode + '\'' +
+                ", date='" + date + '\'' +
+                ", weekCode='" + weekCode + '\'' +
+                ", error='" + error + '\'' +
+                '}';
+    }
+}
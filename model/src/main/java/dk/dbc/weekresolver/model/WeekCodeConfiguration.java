@@ -1,7 +1,15 @@
 package dk.dbc.weekresolver.model;
 
 import java.time.DayOfWeek;
+import java.util.Objects;
 
+/**
+ * Rules for calculating the weekcode of a cataloguecode.
+ * <p>
+ * Configurations have value semantics: two configurations with the same rules are equal, regardless of
+ * the cataloguecodes using them. Configurations used as keys (for example in a registry) must not be changed afterwards.
+ * </p>
+ */
 public class WeekCodeConfiguration {
     private String fixedWeekCode;
     private int addWeeks;
@@ -72,4 +80,37 @@ public class WeekCodeConfiguration {
     public String getFixedWeekCode() {
         return this.fixedWeekCode;
     }
+
+    /**
+     * Short text that identifies the rules of this configuration. Equal configurations have the same fingerprint
+     * @return The fingerprint
+     */
+    public String fingerprint() {
+        return "fixed:" + (fixedWeekCode == null ? "-" : fixedWeekCode)
+                + ";add:" + addWeeks
+                + ";shift:" + (shiftDay == null ? "-" : shiftDay.name())
+                + ";endOfYear:" + allowEndOfYear
+                + ";ignoreClosingDays:" + ignoreClosingDays
+                + ";month:" + useMonthNumber;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        WeekCodeConfiguration that = (WeekCodeConfiguration) o;
+        return addWeeks == that.addWeeks && allowEndOfYear == that.allowEndOfYear
+                && ignoreClosingDays == that.ignoreClosingDays && useMonthNumber == that.useMonthNumber
+                && Objects.equals(fixedWeekCode, that.fixedWeekCode) && shiftDay == that.shiftDay;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(fixedWeekCode, addWeeks, shiftDay, allowEndOfYear, ignoreClosingDays, useMonthNumber);
+    }
+
+    @Override
+    public String toString() {
+        return "WeekCodeConfiguration{" + fingerprint() + "}";
+    }
 }
@@ -0,0 +1,109 @@
+package dk.dbc.weekresolver.model;
+
+import java.time.LocalDate;
+
+/**
+ * A single decision that moved the date when calculating a weekcode (returned when asking for an explanation)
+ */
+public class WeekCodeDecision {
+
+    public enum Rule {
+        SHIFT_DAY("On or after the (adjusted) shiftday, moved to monday next week"),
+        NO_SHIFT_DAY("No shiftday in the Easter week, moved to monday next week"),
+        CLOSING_DAY("Closing day, moved to the next open day"),
+        EASTER_WEEK("Easter week, moved to the first open day after the Easter week"),
+        CLOSED_WEEK("The next week is closed, moved to monday in the week before the next open week"),
+        ADD_WEEKS("Added the weeks of the configuration"),
+        SHORT_WEEK("The previous week has too few working days, moved to monday next week"),
+        WEEK_ONE("Week 01 is not allowed, moved to the start of the next week"),
+        CURRENT_SHIFT_DAY("On or after the shiftday, the current weekcode is the weekcode of next week");
+
+        private final String description;
+
+        Rule(String description) {
+            this.description = description;
+        }
+
+        public String getDescription() {
+            return description;
+        }
+    }
+
+    private Rule rule;
+
+    private String description;
+
+    private LocalDate from;
+
+    private LocalDate to;
+
+    public WeekCodeDecision() {}
+
+    public WeekCodeDecision(Rule rule, LocalDate from, LocalDate to) {
+        this.rule = rule;
+        this.description = rule.getDescription();
+        this.from = from;
+        this.to = to;
+    }
+
+    public Rule getRule() {
+        return rule;
+    }
+
+    public void setRule(Rule rule) {
+        this.rule = rule;
+    }
+
+    public WeekCodeDecision withRule(Rule rule) {
+        this.rule = rule;
+        return this;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public void setDescription(String description) {
+        this.description = description;
+    }
+
+    public WeekCodeDecision withDescription(String description) {
+        this.description = description;
+        return this;
+    }
+
+    public LocalDate getFrom() {
+        return from;
+    }
+
+    public void setFrom(LocalDate from) {
+        this.from = from;
+    }
+
+    public WeekCodeDecision withFrom(LocalDate from) {
+        this.from = from;
+        return this;
+    }
+
+    public LocalDate getTo() {
+        return to;
+    }
+
+    public void setTo(LocalDate to) {
+        this.to = to;
+    }
+
+    public WeekCodeDecision withTo(LocalDate to) {
+        this.to = to;
+        return this;
+    }
+
+    @Override
+    public String toString() {
+        return "WeekCodeDecision{" +
+                "rule=" + rule +
+                ", from=" + from +
+                ", to=" + to +
+                '}';
+    }
+}
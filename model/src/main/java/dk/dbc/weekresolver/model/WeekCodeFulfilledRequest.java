@@ -0,0 +1,48 @@
+package dk.dbc.weekresolver.model;
+
+import java.util.List;
+
+/**
+ * Request to check if a number of weekcodes have been fulfilled
+ */
+public class WeekCodeFulfilledRequest {
+
+    private List<String> weekCodes;
+
+    // The date (yyyy-MM-dd) to check as of, today if not given
+    private String date;
+
+    public List<String> getWeekCodes() {
+        return weekCodes;
+    }
+
+    public void setWeekCodes(List<String> weekCodes) {
+        this.weekCodes = weekCodes;
+    }
+
+    public WeekCodeFulfilledRequest withWeekCodes(List<String> weekCodes) {
+        this.weekCodes = weekCodes;
+        return this;
+    }
+
+    public String getDate() {
+        return date;
+    }
+
+    public void setDate(String date) {
+        this.date = date;
+    }
+
+    public WeekCodeFulfilledRequest withDate(String date) {
+        this.date = date;
+        return this;
+    }
+
+    @Override
+    public String toString() {
+        return "WeekCodeFulfilledRequest{" +
+                "weekCodes=" + (weekCodes == null ? null : weekCodes.size() + " weekcodes") +
+                ", date='" + date + '\'' +
+                '}';
+    }
+}
@@ -0,0 +1,99 @@
+package dk.dbc.weekresolver.model;
+
+import java.time.LocalDate;
+
+/**
+ * The dates that give a weekcode, and the description of the week (answer to the reverse lookup of a weekcode)
+ */
+public class WeekCodeIntervalResult implements Result {
+
+    // Cataloguecode, always in upper case
+    private String catalogueCode;
+
+    // The weekcode, always in upper case
+    private String weekCode;
+
+    // First date that gives the weekcode
+    private LocalDate from;
+
+    // Last date that gives the weekcode
+    private LocalDate to;
+
+    private WeekDescription description;
+
+    public String getCatalogueCode() {
+        return catalogueCode;
+    }
+
+    public void setCatalogueCode(String catalogueCode) {
+        this.catalogueCode = catalogueCode;
+    }
+
+    public WeekCodeIntervalResult withCatalogueCode(String catalogueCode) {
+        this.catalogueCode = catalogueCode;
+        return this;
+    }
+
+    public String getWeekCode() {
+        return weekCode;
+    }
+
+    public void setWeekCode(String weekCode) {
+        this.weekCode = weekCode;
+    }
+
+    public WeekCodeIntervalResult withWeekCode(String weekCode) {
+        this.weekCode = weekCode;
+        return this;
+    }
+
+    public LocalDate getFrom() {
+        return from;
+    }
+
+    public void setFrom(LocalDate from) {
+        this.from = from;
+    }
+
+    public WeekCodeIntervalResult withFrom(LocalDate from) {
+        this.from = from;
+        return this;
+    }
+
+    public LocalDate getTo() {
+        return to;
+    }
+
+    public void setTo(LocalDate to) {
+        this.to = to;
+    }
+
+    public WeekCodeIntervalResult withTo(LocalDate to) {
+        this.to = to;
+        return this;
+    }
+
+    public WeekDescription getDescription() {
+        return description;
+    }
+
+    public void setDescription(WeekDescription description) {
+        this.description = description;
+    }
+
+    public WeekCodeIntervalResult withDescription(WeekDescription description) {
+        this.description = description;
+        return this;
+    }
+
+    @Override
+    public String toString() {
+        return "WeekCodeIntervalResult{" +
+                "catalogueCode='" + catalogueCode + '\'' +
+                ", weekCode='" + weekCode + '\'' +
+                ", from=" + from +
+                ", to=" + to +
+                ", description=" + description +
+                '}';
+    }
+}
@@ -40,6 +40,27 @@ public class WeekDescription {
 
     private String weekNumber;
 
+    public WeekDescription() {}
+
+    /**
+     * Create a copy of a description
+     * @param other The description to copy
+     */
+    public WeekDescription(WeekDescription other) {
+        this.weekCodeShort = other.weekCodeShort;
+        this.weekCodeFirst = other.weekCodeFirst;
+        this.weekCodeLast = other.weekCodeLast;
+        this.shiftDay = other.shiftDay;
+        this.bookCart = other.bookCart;
+        this.proof = other.proof;
+        this.bkm = other.bkm;
+        this.proofFrom = other.proofFrom;
+        this.proofTo = other.proofTo;
+        this.publish = other.publish;
+        this.noProduction = other.noProduction;
+        this.weekNumber = other.weekNumber;
+    }
+
     public String getWeekCodeShort() {
         return weekCodeShort;
     }
@@ -0,0 +1,111 @@
+package dk.dbc.weekresolver.model;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.Year;
+import java.time.temporal.WeekFields;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Week numbers and week based years for a locale, calculated as plain integers.
+ * <p>
+ * Gives the same values as formatting a date with the patterns "w" and "YYYY" for the locale
+ * (same first day of week and minimal number of days in the first week as {@link WeekFields#of(Locale)}),
+ * but without creating formatters and parsing strings.
+ * </p>
+ */
+public final class WeekNumbering {
+    private static final ConcurrentHashMap<Locale, WeekNumbering> INSTANCES = new ConcurrentHashMap<>();
+
+    private final int firstDayOfWeek;
+    private final int minimalDaysInFirstWeek;
+
+    private WeekNumbering(WeekFields weekFields) {
+        this.firstDayOfWeek = weekFields.getFirstDayOfWeek().getValue();
+        this.minimalDaysInFirstWeek = weekFields.getMinimalDaysInFirstWeek();
+    }
+
+    /**
+     * Get the week numbering for a locale
+     * @param locale The locale
+     * @return Shared week numbering for the locale
+     */
+    public static WeekNumbering of(Locale locale) {
+        return INSTANCES.computeIfAbsent(locale, l -> new WeekNumbering(WeekFields.of(l)));
+    }
+
+    /**
+     * @param date The date
+     * @return The week number of the date (same as pattern "w")
+     */
+    public int weekOfWeekBasedYear(LocalDate date) {
+        int dayOfYear = date.getDayOfYear();
+        int dayOfWeek = localizedDayOfWeek(date.getDayOfWeek());
+        int week = weekOfYear(dayOfYear, dayOfWeek, date.lengthOfYear());
+        if (week == 0) {
+            // The date belongs to the last week of the previous year, so use december 31st. of that year
+            int previousYearLength = Year.isLeap(date.getYear() - 1L) ? 366 : 365;
+            int previousDayOfWeek = Math.floorMod(dayOfWeek - 1 - dayOfYear, 7) + 1;
+            return weekOfYear(previousYearLength, previousDayOfWeek, previousYearLength);
+        }
+        return week;
+    }
+
+    /**
+     * @param date The date
+     * @return The week based year of the date (same as pattern "YYYY")
+     */
+    public int weekBasedYear(LocalDate date) {
+        int dayOfYear = date.getDayOfYear();
+        int dayOfWeek = localizedDayOfWeek(date.getDayOfWeek());
+        int offset = startOfWeekOffset(dayOfYear, dayOfWeek);
+        int week = computeWeek(offset, dayOfYear);
+        if (week == 0) {
+            return date.getYear() - 1;
+        }
+        if (week >= computeWeek(offset, date.lengthOfYear() + minimalDaysInFirstWeek)) {
+            return date.getYear() + 1;
+        }
+        return date.getYear();
+    }
+
+    /**
+     * @param date The date
+     * @return The first day of the week following the week of the date
+     */
+    public LocalDate startOfNextWeek(LocalDate date) {
+        return date.plusDays(8 - localizedDayOfWeek(date.getDayOfWeek()));
+    }
+
+    // Week of year where the last days of the year may belong to week 1 of the next year,
+    // and the first days of the year may belong to week 0
+    private int weekOfYear(int dayOfYear, int dayOfWeek, int yearLength) {
+        int offset = startOfWeekOffset(dayOfYear, dayOfWeek);
+        int week = computeWeek(offset, dayOfYear);
+        if (week > 50) {
+            int newYearWeek = computeWeek(offset, yearLength + minimalDaysInFirstWeek);
+            if (week >= newYearWeek) {
+                week = week - newYearWeek + 1;
+            }
+        }
+        return week;
+    }
+
+    private int localizedDayOfWeek(DayOfWeek dayOfWeek) {
+        return Math.floorMod(dayOfWeek.getValue() - firstDayOfWeek, 7) + 1;
+    }
+
+    // Offset of the first day of week 1, relative to the first day of the year
+    private int startOfWeekOffset(int day, int dayOfWeek) {
+        int weekStart = Math.floorMod(day - dayOfWeek, 7);
+        if (weekStart + 1 > minimalDaysInFirstWeek) {
+            return 7 - weekStart;
+        }
+        return -weekStart;
+    }
+
+    private static int computeWeek(int offset, int day) {
+        return (7 + offset + (day - 1)) / 7;
+    }
+}
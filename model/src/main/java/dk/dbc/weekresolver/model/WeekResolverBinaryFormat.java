@@ -0,0 +1,439 @@
+package dk.dbc.weekresolver.model;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compact binary encoding of results, year plans and batches, for callers that resolve many weekcodes.
+ * <p>
+ * Big-endian, as written by {@link DataOutputStream}. Every message starts with a 4 byte magic number (including
+ * the version of the format) and a byte with the type of the message. Dates are days since 1970-01-01 in the time
+ * zone of the service, which is part of the message, so decoded dates are the same instants as in JSON. A weekcode
+ * is the cataloguecode followed by the year (int) and the week or month (byte).
+ * </p>
+ * <ul>
+ *     <li>A result is the time zone, the cataloguecode, the weekcode, the week number, the year, the date,
+ *     the description and the decisions</li>
+ *     <li>A year plan is the year, a table of the distinct contents of the columns, and the rows, each column
+ *     being an index into the table and a byte with the flags</li>
+ *     <li>A batch is a record per item, in the same order as the items, and an end record. A weekcode record
+ *     refers to the cataloguecode by an id, which is given by the order in which the cataloguecodes first
+ *     occur. An error record is an index into {@link #BATCH_ERRORS}</li>
+ * </ul>
+ */
+public final class WeekResolverBinaryFormat {
+    public static final String MEDIA_TYPE = "application/x-weekresolver";
+
+    // Errors of batch items, the index is used in the binary format, so only add to the end
+    public static final String ERROR_MISSING = "Missing catalogueCode or date";
+    public static final String ERROR_INVALID_JSON = "Invalid JSON";
+    public static final String ERROR_NOT_OBJECT = "Item is not an object";
+    public static final String ERROR_UNSUPPORTED = "Unsupported cataloguecode";
+    public static final String ERROR_UNPARSEABLE_DATE = "Unable to parse the date";
+    public static final String ERROR_UNRESOLVABLE_DATE = "Unable to resolve the date";
+    public static final List<String> BATCH_ERRORS = List.of(ERROR_MISSING, ERROR_INVALID_JSON, ERROR_NOT_OBJECT,
+            ERROR_UNSUPPORTED, ERROR_UNPARSEABLE_DATE, ERROR_UNRESOLVABLE_DATE);
+
+    // "WKR" and version 1
+    private static final int MAGIC = 0x574B5201;
+
+    private static final byte TYPE_RESULT = 1;
+    private static final byte TYPE_YEAR_PLAN = 2;
+    private static final byte TYPE_BATCH = 3;
+
+    private static final byte RECORD_NEW_CODE = 1;
+    private static final byte RECORD_CODE = 2;
+    private static final byte RECORD_ERROR = 3;
+    private static final byte RECORD_END = 4;
+
+    private static final int NO_DATE = Integer.MIN_VALUE;
+
+    private WeekResolverBinaryFormat() {}
+
+    /**
+     * Check if the binary format is preferred by the caller, that is if it is listed in the Accept header
+     * with a quality no lower than any other media type
+     * @param accept The Accept header, may be null
+     * @return True if the binary format should be used
+     */
+    public static boolean isPreferred(String accept) {
+        if (accept == null) {
+            return false;
+        }
+        double binary = 0;
+        double other = 0;
+        for (String mediaType : accept.split(",")) {
+            String[] parameters = mediaType.split(";");
+            double quality = 1;
+            for (int i = 1; i < parameters.length; i++) {
+                String parameter = parameters[i].trim();
+                if (parameter.startsWith("q=")) {
+                    try {
+                        quality = Double.parseDouble(parameter.substring(2));
+                    } catch (NumberFormatException numberFormatException) {
+                        quality = 0;
+                    }
+                }
+            }
+            if (parameters[0].trim().equalsIgnoreCase(MEDIA_TYPE)) {
+                binary = Math.max(binary, quality);
+            } else {
+                other = Math.max(other, quality);
+            }
+        }
+        return binary > 0 && binary >= other;
+    }
+
+    /**
+     * @param result The result
+     * @param zoneId Time zone of the dates in the result
+     * @return The encoded result
+     */
+    public static byte[] encode(WeekResolverResult result, ZoneId zoneId) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+        try {
+            DataOutputStream out = new DataOutputStream(bytes);
+            writeHeader(out, TYPE_RESULT);
+            out.writeUTF(zoneId.getId());
+            out.writeUTF(result.getCatalogueCode());
+            writeWeekCode(out, result.getWeekCode());
+            out.writeByte(result.getWeekNumber());
+            out.writeShort(result.getYear());
+            writeDate(out, result.getDate(), zoneId);
+
+            WeekDescription description = result.getDescription();
+            out.writeBoolean(description != null);
+            if (description != null) {
+                writeString(out, description.getWeekCodeShort());
+                writeDate(out, description.getWeekCodeFirst(), zoneId);
+                writeDate(out, description.getWeekCodeLast(), zoneId);
+                writeDate(out, description.getShiftDay(), zoneId);
+                writeDate(out, description.getBookCart(), zoneId);
+                writeDate(out, description.getProof(), zoneId);
+                writeDate(out, description.getBkm(), zoneId);
+                writeDate(out, description.getProofFrom(), zoneId);
+                writeDate(out, description.getProofTo(), zoneId);
+                writeDate(out, description.getPublish(), zoneId);
+                writeBoolean(out, description.getNoProduction());
+                writeString(out, description.getWeekNumber());
+            }
+
+            List<WeekCodeDecision> decisions = result.getDecisions();
+            out.writeShort(decisions == null ? -1 : decisions.size());
+            if (decisions != null) {
+                for (WeekCodeDecision decision : decisions) {
+                    writeString(out, decision.getRule() == null ? null : decision.getRule().name());
+                    writeString(out, decision.getDescription());
+                    writeLocalDate(out, decision.getFrom());
+                    writeLocalDate(out, decision.getTo());
+                }
+            }
+            out.flush();
+        } catch (IOException ioException) {
+            throw new UncheckedIOException(ioException);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * @param input The encoded result
+     * @return The result
+     * @throws IOException if the input is not an encoded result
+     */
+    public static WeekResolverResult decodeResult(InputStream input) throws IOException {
+        DataInputStream in = new DataInputStream(input);
+        readHeader(in, TYPE_RESULT);
+        ZoneId zoneId = ZoneId.of(in.readUTF());
+        WeekResolverResult result = new WeekResolverResult();
+        result.setCatalogueCode(in.readUTF());
+        result.setWeekCode(readWeekCode(in, result.getCatalogueCode()));
+        result.setWeekNumber(in.readByte());
+        result.setYear(in.readShort());
+        result.setDate(readDate(in, zoneId));
+
+        if (in.readBoolean()) {
+            result.setDescription(new WeekDescription()
+                    .withWeekCodeShort(readString(in))
+                    .withWeekCodeFirst(readDate(in, zoneId))
+                    .withWeekCodeLast(readDate(in, zoneId))
+                    .withShiftDay(readDate(in, zoneId))
+                    .withBookCart(readDate(in, zoneId))
+                    .withProof(readDate(in, zoneId))
+                    .withBkm(readDate(in, zoneId))
+                    .withProofFrom(readDate(in, zoneId))
+                    .withProofTo(readDate(in, zoneId))
+                    .withPublish(readDate(in, zoneId))
+                    .withNoProduction(readBoolean(in))
+                    .withWeekNumber(readString(in)));
+        }
+
+        int decisions = in.readShort();
+        if (decisions >= 0) {
+            List<WeekCodeDecision> list = new ArrayList<>(decisions);
+            for (int i = 0; i < decisions; i++) {
+                String rule = readString(in);
+                list.add(new WeekCodeDecision()
+                        .withRule(rule == null ? null : WeekCodeDecision.Rule.valueOf(rule))
+                        .withDescription(readString(in))
+                        .withFrom(readLocalDate(in))
+                        .withTo(readLocalDate(in)));
+            }
+            result.setDecisions(list);
+        }
+        return result;
+    }
+
+    /**
+     * @param yearPlan The year plan
+     * @return The encoded year plan
+     */
+    public static byte[] encode(YearPlanResult yearPlan) {
+        Map<String, Integer> contents = new LinkedHashMap<>();
+        for (YearPlanResult.YearPlanRow row : yearPlan.getRows()) {
+            if (row.getColumns() != null) {
+                for (YearPlanResult.YearPlanRowColumn column : row.getColumns()) {
+                    if (column.getContent() != null) {
+                        contents.putIfAbsent(column.getContent(), contents.size());
+                    }
+                }
+            }
+        }
+        if (contents.size() > 0xFFFF) {
+            throw new IllegalArgumentException("Too many different contents in the year plan");
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(8192);
+        try {
+            DataOutputStream out = new DataOutputStream(bytes);
+            writeHeader(out, TYPE_YEAR_PLAN);
+            writeString(out, yearPlan.getYear());
+            out.writeShort(contents.size());
+            for (String content : contents.keySet()) {
+                out.writeUTF(content);
+            }
+            out.writeInt(yearPlan.getRows().size());
+            for (YearPlanResult.YearPlanRow row : yearPlan.getRows()) {
+                List<YearPlanResult.YearPlanRowColumn> columns = row.getColumns();
+                out.writeShort(columns == null ? -1 : columns.size());
+                if (columns != null) {
+                    for (YearPlanResult.YearPlanRowColumn column : columns) {
+                        // Index 0 is no content
+                        out.writeShort(column.getContent() == null ? 0 : contents.get(column.getContent()) + 1);
+                        out.writeByte(flagOf(column.getHeader()) | flagOf(column.getIsAbnormalDay()) << 2 | flagOf(column.getIsVisible()) << 4);
+                    }
+                }
+            }
+            out.flush();
+        } catch (IOException ioException) {
+            throw new UncheckedIOException(ioException);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * @param input The encoded year plan
+     * @return The year plan
+     * @throws IOException if the input is not an encoded year plan
+     */
+    public static YearPlanResult decodeYearPlan(InputStream input) throws IOException {
+        DataInputStream in = new DataInputStream(input);
+        readHeader(in, TYPE_YEAR_PLAN);
+        YearPlanResult yearPlan = new YearPlanResult().withYear(readString(in));
+        String[] contents = new String[in.readUnsignedShort() + 1];
+        for (int i = 1; i < contents.length; i++) {
+            contents[i] = in.readUTF();
+        }
+        int rows = in.readInt();
+        for (int i = 0; i < rows; i++) {
+            int size = in.readShort();
+            List<YearPlanResult.YearPlanRowColumn> columns = size < 0 ? null : new ArrayList<>(size);
+            for (int j = 0; j < size; j++) {
+                String content = contents[in.readUnsignedShort()];
+                int flags = in.readUnsignedByte();
+                columns.add(new YearPlanResult.YearPlanRowColumn()
+                        .withContent(content)
+                        .withHeader(booleanOf(flags & 3))
+                        .withAbnormalDay(booleanOf(flags >> 2 & 3))
+                        .withVisible(booleanOf(flags >> 4 & 3)));
+            }
+            yearPlan.getRows().add(new YearPlanResult.YearPlanRow().withColumns(columns));
+        }
+        return yearPlan;
+    }
+
+    /**
+     * Decode a batch. The items only have the weekcode (and the cataloguecode, in upper case) or the error, the
+     * dates are not part of the batch
+     * @param input The encoded batch
+     * @return The items, in the same order as in the request
+     * @throws IOException if the input is not an encoded batch, or the batch was not completed
+     */
+    public static List<WeekCodeBatchItem> decodeBatch(InputStream input) throws IOException {
+        DataInputStream in = new DataInputStream(input);
+        readHeader(in, TYPE_BATCH);
+        List<String> codes = new ArrayList<>();
+        List<WeekCodeBatchItem> items = new ArrayList<>();
+        for (byte record = in.readByte(); record != RECORD_END; record = in.readByte()) {
+            if (record == RECORD_ERROR) {
+                items.add(new WeekCodeBatchItem().withError(BATCH_ERRORS.get(in.readUnsignedByte())));
+                continue;
+            }
+            String code;
+            if (record == RECORD_NEW_CODE) {
+                code = in.readUTF();
+                codes.add(code);
+            } else if (record == RECORD_CODE) {
+                code = codes.get(in.readUnsignedShort());
+            } else {
+                throw new IOException(String.format("Unknown record %d in batch", record));
+            }
+            items.add(new WeekCodeBatchItem().withCatalogueCode(code).withWeekCode(readWeekCode(in, code)));
+        }
+        return items;
+    }
+
+    /**
+     * Writes a batch, an item at a time
+     */
+    public static final class BatchWriter {
+        private final DataOutputStream out;
+        private final Map<String, Integer> codes = new HashMap<>();
+
+        /**
+         * @param output Output of the batch, should be buffered
+         * @throws IOException if the header can not be written
+         */
+        public BatchWriter(OutputStream output) throws IOException {
+            this.out = new DataOutputStream(output);
+            writeHeader(out, TYPE_BATCH);
+        }
+
+        /**
+         * @param weekCode The weekcode of the next item
+         * @throws IOException if the item can not be written
+         */
+        public void writeWeekCode(String weekCode) throws IOException {
+            String code = weekCode.substring(0, 3);
+            Integer id = codes.get(code);
+            if (id == null) {
+                if (codes.size() > 0xFFFF) {
+                    throw new IllegalArgumentException("Too many cataloguecodes in the batch");
+                }
+                codes.put(code, codes.size());
+                out.writeByte(RECORD_NEW_CODE);
+                out.writeUTF(code);
+            } else {
+                out.writeByte(RECORD_CODE);
+                out.writeShort(id);
+            }
+            WeekResolverBinaryFormat.writeWeekCode(out, weekCode);
+        }
+
+        /**
+         * @param error The error of the next item, one of {@link #BATCH_ERRORS}
+         * @throws IOException if the item can not be written
+         */
+        public void writeError(String error) throws IOException {
+            int index = BATCH_ERRORS.indexOf(error);
+            if (index < 0) {
+                throw new IllegalArgumentException(String.format("Unknown error %s", error));
+            }
+            out.writeByte(RECORD_ERROR);
+            out.writeByte(index);
+        }
+
+        /**
+         * End the batch, and flush the output
+         * @throws IOException if the end can not be written
+         */
+        public void finish() throws IOException {
+            out.writeByte(RECORD_END);
+            out.flush();
+        }
+    }
+
+    private static void writeHeader(DataOutputStream out, byte type) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeByte(type);
+    }
+
+    private static void readHeader(DataInputStream in, byte type) throws IOException {
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Not a weekresolver binary message, or unsupported version");
+        }
+        byte actual = in.readByte();
+        if (actual != type) {
+            throw new IOException(String.format("Expected message type %d, got %d", type, actual));
+        }
+    }
+
+    // The weekcode without the cataloguecode, as the year and the (two digit) week or month
+    private static void writeWeekCode(DataOutputStream out, String weekCode) throws IOException {
+        out.writeInt(Integer.parseInt(weekCode.substring(3, weekCode.length() - 2)));
+        out.writeByte(Integer.parseInt(weekCode.substring(weekCode.length() - 2)));
+    }
+
+    private static String readWeekCode(DataInputStream in, String catalogueCode) throws IOException {
+        int year = in.readInt();
+        int week = in.readUnsignedByte();
+        return catalogueCode + year + (week < 10 ? "0" : "") + week;
+    }
+
+    private static void writeDate(DataOutputStream out, Date date, ZoneId zoneId) throws IOException {
+        writeLocalDate(out, date == null ? null : LocalDate.ofInstant(date.toInstant(), zoneId));
+    }
+
+    private static Date readDate(DataInputStream in, ZoneId zoneId) throws IOException {
+        LocalDate date = readLocalDate(in);
+        return date == null ? null : Date.from(date.atStartOfDay(zoneId).toInstant());
+    }
+
+    private static void writeLocalDate(DataOutputStream out, LocalDate date) throws IOException {
+        out.writeInt(date == null ? NO_DATE : Math.toIntExact(date.toEpochDay()));
+    }
+
+    private static LocalDate readLocalDate(DataInputStream in) throws IOException {
+        int epochDay = in.readInt();
+        return epochDay == NO_DATE ? null : LocalDate.ofEpochDay(epochDay);
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    private static void writeBoolean(DataOutputStream out, Boolean value) throws IOException {
+        out.writeByte(flagOf(value));
+    }
+
+    private static Boolean readBoolean(DataInputStream in) throws IOException {
+        return booleanOf(in.readUnsignedByte());
+    }
+
+    private static int flagOf(Boolean value) {
+        return value == null ? 0 : value ? 2 : 1;
+    }
+
+    private static Boolean booleanOf(int flag) {
+        return flag == 0 ? null : flag == 2;
+    }
+}
@@ -2,8 +2,8 @@ package dk.dbc.weekresolver.model;
 
 import java.time.LocalDate;
 import java.time.ZoneId;
-import java.time.format.DateTimeFormatter;
 import java.util.Date;
+import java.util.List;
 import java.util.Locale;
 
 /**
@@ -29,6 +29,9 @@ public class WeekResolverResult implements Result {
 
     private WeekDescription description;
 
+    // Decisions that moved the date, only set when an explanation is requested
+    private List<WeekCodeDecision> decisions;
+
     @SuppressWarnings("unused")
     public WeekResolverResult() {}
 
@@ -50,20 +53,37 @@ public class WeekResolverResult implements Result {
             this.date = Date.from(finalDate.atStartOfDay(zoneId).toInstant());
             this.weekNumber = 0;
             this. year = 0;
-            this.weekCode = catalogueCode.toUpperCase() + configuration.getFixedWeekCode();
+            this.weekCode = weekCodeOf(configuration, locale, catalogueCode, finalDate);
             this.catalogueCode = catalogueCode.toUpperCase();
         } else {
-            this.weekNumber = Integer.parseInt(finalDate.format(DateTimeFormatter.ofPattern("w", locale).withZone(zoneId)));
-            //noinspection SuspiciousDateFormat
-            this.year = Integer.parseInt(finalDate.format(DateTimeFormatter.ofPattern("YYYY", locale))); // MUST be 'week year' (upper case 'YYYY') format, NOT 'year' (lower case 'yyyy')
-            int month = Integer.parseInt(finalDate.format(DateTimeFormatter.ofPattern("MM", locale)));
-            this.weekCode = catalogueCode.toUpperCase() + year + String.format("%02d", configuration.getUseMonthNumber() ? month : weekNumber);
+            WeekNumbering weekNumbering = WeekNumbering.of(locale);
+            this.weekNumber = weekNumbering.weekOfWeekBasedYear(finalDate);
+            this.year = weekNumbering.weekBasedYear(finalDate); // MUST be 'week year', NOT 'year'
+            this.weekCode = weekCodeOf(configuration, locale, catalogueCode, finalDate);
             this.date = Date.from(finalDate.atStartOfDay(zoneId).toInstant());
             this.catalogueCode = catalogueCode.toUpperCase();
         }
         this.description = description;
     }
 
+    /**
+     * Get the weekcode given by a final date, without building a result
+     * @param configuration Configuration of the cataloguecode
+     * @param locale Locale used for week numbering
+     * @param catalogueCode The cataloguecode
+     * @param finalDate The final date
+     * @return The weekcode
+     */
+    public static String weekCodeOf(WeekCodeConfiguration configuration, Locale locale, String catalogueCode, LocalDate finalDate) {
+        if( configuration.getFixedWeekCode() != null ) {
+            return catalogueCode.toUpperCase() + configuration.getFixedWeekCode();
+        }
+        WeekNumbering weekNumbering = WeekNumbering.of(locale);
+        int year = weekNumbering.weekBasedYear(finalDate); // MUST be 'week year', NOT 'year'
+        int number = configuration.getUseMonthNumber() ? finalDate.getMonthValue() : weekNumbering.weekOfWeekBasedYear(finalDate);
+        return catalogueCode.toUpperCase() + year + (number < 10 ? "0" : "") + number;
+    }
+
     public int getWeekNumber() {
         return weekNumber;
     }
@@ -140,6 +160,19 @@ public class WeekResolverResult implements Result {
         return this;
     }
 
+    public List<WeekCodeDecision> getDecisions() {
+        return decisions;
+    }
+
+    public void setDecisions(List<WeekCodeDecision> decisions) {
+        this.decisions = decisions;
+    }
+
+    public WeekResolverResult withDecisions(List<WeekCodeDecision> decisions) {
+        this.decisions = decisions;
+        return this;
+    }
+
     @Override
     public String toString() {
         return "WeekResolverResult{" +
@@ -9,6 +9,22 @@ public class YearPlanResult implements Result {
         rows = new ArrayList<>();
     }
 
+    /**
+     * Create a copy of a year plan, with copies of the rows and columns
+     * @param other The year plan to copy
+     */
+    public YearPlanResult(YearPlanResult other) {
+        this.rows = new ArrayList<>(other.rows.size());
+        for (YearPlanRow row : other.rows) {
+            List<YearPlanRowColumn> columns = new ArrayList<>(row.columns.size());
+            for (YearPlanRowColumn column : row.columns) {
+                columns.add(new YearPlanRowColumn(column));
+            }
+            this.rows.add(new YearPlanRow(columns));
+        }
+        this.year = other.year;
+    }
+
     public static class YearPlanRowColumn {
 
         private String content;
@@ -40,6 +56,17 @@ public class YearPlanResult implements Result {
             this.isVisible = isVisible;
         }
 
+        /**
+         * Create a copy of a column
+         * @param other The column to copy
+         */
+        public YearPlanRowColumn(YearPlanRowColumn other) {
+            this.content = other.content;
+            this.isHeader = other.isHeader;
+            this.isAbnormalDay = other.isAbnormalDay;
+            this.isVisible = other.isVisible;
+        }
+
         public YearPlanRowColumn(String content, Boolean isAbnormalDay, Boolean isHeader, Boolean isVisible) {
             this.content = content;
             this.isHeader = isHeader;
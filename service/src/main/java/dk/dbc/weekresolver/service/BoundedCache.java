@@ -0,0 +1,120 @@
+package dk.dbc.weekresolver.service;
+
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+import dk.dbc.weekresolver.model.CacheStatistics;
+
+/**
+ * Small concurrent cache with an upper limit on the number of entries.
+ * <p>
+ * Values are computed at most once per key while the key is cached. When the limit is reached, a tenth of the
+ * entries is evicted before the new entry is added. Eviction is arbitrary (in the iteration order of the map), not
+ * least recently used, so a frequently used entry may be evicted and missed again. The cache keeps a count of hits,
+ * misses and evictions, where a high count of evictions means that the misses are not only first lookups.
+ * </p>
+ * <p>
+ * The values are shared between all callers, so a mutable value must be copied before it is handed out.
+ * </p>
+ * @param <K> Key type, must have value semantics (equals/hashCode)
+ * @param <V> Value type
+ */
+public class BoundedCache<K, V> {
+    private final String name;
+    private final int maxSize;
+    private final ConcurrentHashMap<K, V> entries;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * @param name Name of the cache, used when reporting statistics
+     * @param maxSize Maximum number of entries
+     */
+    public BoundedCache(String name, int maxSize) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("maxSize must be at least 1");
+        }
+        this.name = name;
+        this.maxSize = maxSize;
+        this.entries = new ConcurrentHashMap<>(Math.min(maxSize, 1024));
+    }
+
+    /**
+     * Get the cached value for a key, computing it if it is not cached
+     * @param key The key
+     * @param mappingFunction Function that computes the value of the key
+     * @return The value
+     */
+    public V get(K key, Function<? super K, ? extends V> mappingFunction) {
+        V value = entries.get(key);
+        if (value != null) {
+            hits.increment();
+            return value;
+        }
+        misses.increment();
+        if (entries.size() >= maxSize) {
+            evict();
+        }
+        return entries.computeIfAbsent(key, mappingFunction);
+    }
+
+    /**
+     * Remove all entries. Statistics are kept
+     */
+    public void clear() {
+        entries.clear();
+    }
+
+    // Remove about a tenth of the entries, so that eviction does not run on every miss when the cache is full
+    private void evict() {
+        int toRemove = Math.max(1, maxSize / 10);
+        Iterator<K> iterator = entries.keySet().iterator();
+        while (toRemove > 0 && iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+            evictions.increment();
+            toRemove--;
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    /**
+     * @return Snapshot of the size and counts of the cache
+     */
+    public CacheStatistics getStatistics() {
+        return new CacheStatistics()
+                .withName(name)
+                .withSize(size())
+                .withMaxSize(maxSize)
+                .withHits(getHits())
+                .withMisses(getMisses())
+                .withEvictions(getEvictions());
+    }
+}
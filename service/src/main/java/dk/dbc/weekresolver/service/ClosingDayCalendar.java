@@ -0,0 +1,279 @@
+package dk.dbc.weekresolver.service;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.Month;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+
+import dk.dbc.weekresolver.model.WeekNumbering;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Precomputed calendar of closing days.
+ * <p>
+ * The closing day rules are evaluated once for every day of a year, the first time a date within
+ * that year is requested. The result is kept in two bitsets indexed by epoch day (relative to
+ * january 1st.), one for each value of 'allowEndOfYearWeeks', so checking a date is a single bit
+ * test and finding the next open day is a {@link BitSet#nextClearBit(int)}.
+ * </p>
+ * <p>
+ * The rules for week 52, 53 and 01 depends on the week numbering of the locale, so there is one
+ * calendar per locale. Calendars are immutable once a year has been built, and can be shared by all threads.
+ * </p>
+ */
+public class ClosingDayCalendar {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ClosingDayCalendar.class);
+
+    private static final ConcurrentHashMap<Locale, ClosingDayCalendar> CALENDARS = new ConcurrentHashMap<>();
+
+    private final Locale locale;
+    private final WeekNumbering weekNumbering;
+    private final ConcurrentHashMap<Integer, ClosingDays> years = new ConcurrentHashMap<>();
+
+    private ClosingDayCalendar(Locale locale) {
+        this.locale = locale;
+        this.weekNumbering = WeekNumbering.of(locale);
+    }
+
+    /**
+     * Get the shared calendar for the given locale
+     * @param locale Locale used for week numbers
+     * @return The calendar
+     */
+    public static ClosingDayCalendar forLocale(Locale locale) {
+        return CALENDARS.computeIfAbsent(locale, ClosingDayCalendar::new);
+    }
+
+    /**
+     * Check if the given date is a closed date
+     * @param date The calendar date
+     * @param allowEndOfYearWeeks If set to true, then week 52 and 53 is allowed, otherwise these days are also closing days
+     * @return True if the date is a closing day, otherwise false
+     */
+    public boolean isClosingDay(LocalDate date, boolean allowEndOfYearWeeks) {
+        ClosingDays days = getYear(date.getYear());
+        return days.get(allowEndOfYearWeeks).get(days.indexOf(date));
+    }
+
+    /**
+     * Find the first day that is not a closing day, starting with the given date
+     * @param date The first date to check
+     * @param allowEndOfYearWeeks If set to true, then week 52 and 53 is allowed, otherwise these days are also closing days
+     * @return The given date if it is not a closing day, otherwise the next day that is not
+     */
+    public LocalDate nextOpenDay(LocalDate date, boolean allowEndOfYearWeeks) {
+        ClosingDays days = getYear(date.getYear());
+        int index = days.get(allowEndOfYearWeeks).nextClearBit(days.indexOf(date));
+        while (index >= days.length) {
+            days = getYear(days.year + 1);
+            index = days.get(allowEndOfYearWeeks).nextClearBit(0);
+        }
+        return LocalDate.ofEpochDay(days.firstEpochDay + index);
+    }
+
+    /**
+     * Check if all working days (monday to friday) in the week of the given date are closing days
+     * @param date The date to check
+     * @param allowEndOfYearWeeks If set to true, then week 52 and 53 is allowed, otherwise these days are also closing days
+     * @return True if the whole week is closed
+     */
+    public boolean isClosedWeek(LocalDate date, boolean allowEndOfYearWeeks) {
+        LocalDate monday = date.minusDays(date.getDayOfWeek().getValue() - DayOfWeek.MONDAY.getValue());
+        return nextOpenDay(monday, allowEndOfYearWeeks).isAfter(monday.plusDays(4));
+    }
+
+    /**
+     * Count the number of working days in the week of the given date. Working days in the
+     * Christmas weeks are counted as well.
+     * @param date The date to check
+     * @return Number of days in the week that is not a closing day
+     */
+    public int numberOfWorkingDaysInWeekOf(LocalDate date) {
+        LocalDate workingDay = date.minusDays(date.getDayOfWeek().getValue() - DayOfWeek.MONDAY.getValue());
+
+        int numWorkingDays = 0;
+        for (int day = 0; day < 7; day++) {
+            if (!isClosingDay(workingDay.plusDays(day), true)) {
+                numWorkingDays++;
+            }
+        }
+        return numWorkingDays;
+    }
+
+    // Only supported years are kept, so years given by the caller can not fill the memory
+    private ClosingDays getYear(int year) {
+        if (!WeekResolverEngine.isSupportedYear(year)) {
+            return build(year);
+        }
+        ClosingDays days = years.get(year);
+        if (days == null) {
+            days = years.computeIfAbsent(year, y -> {
+                LOGGER.info("Building closing day calendar for {} ({})", y, locale);
+                return build(y);
+            });
+        }
+        return days;
+    }
+
+    private ClosingDays build(int year) {
+        ClosingDays days = new ClosingDays(year);
+        for (int index = 0; index < days.length; index++) {
+            LocalDate date = LocalDate.ofEpochDay(days.firstEpochDay + index);
+            days.closedWithEndOfYear.set(index, evaluate(date, true));
+            days.closed.set(index, evaluate(date, false));
+        }
+        return days;
+    }
+
+    /**
+     * Evaluate the closing day rules for the given date.
+     * Rules should only be evaluated when building the calendar.
+     * @param expectedDate The calendar date expected as release date
+     * @param allowEndOfYearWeeks If set to true, then week 52 and 53 is allowed, otherwise these days are also closing days
+     * @return True if the date is a closing day, otherwise false
+     */
+    private boolean evaluate(LocalDate expectedDate, boolean allowEndOfYearWeeks) {
+
+        // Weekends
+        if( expectedDate.getDayOfWeek() == DayOfWeek.SATURDAY || expectedDate.getDayOfWeek() == DayOfWeek.SUNDAY ) {
+            LOGGER.debug("{} is saturday or sunday", expectedDate);
+            return true;
+        }
+
+        // 1. maj and pinched friday
+        if( expectedDate.getMonth() == Month.MAY && expectedDate.getDayOfMonth() == 1 ) {
+            LOGGER.debug("{} is 1. may", expectedDate);
+            return true;
+        }
+
+        // Grundlovsdag and pinched friday
+        if( expectedDate.getMonth() == Month.JUNE  && expectedDate.getDayOfMonth() == 5 ) {
+            LOGGER.debug("{} is constitution day (grundlovsdag)", expectedDate);
+            return true;
+        }
+        if( expectedDate.getMonth() == Month.JUNE && expectedDate.getDayOfMonth() == 6 && expectedDate.getDayOfWeek() == DayOfWeek.FRIDAY ) {
+            LOGGER.debug("{} is pinched friday af constitution day (grundlovsdag)", expectedDate);
+            return true;
+        }
+
+        // Christmas and pinched friday
+        if( expectedDate.getMonth() == Month.DECEMBER && expectedDate.getDayOfMonth() == 24 ||
+                expectedDate.getMonth() == Month.DECEMBER && expectedDate.getDayOfMonth() == 25 ||
+                expectedDate.getMonth() == Month.DECEMBER && expectedDate.getDayOfMonth() == 26) {
+            LOGGER.debug("{} is a christmas day", expectedDate);
+            return true;
+        }
+        if( expectedDate.getMonth() == Month.DECEMBER && expectedDate.getDayOfMonth() == 27 && expectedDate.getDayOfWeek() == DayOfWeek.FRIDAY ) {
+            LOGGER.debug("{} is pinched friday after christmas", expectedDate);
+            return true;
+        }
+
+        // Check for week 52 and 53, which is never used! or week 1 with too few working days
+        if( allowEndOfYearWeeks ) {
+            // New years eve
+            if (expectedDate.getMonth() == Month.DECEMBER && expectedDate.getDayOfMonth() == 31) {
+                LOGGER.debug("{} is new years eve", expectedDate);
+                return true;
+            }
+        } else {
+            // Check for week 52 and 53
+            int week = weekNumbering.weekOfWeekBasedYear(expectedDate);
+
+            if (List.of(52, 53).contains(week)) {
+                LOGGER.debug("{} is within week 52 or 53", expectedDate);
+
+                // After much deliberation, we landed on an empirical rule that states that..:
+                //   "if there is 4 or more coherent working days in week 52, then it is ok to place
+                //    shiftday and the book cart in week 52, otherwise not"
+                if (week == 52) {
+                    int numberOfWorkingDays = countWorkingDaysInWeekOf(expectedDate);
+                    LOGGER.debug("{} is within week 52 and has {} working days", expectedDate, numberOfWorkingDays);
+                    if (numberOfWorkingDays >= 4) {
+                        LOGGER.debug("Allowing week 52 due to empirical rule: There is 4 or more coherent working days");
+                    } else {
+                        return true;
+                    }
+                } else {
+                    return true;
+                }
+            }
+
+            // Check for week 1 with too few working days
+            if (week == 1) {
+                int numberOfWorkingDays = countWorkingDaysInWeekOf(expectedDate);
+                LOGGER.debug("{} is within week 01 and has {} working days", expectedDate, numberOfWorkingDays);
+                if (numberOfWorkingDays < 3) {
+                    LOGGER.debug("Not allowing week 01 due to empirical rule: There is less than 3 coherent working days");
+                    return true;
+                }
+            }
+        }
+
+        // 1. January and pinched friday
+        if( expectedDate.getMonth() == Month.JANUARY && expectedDate.getDayOfMonth() == 1 ) {
+            LOGGER.debug("{} is 1. jan (hangover day)", expectedDate);
+            return true;
+        }
+        if( expectedDate.getMonth() == Month.JANUARY && expectedDate.getDayOfMonth() == 2 && expectedDate.getDayOfWeek() == DayOfWeek.FRIDAY ) {
+            LOGGER.debug("{} is pinched friday after 1. jan (hangover day for older people)", expectedDate);
+            return true;
+        }
+
+        // Check for Easter, pentecost and ascension day
+        if( WeekResolverEngine.isEasterAndRelatedClosingDay(expectedDate) ) {
+            LOGGER.debug("{} is within Easter, pentecost or ascension day", expectedDate);
+            return true;
+        }
+
+        // Not a closing day
+        LOGGER.debug("{} is not a closing day", expectedDate);
+        return false;
+    }
+
+    // Evaluates the rules directly (instead of looking up the bitsets), since the week may
+    // extend into a neighbouring year that is not built yet
+    private int countWorkingDaysInWeekOf(LocalDate date) {
+        LocalDate workingDay = date.minusDays(date.getDayOfWeek().getValue() - DayOfWeek.MONDAY.getValue());
+
+        int numWorkingDays = 0;
+        for (int day = 0; day < 7; day++) {
+            if (!evaluate(workingDay.plusDays(day), true)) { // also check working days in christmas weeks
+                numWorkingDays++;
+            }
+        }
+        return numWorkingDays;
+    }
+
+    private static class ClosingDays {
+        private final int year;
+        private final long firstEpochDay;
+        private final int length;
+
+        // Closing days when week 52 and 53 is allowed
+        private final BitSet closedWithEndOfYear;
+
+        // Closing days when week 52, 53 (and a short week 01) is not allowed
+        private final BitSet closed;
+
+        ClosingDays(int year) {
+            LocalDate first = LocalDate.of(year, Month.JANUARY, 1);
+            this.year = year;
+            this.firstEpochDay = first.toEpochDay();
+            this.length = first.lengthOfYear();
+            this.closedWithEndOfYear = new BitSet(length);
+            this.closed = new BitSet(length);
+        }
+
+        BitSet get(boolean allowEndOfYearWeeks) {
+            return allowEndOfYearWeeks ? closedWithEndOfYear : closed;
+        }
+
+        int indexOf(LocalDate date) {
+            return (int) (date.toEpochDay() - firstEpochDay);
+        }
+    }
+}
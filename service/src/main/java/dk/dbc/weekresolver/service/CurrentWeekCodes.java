@@ -0,0 +1,123 @@
+package dk.dbc.weekresolver.service;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+import dk.dbc.weekresolver.model.WeekResolverResult;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Snapshot of the current weekcode of every cataloguecode for today.
+ * <p>
+ * The current weekcode of a cataloguecode only depends on the date, so all results are calculated once and swapped
+ * in atomically when the date changes in the time zone of the engine, or when the cataloguecodes are replaced. The
+ * snapshot is refreshed by a timer at the start of each day (see {@link CurrentWeekCodesRefresher}), and when a
+ * lookup finds that the snapshot has expired, so a late timer never gives a stale result.
+ * </p>
+ * <p>
+ * The results are shared, and must not be modified.
+ * </p>
+ */
+public class CurrentWeekCodes {
+    private static final Logger LOGGER = LoggerFactory.getLogger(CurrentWeekCodes.class);
+
+    private final WeekResolverEngine engine;
+    private final Clock clock;
+    private final AtomicReference<Snapshot> snapshot = new AtomicReference<>();
+
+    /**
+     * @param engine The engine
+     * @param clock Clock giving the current instant, its zone is not used
+     */
+    public CurrentWeekCodes(WeekResolverEngine engine, Clock clock) {
+        this.engine = engine;
+        this.clock = clock;
+    }
+
+    /**
+     * Get the current weekcode of a cataloguecode for today
+     * @param catalogueCode The cataloguecode, in any case
+     * @return The result, same as {@link WeekResolverEngine#getCurrentWeekCode(String, LocalDate)} for today
+     * @throws UnsupportedOperationException if the cataloguecode is not supported
+     */
+    public WeekResolverResult get(String catalogueCode) throws UnsupportedOperationException {
+        Snapshot current = current();
+        return get(current, catalogueCode, current.date);
+    }
+
+    /**
+     * Get the current weekcode of a cataloguecode for a date. The snapshot is only used if it is for the same date,
+     * so the result is always for the given date, also around midnight
+     * @param catalogueCode The cataloguecode, in any case
+     * @param date The date, normally today in the time zone of the engine
+     * @return The result, same as {@link WeekResolverEngine#getCurrentWeekCode(String, LocalDate)}
+     * @throws UnsupportedOperationException if the cataloguecode is not supported
+     */
+    public WeekResolverResult get(String catalogueCode, LocalDate date) throws UnsupportedOperationException {
+        return get(current(), catalogueCode, date);
+    }
+
+    private WeekResolverResult get(Snapshot current, String catalogueCode, LocalDate date) {
+        WeekResolverResult result = current.date.isEqual(date) ? current.results.get(catalogueCode.toUpperCase()) : null;
+        if (result == null) {
+            return engine.getCurrentWeekCode(catalogueCode, date);
+        }
+        return result;
+    }
+
+    private Snapshot current() {
+        Snapshot current = snapshot.get();
+        if (current == null || !clock.instant().isBefore(current.validUntil)
+                || current.registry != WeekResolverEngine.getRegistry()) {
+            current = refresh(current);
+        }
+        return current;
+    }
+
+    /**
+     * Calculate the snapshot for today and the current cataloguecodes, unless it is already calculated
+     * @return The instant when the snapshot expires (start of tomorrow)
+     */
+    public Instant refresh() {
+        return refresh(snapshot.get()).validUntil;
+    }
+
+    private synchronized Snapshot refresh(Snapshot expired) {
+        Snapshot current = snapshot.get();
+        LocalDate today = LocalDate.ofInstant(clock.instant(), engine.getZoneId());
+        WeekCodeRegistry registry = WeekResolverEngine.getRegistry();
+        if (current != null && (current != expired || current.date.isEqual(today) && current.registry == registry)) {
+            return current;
+        }
+
+        HashMap<String, WeekResolverResult> results = new HashMap<>();
+        for (String code : registry.getCodes().keySet()) {
+            results.put(code, engine.getCurrentWeekCode(code, today));
+        }
+        Snapshot refreshed = new Snapshot(registry, today, today.plusDays(1).atStartOfDay(engine.getZoneId()).toInstant(),
+                Collections.unmodifiableMap(results));
+        snapshot.set(refreshed);
+        LOGGER.info("Calculated current weekcodes of {} cataloguecodes for {}", results.size(), today);
+        return refreshed;
+    }
+
+    private static final class Snapshot {
+        private final WeekCodeRegistry registry;
+        private final LocalDate date;
+        private final Instant validUntil;
+        private final Map<String, WeekResolverResult> results;
+
+        Snapshot(WeekCodeRegistry registry, LocalDate date, Instant validUntil, Map<String, WeekResolverResult> results) {
+            this.registry = registry;
+            this.date = date;
+            this.validUntil = validUntil;
+            this.results = results;
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package dk.dbc.weekresolver.service;
+
+import java.time.Instant;
+import java.util.Date;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.Resource;
+import jakarta.ejb.DependsOn;
+import jakarta.ejb.Singleton;
+import jakarta.ejb.Startup;
+import jakarta.ejb.Timeout;
+import jakarta.ejb.Timer;
+import jakarta.ejb.TimerConfig;
+import jakarta.ejb.TimerService;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Calculates the current weekcodes at startup, and again at the start of each day, so that the endpoints for the
+ * current weekcode never have to calculate them
+ */
+@Startup
+@Singleton
+@DependsOn({"WeekCodeRegistryWatcher", "WeekCodeTableSnapshotLoader"})
+public class CurrentWeekCodesRefresher {
+    private static final Logger LOGGER = LoggerFactory.getLogger(CurrentWeekCodesRefresher.class);
+
+    @Inject
+    @ConfigProperty(name = "TZ")
+    String timeZone;
+
+    @Resource
+    TimerService timerService;
+
+    private CurrentWeekCodes currentWeekCodes;
+
+    @PostConstruct
+    public void init() {
+        currentWeekCodes = WeekResolverEngine.of(timeZone).getCurrentWeekCodes();
+        schedule(currentWeekCodes.refresh());
+    }
+
+    @Timeout
+    public void refresh(Timer timer) {
+        schedule(currentWeekCodes.refresh());
+    }
+
+    private void schedule(Instant validUntil) {
+        LOGGER.info("Next refresh of current weekcodes at {}", validUntil);
+        timerService.createSingleActionTimer(Date.from(validUntil), new TimerConfig(null, false));
+    }
+}
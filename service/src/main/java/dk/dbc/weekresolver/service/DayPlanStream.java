@@ -0,0 +1,219 @@
+package dk.dbc.weekresolver.service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.Month;
+
+import dk.dbc.weekresolver.model.DayPlanFormat;
+import dk.dbc.weekresolver.model.WeekCodeConfiguration;
+import jakarta.ws.rs.core.StreamingOutput;
+
+/**
+ * Streams the weekcode of each day in a range. Each day is resolved when it is written, so nothing but the
+ * output buffer is held in memory, no matter how long the range is.
+ * <p>
+ * JSON is an object with the date as key and the weekcode as value (same as the earlier, non-streamed, day plan),
+ * NDJSON is an object per line with the date and the weekcode, and CSV is a line per day after a header.
+ * </p>
+ * <p>
+ * With intervals, each run of days with the same weekcode is written as {@code [from, to, weekCode]} (JSON is an
+ * array of these, NDJSON one per line, and CSV a line per run). Within the precomputed years
+ * ({@link WeekCodeTable#FIRST_YEAR} to {@link WeekCodeTable#LAST_YEAR}) the end of a run is searched for without
+ * resolving every day: first by checking if the run is as long as the previous run, otherwise by a search that
+ * doubles the distance until the weekcode changes, followed by a binary search. The search requires that the days
+ * with a weekcode are a single run, which is checked per configuration by its {@link WeekCodeIndex}. It does not
+ * hold in general, a weekcode with the number of a month may recur after another weekcode (e.g. PLA199305 is given
+ * both before and after PLA199306), so outside the precomputed years, or if the check fails, each day of the run
+ * is resolved.
+ * </p>
+ */
+public class DayPlanStream implements StreamingOutput {
+    private static final int BUFFER_SIZE = 8192;
+
+    private final WeekResolverEngine engine;
+    private final WeekCodeConfiguration configuration;
+    private final String catalogueCode;
+    private final LocalDate start;
+    private final LocalDate end;
+    private final DayPlanFormat format;
+    private final boolean intervals;
+
+    /**
+     * @param engine The engine
+     * @param catalogueCode The cataloguecode, must be supported
+     * @param start First day
+     * @param end Last day
+     * @param format Format
+     * @param intervals If true, then write runs of days with the same weekcode instead of each day
+     */
+    public DayPlanStream(WeekResolverEngine engine, String catalogueCode, LocalDate start, LocalDate end, DayPlanFormat format,
+                         boolean intervals) {
+        this.engine = engine;
+        this.configuration = engine.getConfiguration(catalogueCode);
+        this.catalogueCode = catalogueCode;
+        this.start = start;
+        this.end = end;
+        this.format = format;
+        this.intervals = intervals;
+    }
+
+    @Override
+    public void write(OutputStream output) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8), BUFFER_SIZE);
+        if (intervals) {
+            writeIntervals(writer);
+        } else {
+            writeDays(writer);
+        }
+        writer.flush();
+    }
+
+    private void writeDays(Writer writer) throws IOException {
+        if (format == DayPlanFormat.JSON) {
+            writer.write('{');
+        } else if (format == DayPlanFormat.CSV) {
+            writer.write("Dato;Ugekode\n");
+        }
+
+        for (LocalDate date = start; !date.isAfter(end); date = date.plusDays(1)) {
+            String weekCode = weekCodeOf(date);
+            if (format == DayPlanFormat.JSON) {
+                if (!date.isEqual(start)) {
+                    writer.write(',');
+                }
+                writer.write("\"" + date + "\":\"" + weekCode + "\"");
+            } else if (format == DayPlanFormat.NDJSON) {
+                writer.write("{\"date\":\"" + date + "\",\"weekCode\":\"" + weekCode + "\"}\n");
+            } else {
+                writer.write(date + ";" + weekCode + "\n");
+            }
+        }
+
+        if (format == DayPlanFormat.JSON) {
+            writer.write('}');
+        }
+    }
+
+    private void writeIntervals(Writer writer) throws IOException {
+        if (format == DayPlanFormat.JSON) {
+            writer.write('[');
+        } else if (format == DayPlanFormat.CSV) {
+            writer.write("Fra;Til;Ugekode\n");
+        }
+
+        // Last day of the range within the precomputed years, if the end of runs can be searched for until then
+        LocalDate searchable = null;
+        LocalDate tableFirst = LocalDate.of(WeekCodeTable.FIRST_YEAR, Month.JANUARY, 1);
+        LocalDate tableLast = LocalDate.of(WeekCodeTable.LAST_YEAR, Month.DECEMBER, 31);
+        if (!start.isAfter(tableLast) && !end.isBefore(tableFirst) && engine.hasSingleRuns(configuration)) {
+            searchable = end.isAfter(tableLast) ? tableLast : end;
+        }
+
+        long previousLength = 7;
+        for (LocalDate from = start; !from.isAfter(end); ) {
+            String weekCode = weekCodeOf(from);
+            LocalDate to = endOfRun(from, weekCode, previousLength, searchable);
+            if (format == DayPlanFormat.JSON) {
+                if (!from.isEqual(start)) {
+                    writer.write(',');
+                }
+                writer.write("[\"" + from + "\",\"" + to + "\",\"" + weekCode + "\"]");
+            } else if (format == DayPlanFormat.NDJSON) {
+                writer.write("[\"" + from + "\",\"" + to + "\",\"" + weekCode + "\"]\n");
+            } else {
+                writer.write(from + ";" + to + ";" + weekCode + "\n");
+            }
+            previousLength = to.toEpochDay() - from.toEpochDay() + 1;
+            from = to.plusDays(1);
+        }
+
+        if (format == DayPlanFormat.JSON) {
+            writer.write(']');
+        }
+    }
+
+    /**
+     * Find the last day of the run of days with the given weekcode, no later than the end of the range
+     * @param from First day of the run
+     * @param weekCode Weekcode of the run
+     * @param expectedLength Expected number of days in the run
+     * @param searchable Last day that the end of the run can be searched for until, or null if each day must be resolved
+     * @return Last day of the run
+     */
+    private LocalDate endOfRun(LocalDate from, String weekCode, long expectedLength, LocalDate searchable) {
+        LocalDate to = from;
+        if (searchable != null && from.getYear() >= WeekCodeTable.FIRST_YEAR && !from.isAfter(searchable)) {
+            to = searchEndOfRun(from, searchable, weekCode, expectedLength);
+            if (to.isBefore(searchable)) {
+                return to;
+            }
+        }
+
+        // Outside the precomputed years, the run may end at any day
+        while (to.isBefore(end) && weekCodeOf(to.plusDays(1)).equals(weekCode)) {
+            to = to.plusDays(1);
+        }
+        return to;
+    }
+
+    /**
+     * Search for the last day of the run of days with the given weekcode, no later than the given day. Requires that
+     * the weekcode does not recur after another weekcode between the two days
+     * @param from First day of the run
+     * @param until Last day to search
+     * @param weekCode Weekcode of the run
+     * @param expectedLength Expected number of days in the run
+     * @return Last day of the run, or the last day to search
+     */
+    private LocalDate searchEndOfRun(LocalDate from, LocalDate until, String weekCode, long expectedLength) {
+        long last = until.toEpochDay() - from.toEpochDay();
+
+        // Offsets from the first day: the weekcode is known to be the same at 'same', and different at 'different'
+        long same = 0;
+        long different = last + 1;
+
+        // Most runs are a week, or as long as the previous run
+        long guess = expectedLength - 1;
+        if (guess > 0 && guess <= last) {
+            if (!isSame(from, guess, weekCode)) {
+                different = guess;
+            } else if (guess == last || !isSame(from, guess + 1, weekCode)) {
+                return from.plusDays(guess);
+            } else {
+                same = guess + 1;
+            }
+        }
+
+        // Double the distance until the weekcode changes, then search between the last same and the first different
+        for (long step = 1; different == last + 1 && same < last; step *= 2) {
+            long probe = Math.min(same + step, last);
+            if (isSame(from, probe, weekCode)) {
+                same = probe;
+            } else {
+                different = probe;
+            }
+        }
+        while (different - same > 1) {
+            long middle = same + (different - same) / 2;
+            if (isSame(from, middle, weekCode)) {
+                same = middle;
+            } else {
+                different = middle;
+            }
+        }
+        return from.plusDays(same);
+    }
+
+    private boolean isSame(LocalDate from, long offset, String weekCode) {
+        return weekCodeOf(from.plusDays(offset)).equals(weekCode);
+    }
+
+    private String weekCodeOf(LocalDate date) {
+        return engine.resolveWeekCode(configuration, catalogueCode, date);
+    }
+}
@@ -0,0 +1,46 @@
+package dk.dbc.weekresolver.service;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import dk.dbc.weekresolver.model.WeekCodeDecision;
+
+/**
+ * Receives the decisions that moved the date when calculating a weekcode.
+ * <p>
+ * The rules only pass values they already have (the rule and the dates), so nothing is formatted or
+ * calculated for {@link #NONE}, which is used everywhere except when an explanation is requested.
+ * </p>
+ */
+public interface DecisionTrace {
+
+    /**
+     * Trace that ignores all decisions
+     */
+    DecisionTrace NONE = (rule, from, to) -> {};
+
+    /**
+     * Record a decision
+     * @param rule The rule that moved the date
+     * @param from The date before the rule was applied
+     * @param to The date after the rule was applied
+     */
+    void record(WeekCodeDecision.Rule rule, LocalDate from, LocalDate to);
+
+    /**
+     * Trace that keeps all decisions, in the order they were made
+     */
+    class Recording implements DecisionTrace {
+        private final List<WeekCodeDecision> decisions = new ArrayList<>();
+
+        @Override
+        public void record(WeekCodeDecision.Rule rule, LocalDate from, LocalDate to) {
+            decisions.add(new WeekCodeDecision(rule, from, to));
+        }
+
+        public List<WeekCodeDecision> getDecisions() {
+            return decisions;
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package dk.dbc.weekresolver.service;
+
+/**
+ * Entity tags for responses that only depend on the request and the rules of the engine.
+ * <p>
+ * The tag is the fingerprint of the engine (see {@link WeekResolverEngine#getFingerprint()}) and the representation
+ * of the response, so a tag stays valid until the rules change, and the caller can be answered with 304 without
+ * calculating anything.
+ * </p>
+ */
+public final class EntityTags {
+    private EntityTags() {
+    }
+
+    /**
+     * @param fingerprint Fingerprint of the engine
+     * @param representation Name of the representation, for example the format
+     * @return Strong entity tag, including the quotes
+     */
+    public static String of(String fingerprint, String representation) {
+        return "\"" + fingerprint + "-" + representation + "\"";
+    }
+
+    /**
+     * Check if an If-None-Match header matches an entity tag, using the weak comparison
+     * @param ifNoneMatch The If-None-Match header, may be null
+     * @param entityTag The entity tag of the current representation
+     * @return True if the header is "*" or lists the entity tag. The caller must make sure that there is a current
+     * representation, since "*" matches any
+     */
+    public static boolean matches(String ifNoneMatch, String entityTag) {
+        if (ifNoneMatch == null || ifNoneMatch.isBlank()) {
+            return false;
+        }
+        for (String tag : ifNoneMatch.split(",")) {
+            tag = tag.trim();
+            if (tag.equals("*")) {
+                return true;
+            }
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals(entityTag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
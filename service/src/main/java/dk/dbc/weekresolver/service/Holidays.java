@@ -0,0 +1,133 @@
+package dk.dbc.weekresolver.service;
+
+import java.time.LocalDate;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The movable holidays of a single year, all derived from Easter sunday.
+ * <p>
+ * Easter sunday is calculated with the anonymous gregorian algorithm (Meeus/Jones/Butcher), so there
+ * is no limit on the years. Instances are immutable and kept per supported year (see
+ * {@link WeekResolverEngine#isSupportedYear(int)}), so looking up the holidays of a year is a single map lookup.
+ * Other years are calculated on every lookup.
+ * </p>
+ */
+public final class Holidays {
+    private static final ConcurrentHashMap<Integer, Holidays> YEARS = new ConcurrentHashMap<>();
+
+    // Store bededag was abolished as a public holiday from 2024
+    static final int LAST_YEAR_WITH_PRAYERS_DAY = 2023;
+
+    private final LocalDate easterSunday;
+    private final LocalDate maundyThursday;
+    private final LocalDate easterMonday;
+    private final LocalDate ascensionDay;
+    private final LocalDate pentecost;
+    private final LocalDate whitMonday;
+    private final LocalDate prayersDay;
+
+    private Holidays(int year) {
+        this.easterSunday = calculateEasterSunday(year);
+        this.maundyThursday = easterSunday.minusDays(3);
+        this.easterMonday = easterSunday.plusDays(1);
+        this.ascensionDay = easterSunday.plusDays(39);
+        this.pentecost = easterSunday.plusWeeks(7);
+        this.whitMonday = pentecost.plusDays(1);
+        this.prayersDay = year <= LAST_YEAR_WITH_PRAYERS_DAY ? easterSunday.plusDays(26) : null;
+    }
+
+    /**
+     * Get the holidays of a year
+     * @param year The year
+     * @return Holidays of the year
+     */
+    public static Holidays of(int year) {
+        if (!WeekResolverEngine.isSupportedYear(year)) {
+            return new Holidays(year);
+        }
+        Holidays holidays = YEARS.get(year);
+        if (holidays == null) {
+            holidays = YEARS.computeIfAbsent(year, Holidays::new);
+        }
+        return holidays;
+    }
+
+    /**
+     * Calculate the date of Easter sunday in the gregorian calendar
+     * @param year The year
+     * @return Easter sunday
+     */
+    static LocalDate calculateEasterSunday(int year) {
+        int a = year % 19;
+        int b = year / 100;
+        int c = year % 100;
+        int d = b / 4;
+        int e = b % 4;
+        int f = (b + 8) / 25;
+        int g = (b - f + 1) / 3;
+        int h = (19 * a + b - d - g + 15) % 30;
+        int i = c / 4;
+        int k = c % 4;
+        int l = (32 + 2 * e + 2 * i - h - k) % 7;
+        int m = (a + 11 * h + 22 * l) / 451;
+        int month = (h + l - 7 * m + 114) / 31;
+        int day = (h + l - 7 * m + 114) % 31 + 1;
+        return LocalDate.of(year, month, day);
+    }
+
+    public LocalDate getEasterSunday() {
+        return easterSunday;
+    }
+
+    public LocalDate getMaundyThursday() {
+        return maundyThursday;
+    }
+
+    public LocalDate getEasterMonday() {
+        return easterMonday;
+    }
+
+    public LocalDate getAscensionDay() {
+        return ascensionDay;
+    }
+
+    public LocalDate getPinchedFridayAfterAscensionDay() {
+        return ascensionDay.plusDays(1);
+    }
+
+    public LocalDate getPentecost() {
+        return pentecost;
+    }
+
+    public LocalDate getWhitMonday() {
+        return whitMonday;
+    }
+
+    /**
+     * @return Store bededag ('prayers day'), or null for years after {@link #LAST_YEAR_WITH_PRAYERS_DAY}
+     */
+    public LocalDate getPrayersDay() {
+        return prayersDay;
+    }
+
+    /**
+     * Check if the date is within Easter, from maundy thursday to Easter monday, both included
+     * @param date The date
+     * @return True if the date is within Easter
+     */
+    public boolean isWithinEaster(LocalDate date) {
+        return !date.isBefore(maundyThursday) && !date.isAfter(easterMonday);
+    }
+
+    @Override
+    public String toString() {
+        return "Holidays{" +
+                "easterSunday=" + easterSunday +
+                ", maundyThursday=" + maundyThursday +
+                ", ascensionDay=" + ascensionDay +
+                ", pentecost=" + pentecost +
+                ", whitMonday=" + whitMonday +
+                ", prayersDay=" + prayersDay +
+                '}';
+    }
+}
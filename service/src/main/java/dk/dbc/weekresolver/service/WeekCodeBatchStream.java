@@ -0,0 +1,338 @@
+package dk.dbc.weekresolver.service;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.StringReader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+import dk.dbc.weekresolver.model.WeekCodeConfiguration;
+import dk.dbc.weekresolver.model.WeekResolverBinaryFormat;
+import jakarta.json.JsonException;
+import jakarta.json.JsonObject;
+import jakarta.json.JsonReader;
+import jakarta.json.JsonString;
+import jakarta.json.JsonValue;
+import jakarta.json.spi.JsonProvider;
+import jakarta.json.stream.JsonParser;
+import jakarta.ws.rs.core.StreamingOutput;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Resolves the weekcode of a stream of {@code {"catalogueCode": .., "date": ..}} items, and streams the results in
+ * the same order.
+ * <p>
+ * The items are read as NDJSON (an item per line) or as a JSON array. Each result is the item with the weekcode
+ * added, or with an error if the item could not be resolved, so one bad item does not fail the batch. The items are
+ * read and resolved a chunk at a time, and full chunks are resolved in parallel on the worker pool, so the items
+ * are not held in memory.
+ * </p>
+ * <p>
+ * All items are read and resolved when the stream is created, and the results are kept in a buffer until then,
+ * since most HTTP/1.1 clients do not read the response until they have sent the whole request. If the results were
+ * written while the items are read, such a client would block the service (and itself) once both socket buffers
+ * are full. The number of items is therefore limited, and a request with too many items, or a JSON array that is
+ * not well-formed, is rejected before anything is written.
+ * </p>
+ * <p>
+ * The results can also be written in {@link WeekResolverBinaryFormat}, which leaves out the items.
+ * </p>
+ */
+public class WeekCodeBatchStream implements StreamingOutput {
+    private static final Logger LOGGER = LoggerFactory.getLogger(WeekCodeBatchStream.class);
+
+    private static final int BUFFER_SIZE = 8192;
+
+    // Number of items read, resolved and written at a time
+    static final int CHUNK_SIZE = 1024;
+
+    private static final JsonProvider JSON = JsonProvider.provider();
+
+    // Same as WeekResolverEngine.fromString()
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+
+    private final WeekResolverEngine engine;
+    private final ForkJoinPool pool;
+    private final ItemReader reader;
+    private final boolean ndjson;
+    private final boolean binary;
+    private final ByteArrayOutputStream results = new ByteArrayOutputStream(BUFFER_SIZE);
+
+    /**
+     * Read and resolve all the items
+     * @param engine The engine
+     * @param pool The pool that resolves full chunks (see {@link WorkerPool})
+     * @param input The items
+     * @param ndjson If true, then the items (and the results) are NDJSON, otherwise a JSON array
+     * @param binary If true, then the results are in the binary format
+     * @param maxItems Maximum number of items
+     * @throws IllegalArgumentException if the items are a JSON array that is not well-formed, or there are more
+     * than the maximum number of items. The message is the reason to answer with
+     * @throws IOException if the items can not be read
+     */
+    public WeekCodeBatchStream(WeekResolverEngine engine, ForkJoinPool pool, InputStream input, boolean ndjson, boolean binary,
+                               int maxItems) throws IllegalArgumentException, IOException {
+        this.engine = engine;
+        this.pool = pool;
+        this.ndjson = ndjson;
+        this.binary = binary;
+        if (ndjson) {
+            this.reader = new NdjsonReader(input);
+        } else {
+            this.reader = new ArrayReader(input);
+        }
+        resolveAll(maxItems);
+    }
+
+    @Override
+    public void write(OutputStream output) throws IOException {
+        results.writeTo(output);
+        output.flush();
+    }
+
+    private void resolveAll(int maxItems) throws IllegalArgumentException, IOException {
+        Writer writer = null;
+        WeekResolverBinaryFormat.BatchWriter binaryWriter = null;
+        if (binary) {
+            binaryWriter = new WeekResolverBinaryFormat.BatchWriter(new BufferedOutputStream(results, BUFFER_SIZE));
+        } else {
+            writer = new BufferedWriter(new OutputStreamWriter(results, StandardCharsets.UTF_8), BUFFER_SIZE);
+            if (!ndjson) {
+                writer.write('[');
+            }
+        }
+
+        Item[] chunk = new Item[CHUNK_SIZE];
+        long count = 0;
+        try {
+            for (int size = read(chunk); size > 0; size = read(chunk)) {
+                if (count + size > maxItems) {
+                    LOGGER.error("More than {} items", maxItems);
+                    throw new IllegalArgumentException(String.format("No more than %d items", maxItems));
+                }
+                resolve(chunk, size);
+                for (int i = 0; i < size; i++) {
+                    if (binary) {
+                        chunk[i].write(binaryWriter);
+                    } else {
+                        if (!ndjson && count > 0) {
+                            writer.write(',');
+                        }
+                        chunk[i].write(writer);
+                        if (ndjson) {
+                            writer.write('\n');
+                        }
+                    }
+                    count++;
+                }
+            }
+        } catch (JsonException jsonException) {
+            LOGGER.error("Invalid JSON after {} items: {}", count, jsonException.getMessage());
+            throw new IllegalArgumentException("Expected a JSON array", jsonException);
+        }
+
+        if (binary) {
+            binaryWriter.finish();
+        } else {
+            if (!ndjson) {
+                writer.write(']');
+            }
+            writer.flush();
+        }
+        LOGGER.info("Resolved {} items", count);
+    }
+
+    private int read(Item[] chunk) throws IOException {
+        int size = 0;
+        Item item;
+        while (size < chunk.length && (item = reader.next()) != null) {
+            chunk[size++] = item;
+        }
+        return size;
+    }
+
+    private void resolve(Item[] chunk, int size) {
+        if (size == CHUNK_SIZE) {
+            pool.submit(() -> IntStream.range(0, size).parallel().forEach(i -> resolve(chunk[i]))).join();
+        } else {
+            for (int i = 0; i < size; i++) {
+                resolve(chunk[i]);
+            }
+        }
+    }
+
+    private void resolve(Item item) {
+        if (item.error != null) {
+            return;
+        }
+        if (item.catalogueCode == null || item.date == null) {
+            item.error = WeekResolverBinaryFormat.ERROR_MISSING;
+            return;
+        }
+        try {
+            WeekCodeConfiguration configuration = engine.getConfiguration(item.catalogueCode);
+            LocalDate date = LocalDate.parse(item.date, DATE_FORMAT);
+            if (!WeekResolverEngine.isSupportedYear(date.getYear())) {
+                item.error = WeekResolverBinaryFormat.ERROR_UNRESOLVABLE_DATE;
+                return;
+            }
+            item.weekCode = engine.resolveWeekCode(configuration, item.catalogueCode, date);
+        } catch (UnsupportedOperationException unsupportedOperationException) {
+            item.error = WeekResolverBinaryFormat.ERROR_UNSUPPORTED;
+        } catch (DateTimeParseException dateTimeParseException) {
+            item.error = WeekResolverBinaryFormat.ERROR_UNPARSEABLE_DATE;
+        } catch (DateTimeException dateTimeException) {
+            item.error = WeekResolverBinaryFormat.ERROR_UNRESOLVABLE_DATE;
+        }
+    }
+
+    private interface ItemReader {
+        /**
+         * @return The next item, or null if there are no more items
+         */
+        Item next() throws IOException;
+    }
+
+    private static final class NdjsonReader implements ItemReader {
+        private final BufferedReader reader;
+
+        NdjsonReader(InputStream input) {
+            reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8), BUFFER_SIZE);
+        }
+
+        @Override
+        public Item next() throws IOException {
+            String line;
+            do {
+                line = reader.readLine();
+            } while (line != null && line.isBlank());
+            if (line == null) {
+                return null;
+            }
+
+            try (JsonReader jsonReader = JSON.createReader(new StringReader(line))) {
+                return Item.of(jsonReader.readValue());
+            } catch (JsonException jsonException) {
+                return Item.invalid(WeekResolverBinaryFormat.ERROR_INVALID_JSON);
+            }
+        }
+    }
+
+    private static final class ArrayReader implements ItemReader {
+        private final JsonParser parser;
+        private boolean ended = false;
+
+        ArrayReader(InputStream input) throws IllegalArgumentException {
+            parser = JSON.createParser(new InputStreamReader(input, StandardCharsets.UTF_8));
+            try {
+                if (!parser.hasNext() || parser.next() != JsonParser.Event.START_ARRAY) {
+                    throw new IllegalArgumentException("Expected a JSON array");
+                }
+            } catch (JsonException jsonException) {
+                throw new IllegalArgumentException("Expected a JSON array", jsonException);
+            }
+        }
+
+        @Override
+        public Item next() {
+            if (ended) {
+                return null;
+            }
+            if (!parser.hasNext()) {
+                throw new JsonException("Unexpected end of the array");
+            }
+            JsonParser.Event event = parser.next();
+            if (event == JsonParser.Event.END_ARRAY) {
+                ended = true;
+                return null;
+            }
+            return Item.of(parser.getValue());
+        }
+    }
+
+    /**
+     * An item and its weekcode or error
+     */
+    private static final class Item {
+        private String catalogueCode;
+        private String date;
+        private String weekCode;
+        private String error;
+
+        static Item of(JsonValue value) {
+            if (value.getValueType() != JsonValue.ValueType.OBJECT) {
+                return invalid(WeekResolverBinaryFormat.ERROR_NOT_OBJECT);
+            }
+            JsonObject object = value.asJsonObject();
+            Item item = new Item();
+            item.catalogueCode = stringOf(object, "catalogueCode");
+            item.date = stringOf(object, "date");
+            return item;
+        }
+
+        static Item invalid(String error) {
+            Item item = new Item();
+            item.error = error;
+            return item;
+        }
+
+        private static String stringOf(JsonObject object, String name) {
+            JsonValue value = object.get(name);
+            return value instanceof JsonString ? ((JsonString) value).getString() : null;
+        }
+
+        void write(WeekResolverBinaryFormat.BatchWriter writer) throws IOException {
+            if (error == null) {
+                writer.writeWeekCode(weekCode);
+            } else {
+                writer.writeError(error);
+            }
+        }
+
+        void write(Writer writer) throws IOException {
+            writer.write("{\"catalogueCode\":");
+            writeString(writer, catalogueCode);
+            writer.write(",\"date\":");
+            writeString(writer, date);
+            if (error == null) {
+                writer.write(",\"weekCode\":\"" + weekCode + "\"}");
+            } else {
+                writer.write(",\"error\":\"" + error + "\"}");
+            }
+        }
+
+        private static void writeString(Writer writer, String value) throws IOException {
+            if (value == null) {
+                writer.write("null");
+                return;
+            }
+            writer.write('"');
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (c == '"' || c == '\\') {
+                    writer.write('\\');
+                    writer.write(c);
+                } else if (c < 0x20) {
+                    writer.write(String.format("\\u%04x", (int) c));
+                } else {
+                    writer.write(c);
+                }
+            }
+            writer.write('"');
+        }
+    }
+}
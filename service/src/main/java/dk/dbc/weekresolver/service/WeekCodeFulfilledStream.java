@@ -0,0 +1,139 @@
+package dk.dbc.weekresolver.service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+
+import dk.dbc.weekresolver.model.WeekCodeFulfilledRequest;
+import dk.dbc.weekresolver.model.WeekResolverResult;
+import jakarta.json.JsonException;
+import jakarta.json.spi.JsonProvider;
+import jakarta.json.stream.JsonParser;
+import jakarta.ws.rs.core.StreamingOutput;
+
+/**
+ * Streams if each of a number of weekcodes has been fulfilled, that is if the current weekcode of the
+ * cataloguecode is the same or newer.
+ * <p>
+ * All weekcodes are checked, and the current weekcode is calculated once per cataloguecode, when the stream is
+ * created, so an invalid weekcode or unknown cataloguecode is reported before anything is written. The output is
+ * a JSON array with an object per weekcode, in the same order as the weekcodes, with the same properties as
+ * {@link dk.dbc.weekresolver.model.WeekCodeFulfilledResult} (except the current weekcode result).
+ * </p>
+ */
+public class WeekCodeFulfilledStream implements StreamingOutput {
+    private static final int BUFFER_SIZE = 8192;
+    private static final Pattern WEEK_CODE = Pattern.compile("[A-Za-z]{3}[0-9]{6}");
+    private static final JsonProvider JSON = JsonProvider.provider();
+
+    private final List<String> weekCodes;
+    private final Map<String, Integer> currentYearWeeks = new HashMap<>();
+
+    /**
+     * @param weekCodes The weekcodes, in any case
+     * @param currentWeekCode Function giving the current weekcode of a cataloguecode (upper case) as of the date to
+     *                        check, throwing UnsupportedOperationException if the cataloguecode is not supported
+     * @throws IllegalArgumentException if a weekcode is not a cataloguecode followed by 6 digits
+     * @throws UnsupportedOperationException if a cataloguecode is not supported
+     */
+    public WeekCodeFulfilledStream(List<String> weekCodes, Function<String, WeekResolverResult> currentWeekCode)
+            throws IllegalArgumentException, UnsupportedOperationException {
+        for (String weekCode : weekCodes) {
+            if (weekCode == null || !WEEK_CODE.matcher(weekCode).matches()) {
+                throw new IllegalArgumentException(String.format("Invalid weekcode %s", weekCode));
+            }
+            currentYearWeeks.computeIfAbsent(weekCode.substring(0, 3).toUpperCase(),
+                    code -> Integer.parseInt(currentWeekCode.apply(code).getWeekCode().substring(3)));
+        }
+        this.weekCodes = weekCodes;
+    }
+
+    /**
+     * Read a {@link WeekCodeFulfilledRequest} while it is parsed, so the request is rejected as soon as it has too
+     * many weekcodes, instead of after the whole request has been read. Unknown properties are skipped
+     * @param input The request as JSON
+     * @param maxWeekCodes Maximum number of weekcodes
+     * @return The request
+     * @throws IllegalArgumentException if the request can not be parsed, or has more than the maximum number of
+     * weekcodes. The message is the reason to answer with
+     */
+    public static WeekCodeFulfilledRequest readRequest(InputStream input, int maxWeekCodes) throws IllegalArgumentException {
+        WeekCodeFulfilledRequest request = new WeekCodeFulfilledRequest();
+        try (JsonParser parser = JSON.createParser(new InputStreamReader(input, StandardCharsets.UTF_8))) {
+            if (!parser.hasNext() || parser.next() != JsonParser.Event.START_OBJECT) {
+                throw new IllegalArgumentException("Unable to parse the request");
+            }
+            for (JsonParser.Event event = parser.next(); event != JsonParser.Event.END_OBJECT; event = parser.next()) {
+                String key = parser.getString();
+                event = parser.next();
+                if (key.equals("weekCodes") && event == JsonParser.Event.START_ARRAY) {
+                    request.setWeekCodes(readWeekCodes(parser, maxWeekCodes));
+                } else if (key.equals("date") && event == JsonParser.Event.VALUE_STRING) {
+                    request.setDate(parser.getString());
+                } else if (event == JsonParser.Event.START_ARRAY) {
+                    parser.skipArray();
+                } else if (event == JsonParser.Event.START_OBJECT) {
+                    parser.skipObject();
+                }
+            }
+            if (parser.hasNext()) {
+                throw new IllegalArgumentException("Unable to parse the request");
+            }
+        } catch (JsonException | IllegalStateException | NoSuchElementException e) {
+            throw new IllegalArgumentException("Unable to parse the request", e);
+        }
+        return request;
+    }
+
+    private static List<String> readWeekCodes(JsonParser parser, int maxWeekCodes) throws IllegalArgumentException {
+        List<String> weekCodes = new ArrayList<>();
+        for (JsonParser.Event event = parser.next(); event != JsonParser.Event.END_ARRAY; event = parser.next()) {
+            if (weekCodes.size() == maxWeekCodes) {
+                throw new IllegalArgumentException(String.format("No more than %d week codes", maxWeekCodes));
+            }
+            if (event == JsonParser.Event.VALUE_STRING) {
+                weekCodes.add(parser.getString());
+            } else if (event == JsonParser.Event.VALUE_NULL) {
+                weekCodes.add(null);
+            } else {
+                throw new IllegalArgumentException("Unable to parse the request");
+            }
+        }
+        return weekCodes;
+    }
+
+    /**
+     * @return Number of distinct cataloguecodes
+     */
+    public int getNumberOfCatalogueCodes() {
+        return currentYearWeeks.size();
+    }
+
+    @Override
+    public void write(OutputStream output) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8), BUFFER_SIZE);
+        writer.write('[');
+        for (int i = 0; i < weekCodes.size(); i++) {
+            String weekCode = weekCodes.get(i).toUpperCase();
+            boolean fulfilled = currentYearWeeks.get(weekCode.substring(0, 3)) >= Integer.parseInt(weekCode.substring(3));
+            if (i > 0) {
+                writer.write(',');
+            }
+            writer.write("{\"requestedWeekCode\":\"" + weekCode + "\",\"isFulfilled\":" + fulfilled + "}");
+        }
+        writer.write(']');
+        writer.flush();
+    }
+}
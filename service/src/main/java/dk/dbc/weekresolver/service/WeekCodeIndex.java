@@ -0,0 +1,105 @@
+package dk.dbc.weekresolver.service;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Index from weekcode to the dates that give the weekcode, for a single configuration.
+ * <p>
+ * The index is built by resolving every day in a range once, and a weekcode is only indexed if the days that give
+ * it are a single run within the range. That holds for the configurations of the precomputed years
+ * ({@link WeekCodeTable#FIRST_YEAR} to {@link WeekCodeTable#LAST_YEAR}), but not in general: a weekcode with the
+ * number of a month can recur after an earlier one, e.g. PLA199305 is given both before and after PLA199306. It is
+ * therefore checked while the index is built, and a weekcode given by more than one run is left out of the index.
+ * The first and the last run of the range may continue outside the range, so they are not indexed either.
+ * </p>
+ */
+public class WeekCodeIndex {
+    private static final Logger LOGGER = LoggerFactory.getLogger(WeekCodeIndex.class);
+
+    private final Map<String, Interval> intervals;
+    private final boolean singleRuns;
+
+    /**
+     * @param weekCodeOfDate Function giving the weekcode (without cataloguecode) of a date
+     * @param first First day of the range
+     * @param last Last day of the range
+     */
+    public WeekCodeIndex(Function<LocalDate, String> weekCodeOfDate, LocalDate first, LocalDate last) {
+        LOGGER.info("Building week code index from {} to {}", first, last);
+        HashMap<String, Interval> intervals = new HashMap<>();
+        Set<String> seen = new HashSet<>();
+        Set<String> recurring = new HashSet<>();
+        LocalDate runStart = first;
+        String runWeekCode = weekCodeOfDate.apply(first);
+        seen.add(runWeekCode);
+        for (LocalDate date = first.plusDays(1); !date.isAfter(last); date = date.plusDays(1)) {
+            String weekCode = weekCodeOfDate.apply(date);
+            if (!weekCode.equals(runWeekCode)) {
+                if (!runStart.isEqual(first)) {
+                    intervals.put(runWeekCode, new Interval(runStart, date.minusDays(1)));
+                }
+                if (!seen.add(weekCode)) {
+                    recurring.add(weekCode);
+                }
+                runStart = date;
+                runWeekCode = weekCode;
+            }
+        }
+        if (!recurring.isEmpty()) {
+            LOGGER.warn("Week codes {} are given by more than one run of days from {} to {}, and are not indexed", recurring, first, last);
+            intervals.keySet().removeAll(recurring);
+        }
+        this.intervals = intervals;
+        this.singleRuns = recurring.isEmpty();
+    }
+
+    /**
+     * @param weekCode The weekcode without cataloguecode
+     * @return The dates that give the weekcode, or null if the weekcode is not given by any day within the range,
+     * or is given by more than one run of days
+     */
+    public Interval getInterval(String weekCode) {
+        return intervals.get(weekCode);
+    }
+
+    /**
+     * @return True if the days that give each weekcode are a single run within the range, so no weekcode
+     * recurs after another weekcode
+     */
+    public boolean hasSingleRuns() {
+        return singleRuns;
+    }
+
+    public int size() {
+        return intervals.size();
+    }
+
+    /**
+     * First and last date (both included) that give a weekcode
+     */
+    public static final class Interval {
+        private final LocalDate from;
+        private final LocalDate to;
+
+        Interval(LocalDate from, LocalDate to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        public LocalDate getFrom() {
+            return from;
+        }
+
+        public LocalDate getTo() {
+            return to;
+        }
+    }
+}
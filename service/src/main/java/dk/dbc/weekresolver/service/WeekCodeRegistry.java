@@ -0,0 +1,187 @@
+package dk.dbc.weekresolver.service;
+
+import java.io.Reader;
+import java.time.DayOfWeek;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.regex.Pattern;
+
+import dk.dbc.weekresolver.model.WeekCodeConfiguration;
+import jakarta.json.JsonException;
+import jakarta.json.JsonNumber;
+import jakarta.json.JsonObject;
+import jakarta.json.JsonReader;
+import jakarta.json.JsonString;
+import jakarta.json.JsonValue;
+import jakarta.json.spi.JsonProvider;
+
+/**
+ * Immutable mapping from cataloguecodes to their configuration.
+ * <p>
+ * Many cataloguecodes share the same rules. Equal configurations are interned, so all codes with the same rules
+ * point to the same (canonical) configuration instance, and anything calculated per configuration can be
+ * shared by those codes.
+ * </p>
+ */
+public class WeekCodeRegistry {
+    private static final JsonProvider JSON = JsonProvider.provider();
+    private static final Pattern CATALOGUE_CODE = Pattern.compile("[A-Za-z]{3}");
+    private static final Pattern FIXED_WEEK_CODE = Pattern.compile("[0-9]{6}");
+
+    private final Map<String, WeekCodeConfiguration> codes;
+    private final Map<WeekCodeConfiguration, SortedSet<String>> codesByConfiguration;
+
+    /**
+     * @param configurations Configuration of each cataloguecode. Codes are stored in upper case
+     */
+    public WeekCodeRegistry(Map<String, WeekCodeConfiguration> configurations) {
+        HashMap<WeekCodeConfiguration, WeekCodeConfiguration> canonical = new HashMap<>();
+        HashMap<WeekCodeConfiguration, SortedSet<String>> byConfiguration = new HashMap<>();
+        HashMap<String, WeekCodeConfiguration> codes = new HashMap<>();
+        for (Map.Entry<String, WeekCodeConfiguration> entry : configurations.entrySet()) {
+            WeekCodeConfiguration configuration = canonical.computeIfAbsent(entry.getValue(), c -> c);
+            String code = entry.getKey().toUpperCase();
+            codes.put(code, configuration);
+            byConfiguration.computeIfAbsent(configuration, c -> new TreeSet<>()).add(code);
+        }
+        byConfiguration.replaceAll((configuration, set) -> Collections.unmodifiableSortedSet(set));
+        this.codes = Collections.unmodifiableMap(codes);
+        this.codesByConfiguration = Collections.unmodifiableMap(byConfiguration);
+    }
+
+    /**
+     * @param catalogueCode The cataloguecode, in any case
+     * @return The canonical configuration of the code, or null if the code is unknown
+     */
+    public WeekCodeConfiguration getConfiguration(String catalogueCode) {
+        return codes.get(catalogueCode.toUpperCase());
+    }
+
+    /**
+     * @return Unmodifiable map of all codes (upper case) and their canonical configuration
+     */
+    public Map<String, WeekCodeConfiguration> getCodes() {
+        return codes;
+    }
+
+    /**
+     * @return The distinct configurations
+     */
+    public Set<WeekCodeConfiguration> getConfigurations() {
+        return codesByConfiguration.keySet();
+    }
+
+    /**
+     * @param configuration A configuration
+     * @return The codes using the configuration, sorted
+     */
+    public SortedSet<String> getCodes(WeekCodeConfiguration configuration) {
+        return codesByConfiguration.getOrDefault(configuration, Collections.emptySortedSet());
+    }
+
+    /**
+     * Read a registry from a JSON object with the cataloguecodes as keys, and their configuration as values, in the
+     * same form as the v1/codes endpoint: {@code {"BKM": {"addWeeks": 1, "shiftDay": "FRIDAY"}, ..}}. Properties
+     * that are left out (or null) have their default value
+     * @param reader The JSON
+     * @return The registry
+     * @throws IllegalArgumentException if the JSON is not valid, or a code or configuration is not valid
+     */
+    public static WeekCodeRegistry read(Reader reader) throws IllegalArgumentException {
+        JsonObject object;
+        try (JsonReader jsonReader = JSON.createReader(reader)) {
+            object = jsonReader.readObject();
+        } catch (JsonException | IllegalStateException exception) {
+            throw new IllegalArgumentException("Expected a JSON object: " + exception.getMessage(), exception);
+        }
+        if (object.isEmpty()) {
+            throw new IllegalArgumentException("No cataloguecodes");
+        }
+
+        HashMap<String, WeekCodeConfiguration> configurations = new HashMap<>();
+        for (Map.Entry<String, JsonValue> entry : object.entrySet()) {
+            String code = entry.getKey();
+            if (!CATALOGUE_CODE.matcher(code).matches()) {
+                throw new IllegalArgumentException(String.format("Invalid cataloguecode %s", code));
+            }
+            if (entry.getValue().getValueType() != JsonValue.ValueType.OBJECT) {
+                throw new IllegalArgumentException(String.format("Expected an object for cataloguecode %s", code));
+            }
+            if (configurations.put(code.toUpperCase(), configurationOf(code, entry.getValue().asJsonObject())) != null) {
+                throw new IllegalArgumentException(String.format("Cataloguecode %s is given more than once", code));
+            }
+        }
+        return new WeekCodeRegistry(configurations);
+    }
+
+    private static WeekCodeConfiguration configurationOf(String code, JsonObject object) {
+        WeekCodeConfiguration configuration = new WeekCodeConfiguration();
+        for (Map.Entry<String, JsonValue> property : object.entrySet()) {
+            JsonValue value = property.getValue();
+            if (value.getValueType() == JsonValue.ValueType.NULL) {
+                continue;
+            }
+            String name = property.getKey();
+            switch (name) {
+                case "fixedWeekCode":
+                    String fixedWeekCode = stringOf(code, name, value);
+                    if (!FIXED_WEEK_CODE.matcher(fixedWeekCode).matches()) {
+                        throw new IllegalArgumentException(String.format("Invalid fixedWeekCode %s for cataloguecode %s", fixedWeekCode, code));
+                    }
+                    configuration.withFixedWeekCode(fixedWeekCode);
+                    break;
+                case "addWeeks":
+                    if (!(value instanceof JsonNumber) || !((JsonNumber) value).isIntegral()
+                            || ((JsonNumber) value).intValue() < 0 || ((JsonNumber) value).intValue() > 52) {
+                        throw new IllegalArgumentException(String.format("Invalid addWeeks %s for cataloguecode %s", value, code));
+                    }
+                    configuration.addWeeks(((JsonNumber) value).intValue());
+                    break;
+                case "shiftDay":
+                    String shiftDay = stringOf(code, name, value);
+                    try {
+                        configuration.withShiftDay(DayOfWeek.valueOf(shiftDay));
+                    } catch (IllegalArgumentException illegalArgumentException) {
+                        throw new IllegalArgumentException(String.format("Invalid shiftDay %s for cataloguecode %s", shiftDay, code));
+                    }
+                    break;
+                case "allowEndOfYear":
+                    if (booleanOf(code, name, value)) {
+                        configuration.allowEndOfYear();
+                    }
+                    break;
+                case "ignoreClosingDays":
+                    if (booleanOf(code, name, value)) {
+                        configuration.ignoreClosingDays();
+                    }
+                    break;
+                case "useMonthNumber":
+                    if (booleanOf(code, name, value)) {
+                        configuration.useMonthNumber();
+                    }
+                    break;
+                default:
+                    throw new IllegalArgumentException(String.format("Unknown property %s for cataloguecode %s", name, code));
+            }
+        }
+        return configuration;
+    }
+
+    private static String stringOf(String code, String name, JsonValue value) {
+        if (value.getValueType() != JsonValue.ValueType.STRING) {
+            throw new IllegalArgumentException(String.format("Expected a string for %s of cataloguecode %s", name, code));
+        }
+        return ((JsonString) value).getString();
+    }
+
+    private static boolean booleanOf(String code, String name, JsonValue value) {
+        if (value.getValueType() != JsonValue.ValueType.TRUE && value.getValueType() != JsonValue.ValueType.FALSE) {
+            throw new IllegalArgumentException(String.format("Expected true or false for %s of cataloguecode %s", name, code));
+        }
+        return value.getValueType() == JsonValue.ValueType.TRUE;
+    }
+}
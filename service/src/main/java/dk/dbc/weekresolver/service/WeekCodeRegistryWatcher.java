@@ -0,0 +1,121 @@
+package dk.dbc.weekresolver.service;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import jakarta.ejb.Singleton;
+import jakarta.ejb.Startup;
+import jakarta.enterprise.concurrent.ManagedExecutorService;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Loads the cataloguecodes from the file given by {@code CODES_FILE}, if any, and reloads them when the file changes.
+ * <p>
+ * The file is in the same form as the v1/codes endpoint (see {@link WeekCodeRegistry#read(Reader)}). A file that is
+ * not valid at startup fails the deployment. A changed file that is not valid is logged and ignored, so the service
+ * keeps the codes it has. The directory of the file is watched, rather than the file, so a file that is replaced
+ * (as a mounted config map is) is also reloaded.
+ * </p>
+ */
+@Startup
+@Singleton
+public class WeekCodeRegistryWatcher {
+    private static final Logger LOGGER = LoggerFactory.getLogger(WeekCodeRegistryWatcher.class);
+
+    // Changes are collected until the directory has been quiet this long, so a file is not read while being written
+    private static final long QUIET_MILLIS = 500;
+
+    @Inject
+    @ConfigProperty(name = "CODES_FILE")
+    Optional<String> codesFile;
+
+    @Resource
+    ManagedExecutorService executor;
+
+    private WatchService watchService;
+
+    @PostConstruct
+    public void init() {
+        if (codesFile.isEmpty() || codesFile.get().isBlank()) {
+            LOGGER.info("Using the {} built-in cataloguecodes", WeekResolverEngine.DEFAULT_REGISTRY.getCodes().size());
+            return;
+        }
+
+        Path path = Paths.get(codesFile.get().trim()).toAbsolutePath();
+        try {
+            WeekResolverEngine.setRegistry(read(path));
+            watchService = FileSystems.getDefault().newWatchService();
+            path.getParent().register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+        } catch (IOException | IllegalArgumentException exception) {
+            throw new IllegalStateException(String.format("Unable to load the cataloguecodes from %s", path), exception);
+        }
+        executor.submit(() -> watch(path));
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (watchService != null) {
+            try {
+                watchService.close();
+            } catch (IOException ioException) {
+                LOGGER.warn("Unable to stop watching the cataloguecodes: {}", ioException.getMessage());
+            }
+        }
+    }
+
+    private void watch(Path path) {
+        LOGGER.info("Watching {} for changes to the cataloguecodes", path);
+        try {
+            while (true) {
+                WatchKey key = watchService.take();
+                do {
+                    key.pollEvents();
+                    key.reset();
+                } while ((key = watchService.poll(QUIET_MILLIS, TimeUnit.MILLISECONDS)) != null);
+                reload(path);
+            }
+        } catch (ClosedWatchServiceException closedWatchServiceException) {
+            LOGGER.info("Stopped watching {}", path);
+        } catch (InterruptedException interruptedException) {
+            Thread.currentThread().interrupt();
+            LOGGER.info("Stopped watching {}", path);
+        }
+    }
+
+    private void reload(Path path) {
+        try {
+            WeekCodeRegistry registry = read(path);
+            if (registry.getCodes().equals(WeekResolverEngine.getRegistry().getCodes())) {
+                LOGGER.debug("Cataloguecodes in {} are unchanged", path);
+                return;
+            }
+            WeekResolverEngine.setRegistry(registry);
+        } catch (IOException | IllegalArgumentException exception) {
+            LOGGER.error("Keeping the current cataloguecodes, unable to load {}: {}", path, exception.getMessage());
+        }
+    }
+
+    private static WeekCodeRegistry read(Path path) throws IOException, IllegalArgumentException {
+        try (Reader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            return WeekCodeRegistry.read(reader);
+        }
+    }
+}
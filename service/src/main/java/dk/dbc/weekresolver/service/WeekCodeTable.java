@@ -0,0 +1,163 @@
+package dk.dbc.weekresolver.service;
+
+import java.nio.IntBuffer;
+import java.time.LocalDate;
+import java.time.Month;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.UnaryOperator;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Precomputed table of resolved dates for a single configuration (shared by all catalogue codes using it).
+ * <p>
+ * For every day from {@link #FIRST_YEAR} to {@link #LAST_YEAR} the table holds the final date that gives the
+ * week code, and the final date that gives the current week code. Both are stored as offsets (in days) from
+ * the requested date, packed into a single int per day. The table is built lazily, one year segment at a time.
+ * Dates outside the table, or dates that the rules could not resolve, are passed on to the rules.
+ * </p>
+ * <p>
+ * Instead of being built, the table can be read from a {@link WeekCodeTableSnapshot}, which holds the same
+ * packed ints for all the years.
+ * </p>
+ */
+public class WeekCodeTable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(WeekCodeTable.class);
+
+    public static final int FIRST_YEAR = 2016;
+    public static final int LAST_YEAR = 2040;
+
+    // Number of days in the table, and the first of them
+    static final int DAYS = (int) (LocalDate.of(LAST_YEAR + 1, Month.JANUARY, 1).toEpochDay() - LocalDate.of(FIRST_YEAR, Month.JANUARY, 1).toEpochDay());
+    private static final long FIRST_EPOCH_DAY = LocalDate.of(FIRST_YEAR, Month.JANUARY, 1).toEpochDay();
+
+    // Marks a day that could not be resolved when the segment was built
+    private static final int UNRESOLVED = -1;
+
+    private final UnaryOperator<LocalDate> weekCodeRule;
+    private final UnaryOperator<LocalDate> currentWeekCodeRule;
+    private final IntBuffer precomputed;
+    private final ConcurrentHashMap<Integer, Segment> segments = new ConcurrentHashMap<>();
+
+    /**
+     * @param weekCodeRule Rule that calculates the final date that gives the week code
+     * @param currentWeekCodeRule Rule that calculates the final date that gives the current week code
+     */
+    public WeekCodeTable(UnaryOperator<LocalDate> weekCodeRule, UnaryOperator<LocalDate> currentWeekCodeRule) {
+        this(weekCodeRule, currentWeekCodeRule, null);
+    }
+
+    /**
+     * @param weekCodeRule Rule that calculates the final date that gives the week code
+     * @param currentWeekCodeRule Rule that calculates the final date that gives the current week code
+     * @param precomputed The packed ints of all days in the table, calculated by the same rules, or null to build the table
+     */
+    public WeekCodeTable(UnaryOperator<LocalDate> weekCodeRule, UnaryOperator<LocalDate> currentWeekCodeRule, IntBuffer precomputed) {
+        this.weekCodeRule = weekCodeRule;
+        this.currentWeekCodeRule = currentWeekCodeRule;
+        this.precomputed = precomputed;
+    }
+
+    /**
+     * Get the final date that gives the week code for the given date
+     * @param date The date
+     * @return The final date
+     */
+    public LocalDate getWeekCodeDate(LocalDate date) {
+        int packed = lookup(date);
+        if (packed == UNRESOLVED) {
+            return weekCodeRule.apply(date);
+        }
+        return date.plusDays(packed & 0xFFFF);
+    }
+
+    /**
+     * Get the final date that gives the current week code for the given date
+     * @param date The date
+     * @return The final date
+     */
+    public LocalDate getCurrentWeekCodeDate(LocalDate date) {
+        int packed = lookup(date);
+        if (packed == UNRESOLVED) {
+            return currentWeekCodeRule.apply(date);
+        }
+        return date.plusDays(packed >>> 16);
+    }
+
+    /**
+     * Count the days of a range that are outside the table, and thereby calculated by the rules on every lookup
+     * @param start First day of the range
+     * @param end Last day of the range
+     * @return The number of days outside the table
+     */
+    public static long daysOutsideTable(LocalDate start, LocalDate end) {
+        if (end.isBefore(start)) {
+            return 0;
+        }
+        long firstDay = Math.max(start.toEpochDay(), LocalDate.of(FIRST_YEAR, Month.JANUARY, 1).toEpochDay());
+        long lastDay = Math.min(end.toEpochDay(), LocalDate.of(LAST_YEAR, Month.DECEMBER, 31).toEpochDay());
+        long inside = Math.max(0, lastDay - firstDay + 1);
+        return end.toEpochDay() - start.toEpochDay() + 1 - inside;
+    }
+
+    /**
+     * Build all year segments now, instead of on the first lookup within each year. Does nothing for a
+     * precomputed table
+     */
+    void build() {
+        if (precomputed != null) {
+            return;
+        }
+        for (int year = FIRST_YEAR; year <= LAST_YEAR; year++) {
+            segments.computeIfAbsent(year, this::build);
+        }
+    }
+
+    /**
+     * @param date The date
+     * @return The packed offsets of the final dates for the date, or -1 if the date is not resolved by the table
+     */
+    int lookup(LocalDate date) {
+        int year = date.getYear();
+        if (year < FIRST_YEAR || year > LAST_YEAR) {
+            return UNRESOLVED;
+        }
+        if (precomputed != null) {
+            return precomputed.get((int) (date.toEpochDay() - FIRST_EPOCH_DAY));
+        }
+        Segment segment = segments.get(year);
+        if (segment == null) {
+            segment = segments.computeIfAbsent(year, this::build);
+        }
+        return segment.days[(int) (date.toEpochDay() - segment.firstEpochDay)];
+    }
+
+    private Segment build(int year) {
+        LOGGER.info("Building week code table for {}", year);
+        Segment segment = new Segment(year);
+        for (int index = 0; index < segment.days.length; index++) {
+            LocalDate date = LocalDate.ofEpochDay(segment.firstEpochDay + index);
+            try {
+                long weekCodeOffset = weekCodeRule.apply(date).toEpochDay() - date.toEpochDay();
+                long currentOffset = currentWeekCodeRule.apply(date).toEpochDay() - date.toEpochDay();
+                segment.days[index] = (int) (currentOffset << 16 | weekCodeOffset);
+            } catch (RuntimeException e) {
+                LOGGER.debug("Unable to resolve {} when building week code table: {}", date, e.getMessage());
+                segment.days[index] = UNRESOLVED;
+            }
+        }
+        return segment;
+    }
+
+    private static class Segment {
+        private final long firstEpochDay;
+        private final int[] days;
+
+        Segment(int year) {
+            LocalDate first = LocalDate.of(year, Month.JANUARY, 1);
+            this.firstEpochDay = first.toEpochDay();
+            this.days = new int[first.lengthOfYear()];
+        }
+    }
+}
@@ -0,0 +1,218 @@
+package dk.dbc.weekresolver.service;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import dk.dbc.weekresolver.model.WeekCodeConfiguration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * File with the precomputed tables (see {@link WeekCodeTable}) of a number of configurations, which is mapped
+ * read-only into memory, so the tables are shared (through the page cache) by all processes using the file, and
+ * lookups read directly from the mapped file.
+ * <p>
+ * The tables depend on the closing days (the locale) and the configuration. The file holds the calendar fingerprint
+ * of the engine that wrote it (see {@link WeekResolverEngine#getCalendarFingerprint()}), and the fingerprint of each
+ * configuration, so an engine only uses the file if it has the same closing days, and only for the configurations in
+ * the file. Other configurations build their tables as usual.
+ * </p>
+ * <p>
+ * The format, all numbers big-endian:
+ * </p>
+ * <pre>
+ *   int     magic 0x574B5431 ("WKT1")
+ *   int     version
+ *   int     first year, int last year
+ *   string  calendar fingerprint
+ *   int     number of configurations
+ *   per configuration: string fingerprint, int position of its table in the file
+ *   per configuration (at a multiple of 4): an int per day of the years, as in WeekCodeTable
+ * </pre>
+ * <p>
+ * A string is an unsigned short length followed by that many bytes of UTF-8.
+ * </p>
+ */
+public class WeekCodeTableSnapshot {
+    private static final Logger LOGGER = LoggerFactory.getLogger(WeekCodeTableSnapshot.class);
+
+    static final int MAGIC = 0x574B5431;
+    static final int VERSION = 1;
+
+    private final String calendarFingerprint;
+    private final Map<String, IntBuffer> tables;
+
+    private WeekCodeTableSnapshot(String calendarFingerprint, Map<String, IntBuffer> tables) {
+        this.calendarFingerprint = calendarFingerprint;
+        this.tables = tables;
+    }
+
+    /**
+     * @return Calendar fingerprint of the engine that wrote the file
+     */
+    public String getCalendarFingerprint() {
+        return calendarFingerprint;
+    }
+
+    /**
+     * @return Number of configurations in the file
+     */
+    public int size() {
+        return tables.size();
+    }
+
+    /**
+     * @param configuration A configuration
+     * @return The table of the configuration, or null if it is not in the file. Shared, must only be read by absolute index
+     */
+    public IntBuffer getTable(WeekCodeConfiguration configuration) {
+        return tables.get(configuration.fingerprint());
+    }
+
+    /**
+     * Map a file into memory. The file must not be changed while it is mapped, so a new file should be moved in place
+     * @param path The file
+     * @return The snapshot
+     * @throws IOException if the file can not be read
+     * @throws IllegalArgumentException if the file is not a snapshot of this version, or of other years
+     */
+    public static WeekCodeTableSnapshot map(Path path) throws IOException, IllegalArgumentException {
+        ByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+
+        try {
+            if (buffer.getInt() != MAGIC) {
+                throw new IllegalArgumentException(String.format("%s is not a week code table snapshot", path));
+            }
+            int version = buffer.getInt();
+            if (version != VERSION) {
+                throw new IllegalArgumentException(String.format("Unsupported version %d of %s", version, path));
+            }
+            int firstYear = buffer.getInt();
+            int lastYear = buffer.getInt();
+            if (firstYear != WeekCodeTable.FIRST_YEAR || lastYear != WeekCodeTable.LAST_YEAR) {
+                throw new IllegalArgumentException(String.format("%s is for the years %d-%d, expected %d-%d",
+                        path, firstYear, lastYear, WeekCodeTable.FIRST_YEAR, WeekCodeTable.LAST_YEAR));
+            }
+            String calendarFingerprint = getString(buffer);
+            int count = buffer.getInt();
+            HashMap<String, IntBuffer> tables = new HashMap<>();
+            for (int i = 0; i < count; i++) {
+                String fingerprint = getString(buffer);
+                int position = buffer.getInt();
+                if (position < buffer.position() || (long) position + WeekCodeTable.DAYS * Integer.BYTES > buffer.capacity()) {
+                    throw new IllegalArgumentException(String.format("%s is truncated or corrupt", path));
+                }
+                ByteBuffer table = buffer.duplicate();
+                table.position(position).limit(position + WeekCodeTable.DAYS * Integer.BYTES);
+                tables.put(fingerprint, table.slice().asIntBuffer());
+            }
+            LOGGER.info("Mapped week code tables of {} configurations from {}", tables.size(), path);
+            return new WeekCodeTableSnapshot(calendarFingerprint, Collections.unmodifiableMap(tables));
+        } catch (BufferUnderflowException bufferUnderflowException) {
+            throw new IllegalArgumentException(String.format("%s is truncated or corrupt", path), bufferUnderflowException);
+        }
+    }
+
+    /**
+     * Write the tables of a number of configurations. The file is written next to the path, and moved in place
+     * @param engine The engine that calculates the tables
+     * @param configurations The configurations
+     * @param path The file
+     * @throws IOException if the file can not be written
+     */
+    public static void write(WeekResolverEngine engine, Collection<WeekCodeConfiguration> configurations, Path path) throws IOException {
+        List<byte[]> fingerprints = new ArrayList<>();
+        int headerSize = 4 * Integer.BYTES + stringSize(engine.getCalendarFingerprint()) + Integer.BYTES;
+        for (WeekCodeConfiguration configuration : configurations) {
+            byte[] fingerprint = configuration.fingerprint().getBytes(StandardCharsets.UTF_8);
+            fingerprints.add(fingerprint);
+            headerSize += Short.BYTES + fingerprint.length + Integer.BYTES;
+        }
+        int position = (headerSize + Integer.BYTES - 1) / Integer.BYTES * Integer.BYTES;
+
+        ByteBuffer header = ByteBuffer.allocate(position);
+        header.putInt(MAGIC).putInt(VERSION).putInt(WeekCodeTable.FIRST_YEAR).putInt(WeekCodeTable.LAST_YEAR);
+        putString(header, engine.getCalendarFingerprint().getBytes(StandardCharsets.UTF_8));
+        header.putInt(configurations.size());
+        for (byte[] fingerprint : fingerprints) {
+            putString(header, fingerprint);
+            header.putInt(position);
+            position += WeekCodeTable.DAYS * Integer.BYTES;
+        }
+        header.position(0);
+
+        Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            writeFully(channel, header);
+            ByteBuffer table = ByteBuffer.allocate(WeekCodeTable.DAYS * Integer.BYTES);
+            for (WeekCodeConfiguration configuration : configurations) {
+                table.clear();
+                table.asIntBuffer().put(engine.getTable(configuration));
+                writeFully(channel, table);
+            }
+        }
+        Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        LOGGER.info("Wrote week code tables of {} configurations to {}", configurations.size(), path);
+    }
+
+    /**
+     * Write a snapshot of all configurations, for the default locale
+     * @param args The file to write, and optionally a file with cataloguecodes (see {@link WeekCodeRegistry#read(Reader)}),
+     *             otherwise the built-in codes are used
+     * @throws IOException if a file can not be read or written
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1 || args.length > 2) {
+            System.err.println("Usage: WeekCodeTableSnapshot <snapshot file> [codes file]");
+            System.exit(1);
+        }
+        WeekCodeRegistry registry = WeekResolverEngine.DEFAULT_REGISTRY;
+        if (args.length == 2) {
+            try (Reader reader = Files.newBufferedReader(Paths.get(args[1]), StandardCharsets.UTF_8)) {
+                registry = WeekCodeRegistry.read(reader);
+            }
+        }
+        write(WeekResolverEngine.of(WeekResolverEngine.DEFAULT_ZONE, WeekResolverEngine.DEFAULT_LOCALE),
+                registry.getConfigurations(), Paths.get(args[0]));
+    }
+
+    private static int stringSize(String value) {
+        return Short.BYTES + value.getBytes(StandardCharsets.UTF_8).length;
+    }
+
+    private static void putString(ByteBuffer buffer, byte[] value) {
+        buffer.putShort((short) value.length).put(value);
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        byte[] value = new byte[Short.toUnsignedInt(buffer.getShort())];
+        buffer.get(value);
+        return new String(value, StandardCharsets.UTF_8);
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package dk.dbc.weekresolver.service;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Optional;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.ejb.DependsOn;
+import jakarta.ejb.Singleton;
+import jakarta.ejb.Startup;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Maps the precomputed tables from the file given by {@code TABLE_SNAPSHOT_FILE}, if any, at startup (see
+ * {@link WeekCodeTableSnapshot}). The snapshot only saves time, so a file that can not be used is logged, and the
+ * tables are built as usual
+ */
+@Startup
+@Singleton
+@DependsOn("WeekCodeRegistryWatcher")
+public class WeekCodeTableSnapshotLoader {
+    private static final Logger LOGGER = LoggerFactory.getLogger(WeekCodeTableSnapshotLoader.class);
+
+    @Inject
+    @ConfigProperty(name = "TZ")
+    String timeZone;
+
+    @Inject
+    @ConfigProperty(name = "TABLE_SNAPSHOT_FILE")
+    Optional<String> tableSnapshotFile;
+
+    @PostConstruct
+    public void init() {
+        if (tableSnapshotFile.isEmpty() || tableSnapshotFile.get().isBlank()) {
+            return;
+        }
+
+        Path path = Paths.get(tableSnapshotFile.get().trim());
+        try {
+            WeekResolverEngine.of(timeZone).useTableSnapshot(WeekCodeTableSnapshot.map(path));
+        } catch (IOException | IllegalArgumentException exception) {
+            LOGGER.error("Building the week code tables, unable to use {}: {}", path, exception.getMessage());
+        }
+    }
+}
@@ -0,0 +1,1587 @@
+package dk.dbc.weekresolver.service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Clock;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.Month;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+
+import java.time.format.TextStyle;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+import dk.dbc.weekresolver.model.WeekCodeConfiguration;
+import dk.dbc.weekresolver.model.WeekCodeDecision;
+import dk.dbc.weekresolver.model.WeekCodeIntervalResult;
+import dk.dbc.weekresolver.model.WeekDescription;
+import dk.dbc.weekresolver.model.WeekNumbering;
+import dk.dbc.weekresolver.model.WeekResolverResult;
+import dk.dbc.weekresolver.model.YearPlanResult;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.slf4j.spi.LocationAwareLogger;
+
+/**
+ * Calculates week codes, current week codes and year plans for a time zone and a locale.
+ * <p>
+ * The engine holds no state that depends on the request, so a single instance per time zone and locale
+ * (see {@link #of(ZoneId, Locale)}) is shared by all callers and threads. All methods take the catalogue code
+ * and date as arguments.
+ * </p>
+ */
+public class WeekResolverEngine {
+    private static final Logger LOGGER = LoggerFactory.getLogger(WeekResolverEngine.class);
+
+    public static final ZoneId DEFAULT_ZONE = ZoneId.of("Europe/Copenhagen");
+    public static final Locale DEFAULT_LOCALE = new Locale("da", "DK");
+
+    // Years accepted in requests. Weekcodes have a four digit year, and the holidays and closing days of a year
+    // are only kept for these years, so requests can not fill the memory with years
+    public static final int FIRST_SUPPORTED_YEAR = 1900;
+    public static final int LAST_SUPPORTED_YEAR = 2999;
+
+    private static final ConcurrentHashMap<ZoneId, ConcurrentHashMap<Locale, WeekResolverEngine>> ENGINES = new ConcurrentHashMap<>();
+
+    private final ZoneId zoneId;
+    private final Locale locale;
+    private final ClosingDayCalendar closingDayCalendar;
+    private final WeekNumbering weekNumbering;
+    private final ConcurrentHashMap<WeekCodeConfiguration, Pipeline> pipelines = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<WeekCodeConfiguration, WeekCodeIndex> indexes = new ConcurrentHashMap<>();
+    private final BoundedCache<DescriptionKey, WeekDescription> descriptions = new BoundedCache<>("descriptions", 20000);
+    private final BoundedCache<YearPlanKey, YearPlanResult> yearPlans = new BoundedCache<>("yearPlans", 500);
+    private final CurrentWeekCodes currentWeekCodes = new CurrentWeekCodes(this, Clock.systemUTC());
+    private volatile Fingerprint fingerprint;
+    private volatile String calendarFingerprint;
+    private volatile WeekCodeTableSnapshot tableSnapshot;
+
+    // Built-in cataloguecodes, used unless the codes are loaded from a file (see WeekCodeRegistryWatcher)
+    public static final WeekCodeRegistry DEFAULT_REGISTRY;
+
+    // Current cataloguecodes. Replaced as a whole, so a request that reads it once sees a consistent set of codes
+    private static final AtomicReference<WeekCodeRegistry> REGISTRY;
+
+    // Unmodifiable view of the codes of the current registry
+    public static final Map<String, WeekCodeConfiguration> CODES = new CurrentCodes();
+
+    static {
+        HashMap<String, WeekCodeConfiguration> codes = new HashMap<>();
+        // No shiftday, no added weeks, allowing end-of-year and closingdays
+        codes.put("ACC", new WeekCodeConfiguration().allowEndOfYear().ignoreClosingDays()); // DMatV2
+        codes.put("ACE", new WeekCodeConfiguration().allowEndOfYear().ignoreClosingDays()); // DMatV2
+        codes.put("ACF", new WeekCodeConfiguration().allowEndOfYear().ignoreClosingDays());
+        codes.put("ACK", new WeekCodeConfiguration().allowEndOfYear().ignoreClosingDays());
+        codes.put("ACM", new WeekCodeConfiguration().allowEndOfYear().ignoreClosingDays());
+        codes.put("ACN", new WeekCodeConfiguration().allowEndOfYear().ignoreClosingDays());
+        codes.put("ACP", new WeekCodeConfiguration().allowEndOfYear().ignoreClosingDays());
+        codes.put("ACT", new WeekCodeConfiguration().allowEndOfYear().ignoreClosingDays()); // DMatV2
+        codes.put("BLG", new WeekCodeConfiguration().allowEndOfYear().ignoreClosingDays());
+
+        // Shiftday friday, add 1 week
+        codes.put("BKX", new WeekCodeConfiguration().addWeeks(1).withShiftDay(DayOfWeek.FRIDAY));
+
+        // Shiftday friday, add 3 weeks, allow end-of-year
+        codes.put("DPF", new WeekCodeConfiguration().addWeeks(3).withShiftDay(DayOfWeek.FRIDAY).allowEndOfYear()); // DataIO (automarc)
+        codes.put("FPF", new WeekCodeConfiguration().addWeeks(3).withShiftDay(DayOfWeek.FRIDAY).allowEndOfYear());
+        codes.put("GPF", new WeekCodeConfiguration().addWeeks(3).withShiftDay(DayOfWeek.FRIDAY).allowEndOfYear()); // DataIO (periodicJobs)
+
+        // Shiftday friday, add 1 week, allow end-of-year and ignore closing days
+        codes.put("EMO", new WeekCodeConfiguration().addWeeks(2).withShiftDay(DayOfWeek.FRIDAY).allowEndOfYear().ignoreClosingDays());
+        codes.put("EMS", new WeekCodeConfiguration().addWeeks(2).withShiftDay(DayOfWeek.FRIDAY).allowEndOfYear().ignoreClosingDays());
+        codes.put("EMM", new WeekCodeConfiguration().addWeeks(2).withShiftDay(DayOfWeek.FRIDAY).allowEndOfYear().ignoreClosingDays());
+        codes.put("EMK", new WeekCodeConfiguration().addWeeks(2).withShiftDay(DayOfWeek.FRIDAY).allowEndOfYear().ignoreClosingDays());
+
+        // Shiftday friday, add 2 weeks, allow end-of-year and ignore closing days
+        codes.put("LIT", new WeekCodeConfiguration().addWeeks(2).withShiftDay(DayOfWeek.FRIDAY).allowEndOfYear().ignoreClosingDays());
+
+        // No shiftday , add 1 week
+        codes.put("DAN", new WeekCodeConfiguration().addWeeks(1));
+        codes.put("DAR", new WeekCodeConfiguration().addWeeks(1));
+        codes.put("KBA", new WeekCodeConfiguration().addWeeks(1));
+        codes.put("SBA", new WeekCodeConfiguration().addWeeks(1));
+        codes.put("ABU", new WeekCodeConfiguration().addWeeks(1)); // Deprecated 201834, but apparently still used by dbckat ??
+
+        // No shiftday, add 1 week, allowing end-of-year and closingdays
+        codes.put("ARK", new WeekCodeConfiguration().addWeeks(1).allowEndOfYear().ignoreClosingDays());
+
+        // No shiftday, add 2 weeks, allowing end-of-year and closingdays
+        codes.put("VPT", new WeekCodeConfiguration().addWeeks(2).allowEndOfYear().ignoreClosingDays());
+
+        // Shiftday friday, add 1 week
+        codes.put("UTI", new WeekCodeConfiguration().addWeeks(1).withShiftDay(DayOfWeek.FRIDAY));
+
+        // Shiftday friday, add 2 weeks
+        codes.put("DBR", new WeekCodeConfiguration().addWeeks(2).withShiftDay(DayOfWeek.FRIDAY)); // DMatV2
+        codes.put("DLR", new WeekCodeConfiguration().addWeeks(2).withShiftDay(DayOfWeek.FRIDAY)); // DMatV2
+        codes.put("DBF", new WeekCodeConfiguration().addWeeks(2).withShiftDay(DayOfWeek.FRIDAY)); // DMatV2
+        codes.put("DLF", new WeekCodeConfiguration().addWeeks(2).withShiftDay(DayOfWeek.FRIDAY)); // DMatV2
+        codes.put("DBI", new WeekCodeConfiguration().addWeeks(2).withShiftDay(DayOfWeek.FRIDAY));
+        codes.put("FSB", new WeekCodeConfiguration().addWeeks(2).withShiftDay(DayOfWeek.FRIDAY));
+        codes.put("BKM", new WeekCodeConfiguration().addWeeks(2).withShiftDay(DayOfWeek.FRIDAY)); // DataIO, DMatV2
+        codes.put("DMO", new WeekCodeConfiguration().addWeeks(2).withShiftDay(DayOfWeek.FRIDAY));
+        codes.put("FSC", new WeekCodeConfiguration().addWeeks(2).withShiftDay(DayOfWeek.FRIDAY));
+        codes.put("IDU", new WeekCodeConfiguration().addWeeks(2).withShiftDay(DayOfWeek.FRIDAY));
+        codes.put("SNE", new WeekCodeConfiguration().addWeeks(2).withShiftDay(DayOfWeek.FRIDAY));
+        codes.put("LEK", new WeekCodeConfiguration().addWeeks(2).withShiftDay(DayOfWeek.FRIDAY));
+        codes.put("MMV", new WeekCodeConfiguration().addWeeks(2).withShiftDay(DayOfWeek.FRIDAY));
+        codes.put("FIV", new WeekCodeConfiguration().addWeeks(2).withShiftDay(DayOfWeek.FRIDAY));
+        codes.put("ERA", new WeekCodeConfiguration().addWeeks(2).withShiftDay(DayOfWeek.FRIDAY)); // DMatV2
+        codes.put("ERE", new WeekCodeConfiguration().addWeeks(2).withShiftDay(DayOfWeek.FRIDAY)); // DMatV2
+        codes.put("NLL", new WeekCodeConfiguration().addWeeks(2).withShiftDay(DayOfWeek.FRIDAY)); // DMatV2
+        codes.put("NLY", new WeekCodeConfiguration().addWeeks(2).withShiftDay(DayOfWeek.FRIDAY)); // DMatV2
+        codes.put("ERL", new WeekCodeConfiguration().addWeeks(2).withShiftDay(DayOfWeek.FRIDAY)); // DMatV2
+        codes.put("FLX", new WeekCodeConfiguration().addWeeks(2).withShiftDay(DayOfWeek.FRIDAY));
+
+        // Shiftday friday, add 1 week. Will be modified when the record is being edited
+        codes.put("BKR", new WeekCodeConfiguration().addWeeks(1).withShiftDay(DayOfWeek.FRIDAY));
+
+        // Greenland
+        codes.put("GBF", new WeekCodeConfiguration().addWeeks(2).withShiftDay(DayOfWeek.FRIDAY));
+
+        // Use default, most often used, value DIS197605. This may have to be corrected if the record
+        // is indeed an old unowned KB record or the like
+        codes.put("DIS", new WeekCodeConfiguration().withFixedWeekCode("197605"));
+
+        // Use code for incomplete record. Finished record may become 197604 or 197607
+        codes.put("OPR", new WeekCodeConfiguration().withFixedWeekCode("197601"));
+
+        // Use the month number instead of the week number
+        codes.put("PLA", new WeekCodeConfiguration().useMonthNumber().withShiftDay(DayOfWeek.FRIDAY));
+        codes.put("PLN", new WeekCodeConfiguration().useMonthNumber().withShiftDay(DayOfWeek.FRIDAY));
+
+        // Use fixed codes for these cataloguecodes
+        codes.put("DBT", new WeekCodeConfiguration().withFixedWeekCode("999999"));
+        codes.put("SDT", new WeekCodeConfiguration().withFixedWeekCode("999999"));
+        codes.put("DIG", new WeekCodeConfiguration().withFixedWeekCode("198507"));
+        codes.put("FFK", new WeekCodeConfiguration().withFixedWeekCode("999999"));
+        codes.put("FSF", new WeekCodeConfiguration().withFixedWeekCode("999999"));
+        codes.put("HOB", new WeekCodeConfiguration().withFixedWeekCode("197300"));
+        DEFAULT_REGISTRY = new WeekCodeRegistry(codes);
+        REGISTRY = new AtomicReference<>(DEFAULT_REGISTRY);
+    }
+
+    // Make sure we all agree on when week numbers start
+    static {
+        Calendar.getInstance().setFirstDayOfWeek(Calendar.MONDAY);
+        Calendar.getInstance().setMinimalDaysInFirstWeek(7);
+    }
+
+    private WeekResolverEngine(ZoneId zoneId, Locale locale) {
+        this.zoneId = zoneId;
+        this.locale = locale;
+        this.closingDayCalendar = ClosingDayCalendar.forLocale(locale);
+        this.weekNumbering = WeekNumbering.of(locale);
+    }
+
+    /**
+     * Get the shared engine for a time zone and locale
+     * @param zoneId Time zone used for dates in the results
+     * @param locale Locale used for week numbers and day names
+     * @return The engine
+     */
+    public static WeekResolverEngine of(ZoneId zoneId, Locale locale) {
+        return ENGINES.computeIfAbsent(zoneId, z -> new ConcurrentHashMap<>())
+                .computeIfAbsent(locale, l -> new WeekResolverEngine(zoneId, locale));
+    }
+
+    /**
+     * Create an engine that is not shared. It is not updated when the registry is replaced (see
+     * {@link #setRegistry(WeekCodeRegistry)}), so it is only for tests that change the state of an engine
+     * @param zoneId Time zone used for dates in the results
+     * @param locale Locale used for week numbers and day names
+     * @return The engine
+     */
+    static WeekResolverEngine unshared(ZoneId zoneId, Locale locale) {
+        return new WeekResolverEngine(zoneId, locale);
+    }
+
+    /**
+     * Get the shared engine for a time zone and the default locale
+     * @param timezone Time zone used for dates in the results
+     * @return The engine
+     */
+    public static WeekResolverEngine of(String timezone) {
+        return of(ZoneId.of(timezone), DEFAULT_LOCALE);
+    }
+
+    /**
+     * @return The current registry of cataloguecodes
+     */
+    public static WeekCodeRegistry getRegistry() {
+        return REGISTRY.get();
+    }
+
+    /**
+     * Replace the registry of cataloguecodes. Before the registry is swapped in, every engine compiles the pipelines
+     * of the configurations and builds their tables for {@link WeekCodeTable#FIRST_YEAR} to
+     * {@link WeekCodeTable#LAST_YEAR}, so requests for new configurations do not wait for them. Requests that have
+     * already read the old registry finish with it, but the pipelines of dropped configurations are not kept (see
+     * {@link #getPipeline(WeekCodeConfiguration)}). Everything else that is calculated per configuration (year plans,
+     * descriptions) stays valid, and the snapshots of current weekcodes are recalculated
+     * @param registry The new registry
+     */
+    public static synchronized void setRegistry(WeekCodeRegistry registry) {
+        List<WeekResolverEngine> engines = new ArrayList<>();
+        ENGINES.values().forEach(byLocale -> engines.addAll(byLocale.values()));
+        for (WeekResolverEngine engine : engines) {
+            for (WeekCodeConfiguration configuration : registry.getConfigurations()) {
+                engine.pipelines.computeIfAbsent(configuration, engine::compile).table.build();
+            }
+        }
+
+        WeekCodeRegistry previous = REGISTRY.getAndSet(registry);
+        for (WeekResolverEngine engine : engines) {
+            engine.pipelines.keySet().retainAll(registry.getConfigurations());
+            engine.indexes.keySet().retainAll(registry.getConfigurations());
+            engine.currentWeekCodes.refresh();
+        }
+        LOGGER.info("Replaced {} cataloguecodes with {} cataloguecodes ({} configurations)",
+                previous.getCodes().size(), registry.getCodes().size(), registry.getConfigurations().size());
+    }
+
+    public ZoneId getZoneId() {
+        return zoneId;
+    }
+
+    public Locale getLocale() {
+        return locale;
+    }
+
+    /**
+     * @return Snapshot of the current weekcode of every cataloguecode for today
+     */
+    public CurrentWeekCodes getCurrentWeekCodes() {
+        return currentWeekCodes;
+    }
+
+    /**
+     * Fingerprint of everything the results of the engine depend on, apart from the requested code and date: the
+     * time zone, the locale, the configuration of every cataloguecode and the closing days of the precomputed years.
+     * Calculated once per registry
+     * @return Short hex string, the same for engines with the same rules
+     */
+    public String getFingerprint() {
+        WeekCodeRegistry registry = getRegistry();
+        Fingerprint current = fingerprint;
+        if (current == null || current.registry != registry) {
+            current = new Fingerprint(registry, calculateFingerprint(registry));
+            fingerprint = current;
+        }
+        return current.value;
+    }
+
+    private String calculateFingerprint(WeekCodeRegistry registry) {
+        MessageDigest digest = sha256();
+        update(digest, zoneId.getId());
+        update(digest, getCalendarFingerprint());
+        for (Map.Entry<String, WeekCodeConfiguration> entry : new TreeMap<>(registry.getCodes()).entrySet()) {
+            update(digest, entry.getKey() + "=" + entry.getValue().fingerprint());
+        }
+        return hex(digest.digest());
+    }
+
+    /**
+     * Fingerprint of the locale and the closing days of the precomputed years, which are what the precomputed tables
+     * depend on, apart from the configuration. Calculated once
+     * @return Short hex string
+     */
+    public String getCalendarFingerprint() {
+        String result = calendarFingerprint;
+        if (result == null) {
+            MessageDigest digest = sha256();
+            update(digest, locale.toLanguageTag());
+            for (LocalDate date = LocalDate.of(WeekCodeTable.FIRST_YEAR, 1, 1);
+                 date.getYear() <= WeekCodeTable.LAST_YEAR; date = date.plusDays(1)) {
+                digest.update((byte) ((closingDayCalendar.isClosingDay(date, false) ? 1 : 0)
+                        | (closingDayCalendar.isClosingDay(date, true) ? 2 : 0)));
+            }
+            result = hex(digest.digest());
+            calendarFingerprint = result;
+        }
+        return result;
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException noSuchAlgorithmException) {
+            throw new IllegalStateException("SHA-256 is not available", noSuchAlgorithmException);
+        }
+    }
+
+    private static String hex(byte[] hash) {
+        StringBuilder hex = new StringBuilder();
+        for (int i = 0; i < 10; i++) {
+            hex.append(String.format("%02x", hash[i]));
+        }
+        return hex.toString();
+    }
+
+    /**
+     * Use the precomputed tables of a snapshot, instead of building them. Configurations that are not in the
+     * snapshot still build their tables
+     * @param snapshot The snapshot
+     * @throws IllegalArgumentException if the snapshot was written by an engine with other closing days
+     */
+    public void useTableSnapshot(WeekCodeTableSnapshot snapshot) throws IllegalArgumentException {
+        if (!snapshot.getCalendarFingerprint().equals(getCalendarFingerprint())) {
+            throw new IllegalArgumentException(String.format("Snapshot has calendar fingerprint %s, expected %s",
+                    snapshot.getCalendarFingerprint(), getCalendarFingerprint()));
+        }
+        tableSnapshot = snapshot;
+
+        // Pipelines are compiled again, with the tables of the snapshot
+        pipelines.clear();
+        int found = 0;
+        for (WeekCodeConfiguration configuration : getRegistry().getConfigurations()) {
+            getPipeline(configuration);
+            if (snapshot.getTable(configuration) != null) {
+                found++;
+            }
+        }
+        LOGGER.info("Using precomputed tables of {} of {} configurations from snapshot", found, getRegistry().getConfigurations().size());
+    }
+
+    /**
+     * Get the packed ints of all days in the precomputed table of a configuration, see {@link WeekCodeTableSnapshot}
+     * @param configuration The configuration
+     * @return The packed ints, one per day from the first day of {@link WeekCodeTable#FIRST_YEAR}
+     */
+    int[] getTable(WeekCodeConfiguration configuration) {
+        WeekCodeTable table = getPipeline(configuration).table;
+        int[] days = new int[WeekCodeTable.DAYS];
+        LocalDate date = LocalDate.of(WeekCodeTable.FIRST_YEAR, 1, 1);
+        for (int i = 0; i < days.length; i++, date = date.plusDays(1)) {
+            days[i] = table.lookup(date);
+        }
+        return days;
+    }
+
+    private static void update(MessageDigest digest, String value) {
+        digest.update(value.getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+    }
+
+    /**
+     * Get the configuration of a cataloguecode
+     * @param catalogueCode The cataloguecode, in any case
+     * @return The configuration
+     * @throws UnsupportedOperationException if the cataloguecode is not supported
+     */
+    public WeekCodeConfiguration getConfiguration(String catalogueCode) throws UnsupportedOperationException {
+        WeekCodeConfiguration configuration = getRegistry().getConfiguration(catalogueCode);
+        if (configuration == null) {
+            throw new UnsupportedOperationException(String.format("Cataloguecode %s is not supported", catalogueCode));
+        }
+        return configuration;
+    }
+
+    /**
+     * Calculate the weekcode for the given date depending on the cataloguecode
+     *
+     * @param catalogueCode The cataloguecode
+     * @param customDate The date
+     * @return a string with the weekcode
+     * @throws UnsupportedOperationException if the cataloguecode is not supported
+     */
+    public WeekResolverResult getWeekCode(String catalogueCode, LocalDate customDate) throws UnsupportedOperationException {
+        return getWeekCode(catalogueCode, customDate, false);
+    }
+
+    /**
+     * Calculate the weekcode for the given date depending on the cataloguecode, optionally with the decisions
+     * that moved the date. The explanation is calculated by the rules, bypassing the precomputed tables
+     *
+     * @param catalogueCode The cataloguecode
+     * @param customDate The date
+     * @param explain If true, then add the decisions to the result
+     * @return a string with the weekcode
+     * @throws UnsupportedOperationException if the cataloguecode is not supported
+     */
+    public WeekResolverResult getWeekCode(String catalogueCode, LocalDate customDate, boolean explain) throws UnsupportedOperationException {
+        LOGGER.debug("Calculating weekcode for catalogueCode={} and date={}", catalogueCode, customDate);
+
+        // Get the current date
+        LocalDate expectedDate = customDate;
+
+        // Select configuration of weekcode calculation
+        WeekCodeConfiguration configuration = getConfiguration(catalogueCode);
+
+        // If the configuration has a fixed weekcode, return this
+        if( configuration.getFixedWeekCode() != null ) {
+            return new WeekResolverResult(configuration, zoneId, locale, catalogueCode, expectedDate,
+                    getWeekDescription(configuration, customDate, configuration.getFixedWeekCode()))
+                    .withDecisions(explain ? new ArrayList<>() : null);
+        }
+
+        // Find the final date in the precomputed table. Dates outside the table are calculated by the rules
+        DecisionTrace.Recording trace = null;
+        if (explain) {
+            trace = new DecisionTrace.Recording();
+            expectedDate = getPipeline(configuration).weekCodeDate(customDate, trace);
+        } else {
+            expectedDate = getPipeline(configuration).getWeekCodeDate(customDate);
+        }
+
+        // Build final result
+        WeekResolverResult result = new WeekResolverResult(configuration, zoneId, locale, catalogueCode, expectedDate);
+        result.setDescription(getWeekDescription(configuration, customDate, result.getWeekCode()));
+        if (trace != null) {
+            result.setDecisions(trace.getDecisions());
+        }
+        return result;
+    }
+
+    /**
+     * Get only the weekcode for the given date, without the description and result object. Used when
+     * resolving many dates for the same cataloguecode
+     *
+     * @param configuration Configuration of the cataloguecode, see {@link #getConfiguration(String)}
+     * @param catalogueCode The cataloguecode
+     * @param date The date
+     * @return The weekcode
+     */
+    public String resolveWeekCode(WeekCodeConfiguration configuration, String catalogueCode, LocalDate date) {
+        return WeekResolverResult.weekCodeOf(configuration, locale, catalogueCode, getPipeline(configuration).getWeekCodeDate(date));
+    }
+
+    /**
+     * Find the dates that give a weekcode (within the precomputed years), and the description of the week
+     * that ends with the last of these dates
+     *
+     * @param weekCode The weekcode, the cataloguecode followed by the year and the week (or month)
+     * @return The dates and the description, or null if no date within the precomputed years gives the weekcode,
+     * or more than one run of days does, see {@link WeekCodeIndex}
+     * @throws UnsupportedOperationException if the cataloguecode is not supported or has a fixed weekcode
+     */
+    public WeekCodeIntervalResult getWeekCodeInterval(String weekCode) throws UnsupportedOperationException {
+        String catalogueCode = weekCode.substring(0, 3).toUpperCase();
+        WeekCodeConfiguration configuration = getConfiguration(catalogueCode);
+        if (configuration.getFixedWeekCode() != null) {
+            throw new UnsupportedOperationException(String.format("Cataloguecode %s has a fixed weekcode", catalogueCode));
+        }
+
+        WeekCodeIndex.Interval interval = getForCurrentRegistry(indexes, configuration, this::buildIndex).getInterval(weekCode.substring(3));
+        if (interval == null) {
+            return null;
+        }
+
+        // The week with the shiftday that ends the interval describes the weekcode (same as the row in the year plan)
+        LocalDate describedDate = getMonday(interval.getTo());
+        if (describedDate.isBefore(interval.getFrom())) {
+            describedDate = interval.getFrom();
+        }
+        return new WeekCodeIntervalResult()
+                .withCatalogueCode(catalogueCode)
+                .withWeekCode(catalogueCode + weekCode.substring(3))
+                .withFrom(interval.getFrom())
+                .withTo(interval.getTo())
+                .withDescription(getWeekCode(catalogueCode, describedDate).getDescription());
+    }
+
+    /**
+     * @param configuration Configuration of a cataloguecode
+     * @return True if the days that give each weekcode of the configuration are a single run within the
+     * precomputed years, see {@link WeekCodeIndex#hasSingleRuns()}
+     */
+    boolean hasSingleRuns(WeekCodeConfiguration configuration) {
+        return getForCurrentRegistry(indexes, configuration, this::buildIndex).hasSingleRuns();
+    }
+
+    private WeekCodeIndex buildIndex(WeekCodeConfiguration configuration) {
+        Pipeline pipeline = getPipeline(configuration);
+        return new WeekCodeIndex(date -> WeekResolverResult.weekCodeOf(configuration, locale, "", pipeline.getWeekCodeDate(date)),
+                LocalDate.of(WeekCodeTable.FIRST_YEAR, Month.JANUARY, 1), LocalDate.of(WeekCodeTable.LAST_YEAR, Month.DECEMBER, 31));
+    }
+
+    /**
+     * Calculate the final date that gives the weekcode for the given date, by use of the rules
+     * @param configuration Configuration of the cataloguecode
+     * @param customDate The date
+     * @return The final date
+     */
+    LocalDate calculateWeekCodeDate(WeekCodeConfiguration configuration, LocalDate customDate) {
+        return getPipeline(configuration).weekCodeDate(customDate, DecisionTrace.NONE);
+    }
+
+    private Boolean previousWeekIsTooShort(LocalDate date, int required) {
+        LocalDate previousDate = getMonday(date).minusDays(1);
+        LOGGER.debug("Checking for short week from {}", previousDate);
+
+        // Short weeks is only a problem around the year change, Easter is handled differently
+        // since a whole week disappears.
+        if (previousDate.getMonth() != Month.JANUARY) {
+            LOGGER.debug("Not a date within january, so no check for short weeks");
+            return false;
+        }
+
+        // Count the number of working days, then check if there is the required amount
+        int numWorkingDays = closingDayCalendar.numberOfWorkingDaysInWeekOf(previousDate);
+
+        return numWorkingDays < required;
+    }
+
+    /**
+     * Calculate the current weekcode for the given date depending on the cataloguecode
+     *
+     * @param catalogueCode The cataloguecode
+     * @param customDate The date
+     * @return a string with the weekcode
+     * @throws UnsupportedOperationException if the cataloguecode is not supported
+     */
+    public WeekResolverResult getCurrentWeekCode(String catalogueCode, LocalDate customDate) throws UnsupportedOperationException {
+        return getCurrentWeekCode(catalogueCode, customDate, false);
+    }
+
+    /**
+     * Calculate the current weekcode for the given date depending on the cataloguecode, optionally with the
+     * decisions that moved the date. The explanation is calculated by the rules, bypassing the precomputed tables
+     *
+     * @param catalogueCode The cataloguecode
+     * @param customDate The date
+     * @param explain If true, then add the decisions to the result
+     * @return a string with the weekcode
+     * @throws UnsupportedOperationException if the cataloguecode is not supported
+     */
+    public WeekResolverResult getCurrentWeekCode(String catalogueCode, LocalDate customDate, boolean explain) throws UnsupportedOperationException {
+        LOGGER.debug("Calculating current weekcode for catalogueCode={} and date={}", catalogueCode, customDate);
+
+        // Get the current date
+        LocalDate expectedDate = customDate;
+
+        // Select configuration of weekcode calculation
+        WeekCodeConfiguration configuration = getConfiguration(catalogueCode);
+
+        // If the configuration has a fixed weekcode, return this
+        if( configuration.getFixedWeekCode() != null ) {
+            return new WeekResolverResult(configuration, zoneId, locale, catalogueCode, expectedDate,
+                    getWeekDescription(configuration, customDate, configuration.getFixedWeekCode()))
+                    .withDecisions(explain ? new ArrayList<>() : null);
+        }
+
+        // Algorithm: Do note that we always allow end-of-year, since we just want the
+        //            weekcode for a working day, not the forward weekcode that is set
+        //            when records is created since the current weekcode is checked against
+        //            the release week given by the records weekcode (returned by getWeekCode)
+        //   step 1: Do we honor closing days ?, if not then return weekcode for today
+        //   step 2: If today is a closing day, then return weekcode for the first not-closed day
+        //   step 3: Otherwise check if we are on or before shiftday
+        DecisionTrace.Recording trace = null;
+        if (explain) {
+            trace = new DecisionTrace.Recording();
+            expectedDate = getPipeline(configuration).currentWeekCodeDate(customDate, trace);
+        } else {
+            expectedDate = getPipeline(configuration).getCurrentWeekCodeDate(customDate);
+        }
+
+        // Build result
+        WeekResolverResult result = new WeekResolverResult(configuration, zoneId, locale, catalogueCode, expectedDate);
+        result.setDescription(getWeekDescription(configuration, customDate, result.getWeekCode()));
+        if (trace != null) {
+            result.setDecisions(trace.getDecisions());
+        }
+        return result;
+    }
+
+    /**
+     * Calculate the final date that gives the current weekcode for the given date, by use of the rules
+     * @param configuration Configuration of the cataloguecode
+     * @param customDate The date
+     * @return The final date
+     */
+    LocalDate calculateCurrentWeekCodeDate(WeekCodeConfiguration configuration, LocalDate customDate) {
+        return getPipeline(configuration).currentWeekCodeDate(customDate, DecisionTrace.NONE);
+    }
+
+    /**
+     * Find the first day after the given date that gives another result for the cataloguecode (without the
+     * decisions). The result only depends on the final date, and the week and year of the given date (through the
+     * description), so this is at most a week later: at the next shiftday or closing-day boundary, or the next
+     * midnight if the final date changes every day
+     *
+     * @param catalogueCode The cataloguecode
+     * @param date The date
+     * @param current If true, then for the current weekcode, otherwise for the weekcode
+     * @return The first date with another result
+     * @throws UnsupportedOperationException if the cataloguecode is not supported
+     */
+    public LocalDate getNextResultChange(String catalogueCode, LocalDate date, boolean current) throws UnsupportedOperationException {
+        Pipeline pipeline = getPipeline(getConfiguration(catalogueCode));
+        LocalDate finalDate = current ? pipeline.getCurrentWeekCodeDate(date) : pipeline.getWeekCodeDate(date);
+        LocalDate next = date.plusDays(1);
+        while (next.getDayOfWeek() != DayOfWeek.MONDAY && next.getYear() == date.getYear()
+                && finalDate.equals(current ? pipeline.getCurrentWeekCodeDate(next) : pipeline.getWeekCodeDate(next))) {
+            next = next.plusDays(1);
+        }
+        return next;
+    }
+
+    // Pipelines (and their tables) are shared by all codes with the same configuration
+    private Pipeline getPipeline(WeekCodeConfiguration configuration) {
+        Pipeline pipeline = pipelines.get(configuration);
+        if (pipeline == null) {
+            pipeline = getForCurrentRegistry(pipelines, configuration, this::compile);
+        }
+        return pipeline;
+    }
+
+    /**
+     * @param configuration The configuration
+     * @return True if the pipeline of the configuration is kept
+     */
+    boolean hasPipeline(WeekCodeConfiguration configuration) {
+        return pipelines.containsKey(configuration);
+    }
+
+    /**
+     * Get a value that is kept per configuration, and only kept for the configurations of the current registry.
+     * A request that still uses a replaced registry gets a value for a dropped configuration, which is not kept.
+     * The registry is checked again after the value is added, in case it was replaced meanwhile, since
+     * {@link #setRegistry(WeekCodeRegistry)} only drops the values that were there when the registry was swapped
+     */
+    private static <T> T getForCurrentRegistry(ConcurrentHashMap<WeekCodeConfiguration, T> values,
+                                               WeekCodeConfiguration configuration, Function<WeekCodeConfiguration, T> create) {
+        if (!getRegistry().getConfigurations().contains(configuration)) {
+            return create.apply(configuration);
+        }
+        T value = values.computeIfAbsent(configuration, create);
+        if (!getRegistry().getConfigurations().contains(configuration)) {
+            values.remove(configuration, value);
+        }
+        return value;
+    }
+
+    /**
+     * Compile a configuration into a pipeline that only has the steps used by the configuration
+     * @param configuration The configuration
+     * @return The pipeline
+     */
+    private Pipeline compile(WeekCodeConfiguration configuration) {
+        if (configuration.getFixedWeekCode() != null) {
+            return new FixedPipeline(configuration);
+        }
+        if (configuration.getIgnoreClosingDays()) {
+            return new IgnoreClosingDaysPipeline(configuration);
+        }
+        if (configuration.getShiftDay() == null) {
+            return new ClosingDaysPipeline(configuration);
+        }
+        return new ShiftDayPipeline(configuration);
+    }
+
+    /**
+     * Get the year plan for a cataloguecode. Year plans are cached per configuration, and each caller gets a copy
+     * @param catalogueCode The cataloguecode
+     * @param year The year
+     * @param showAbnormalDayNames Add the name of the day to dates that are not on the usual day of the week
+     * @param displayAllDays Include all columns
+     * @return The year plan
+     * @throws UnsupportedOperationException if the cataloguecode is not supported, or has no year plan (see {@link #hasYearPlan(String)})
+     * @throws IllegalArgumentException if the year is not supported (see {@link #isSupportedYear(int)})
+     */
+    public YearPlanResult getYearPlan(String catalogueCode, Integer year, Boolean showAbnormalDayNames, Boolean displayAllDays) throws UnsupportedOperationException {
+        return new YearPlanResult(getYearPlan(yearPlanKey(catalogueCode, year, showAbnormalDayNames, displayAllDays)));
+    }
+
+    /**
+     * Year plans run until a week with production, which requires a shiftday
+     * @param catalogueCode The cataloguecode
+     * @return True if the cataloguecode has a shiftday, and thereby a year plan
+     * @throws UnsupportedOperationException if the cataloguecode is not supported
+     */
+    public boolean hasYearPlan(String catalogueCode) throws UnsupportedOperationException {
+        return getConfiguration(catalogueCode).getShiftDay() != null;
+    }
+
+    /**
+     * @param catalogueCode The cataloguecode
+     * @param year The year
+     * @param showAbnormalDayNames Add the name of the day to dates that are not on the usual day of the week
+     * @param displayAllDays Include all columns
+     * @return Key of the year plan, equal for all codes with the same configuration
+     * @throws UnsupportedOperationException if the cataloguecode is not supported, or has no year plan
+     * @throws IllegalArgumentException if the year is not supported (see {@link #isSupportedYear(int)})
+     */
+    YearPlanKey yearPlanKey(String catalogueCode, Integer year, Boolean showAbnormalDayNames, Boolean displayAllDays) throws UnsupportedOperationException, IllegalArgumentException {
+        if (!isSupportedYear(year)) {
+            throw new IllegalArgumentException(String.format("Year %d is outside the supported years %d-%d",
+                    year, FIRST_SUPPORTED_YEAR, LAST_SUPPORTED_YEAR));
+        }
+        WeekCodeConfiguration configuration = getConfiguration(catalogueCode);
+        if (configuration.getShiftDay() == null) {
+            throw new UnsupportedOperationException(String.format("Cataloguecode %s has no year plan", catalogueCode));
+        }
+        return new YearPlanKey(configuration, catalogueCode.toUpperCase(), year, showAbnormalDayNames, displayAllDays);
+    }
+
+    /**
+     * @param key Key of the year plan, see {@link #yearPlanKey(String, Integer, Boolean, Boolean)}
+     * @return The cached year plan, which is shared, so it must not be modified
+     */
+    YearPlanResult getYearPlan(YearPlanKey key) {
+        return yearPlans.get(key, k -> calculateYearPlan(k.configuration, k.catalogueCode,
+                k.year, k.showAbnormalDayNames, k.displayAllDays));
+    }
+
+    /**
+     * Calculate the year plan in a single forward sweep over the mondays, from the second-last monday of the previous
+     * year until the first weeks of the next year. The sweep carries the date of the last shiftday with production
+     * (which is the first day of the next weekcode), and the row of the previous week, which is merged with
+     * the current row when both weeks have the same weekcode. Not cached (see {@link #getYearPlan(YearPlanKey)})
+     */
+    YearPlanResult calculateYearPlan(WeekCodeConfiguration configuration, String catalogueCode, int year,
+                                             boolean showAbnormalDayNames, boolean displayAllDays) {
+        YearPlanResult yearPlan = new YearPlanResult().withYear(String.format("%04d", year));
+
+        // Add headers
+        yearPlan.add(new ArrayList<>(getHeadersAsRow(displayAllDays)));
+
+        // Find first day of the year. If not a monday, then move backwards to find the second-last monday in the previous year
+        LocalDate currentDate = LocalDate.of(year, Month.JANUARY, 1);
+        while (currentDate.getDayOfWeek() != DayOfWeek.MONDAY) {
+            currentDate = currentDate.minusDays(1);
+        }
+        currentDate = currentDate.minusWeeks(1);
+
+        // Only the first week has to look backwards for the last shiftday, the following weeks get it from the sweep
+        Pipeline pipeline = getPipeline(configuration);
+        LocalDate lastShiftDate = configuration.getShiftDay() != null ? findLastShiftDate(configuration, currentDate) : null;
+
+        // Codes without production weeks would never stop on a production week, so the sweep has a hard limit
+        LocalDate lastDate = LocalDate.of(year + 1, Month.FEBRUARY, 1);
+
+        // The first week is only used for merging with the second week, it is never added by itself
+        WeekResolverResult previousResult = null;
+        List<YearPlanResult.YearPlanRowColumn> pendingRow = null;
+        WeekResolverResult currentResult;
+        do {
+            currentResult = new WeekResolverResult(configuration, zoneId, locale, catalogueCode, pipeline.getWeekCodeDate(currentDate));
+            String weekCodeShort = configuration.getFixedWeekCode() != null
+                    ? configuration.getFixedWeekCode().substring(3)
+                    : currentResult.getWeekCode().substring(3);
+            DayOfWeek shiftDay = configuration.getShiftDay() != null
+                    ? adjustShiftDay(currentDate, configuration.getShiftDay(), configuration.getAllowEndOfYear())
+                    : null;
+            currentResult.setDescription(describeWeek(configuration, currentDate, weekCodeShort, shiftDay, lastShiftDate));
+            if (isProductionShiftDay(shiftDay)) {
+                lastShiftDate = currentDate.plusDays(shiftDay.getValue() - 1);
+            }
+
+            if (previousResult != null) {
+                // Merge with the previous row if the weekcode is the same (typical the first/last weeks)
+                if (previousResult.getWeekCode().equals(currentResult.getWeekCode()) && currentResult.getDescription().getWeekCodeFirst() != null) {
+                    currentResult.getDescription().setWeekCodeFirst(previousResult.getDescription().getWeekCodeFirst());
+                    currentResult.getDescription().setWeekNumber(previousResult.getDescription().getWeekNumber() + " + " + currentResult.getDescription().getWeekNumber());
+                    pendingRow = null;
+                }
+                if (pendingRow != null) {
+                    yearPlan.add(pendingRow);
+                }
+                pendingRow = getResultAsRow(currentResult, showAbnormalDayNames, displayAllDays);
+            }
+
+            previousResult = currentResult;
+            currentDate = currentDate.plusWeeks(1);
+        } while (currentDate.isBefore(lastDate) // Never run past the first weeks of the next year
+                && (currentDate.getYear() <= year // Run from last weeks of previous year, through the entire requested year
+                || (currentDate.getYear() == year + 1 && weekNumbering.weekOfWeekBasedYear(currentDate) < 2) // Include first weeks of next year
+                || currentResult.getDescription().getNoProduction())); // Never stop the yearplan with a non-production year
+
+        if (pendingRow != null) {
+            yearPlan.add(pendingRow);
+        }
+        return yearPlan;
+    }
+
+    private DayOfWeek adjustShiftDay(LocalDate expectedDate, DayOfWeek shiftDay, boolean allowEndOfYear) {
+        LOGGER.debug("Adjusting shiftday for {} with shiftday {}", expectedDate, shiftDay);
+
+        // Find the date of the shiftday in this week
+        LocalDate dateOfShiftDay = expectedDate;
+        dateOfShiftDay = dateOfShiftDay.plusDays(shiftDay.getValue() - expectedDate.getDayOfWeek().getValue());
+        LOGGER.debug("ExpectedDate is {} shiftday is then {}", expectedDate, dateOfShiftDay);
+
+        // SPECIAL CASES:
+        // 1: If the expected date falls inside the Easter week, then there is no shiftday
+        LOGGER.debug("Checking if {} is in the Easter week", expectedDate);
+        if( isEasterWeek(expectedDate) ) {
+            LOGGER.debug("Sunday this week is Easter sunday. No shiftday for this week");
+            return null;
+        }
+        // 2: If the expected date falls in the pentecost week and shiftday is friday, then move
+        //    the shiftday back to thursday
+        LOGGER.debug("Checking if {} is in the pentecost week", expectedDate);
+        if( isPentecostWeek(expectedDate) && shiftDay == DayOfWeek.FRIDAY ) {
+            LOGGER.debug("Sunday this week is pentecost and shiftday is friday. Move shiftday to thursday");
+
+            // Pentecost may conflict with "Grundlovsdag", in which case the shiftday must move back another day
+            LocalDate shiftdayCandidate = getFriday(expectedDate).minusDays(1);
+            if (isClosingDay(shiftdayCandidate, false)) {
+                LOGGER.debug("{} minus 1 day (thursday) is a closing day, move back to wednesday", expectedDate);
+                return DayOfWeek.WEDNESDAY;
+            }
+            return DayOfWeek.THURSDAY;
+        }
+        // 3: If the expected date falls in the week before may 1st. or "Grundlovsdag", then move
+        //    the shiftday back to thursday
+        if (isWeekBeforeMayFirst(expectedDate) || isWeekBeforeConstitutionDay(expectedDate)) {
+            LOGGER.debug("Sunday this week is the week before may 1st. or Grundlovsdag. Move shiftday to thursday");
+            return DayOfWeek.THURSDAY;
+        }
+
+        //  If the expected date falls in the week before Easter and shiftday is friday, then move shiftday back 1 day
+        LOGGER.debug("Checking if the week after {} is the Easter week and shiftday {} is friday", expectedDate, shiftDay);
+        if( shiftDay == DayOfWeek.FRIDAY && isEasterWeek(expectedDate.plusWeeks(1)) ) {
+            LOGGER.debug("Shiftday is a friday and next week is the Easter week. Shiftday adjusted to THURSDAY");
+            return DayOfWeek.THURSDAY;
+        }
+
+        // Adjust the shiftday back until it is not a closing day. This may potentially roll
+        // back into the last week, but if we reach monday, then the shiftday is in effect no matter what,
+        // and we will end up adding a week as expected.
+        while( isClosingDay(dateOfShiftDay, allowEndOfYear) && dateOfShiftDay.getDayOfWeek() != DayOfWeek.MONDAY ) {
+            dateOfShiftDay = dateOfShiftDay.minusDays(1);
+            LOGGER.debug("Moving shiftday back 1 day to {}", dateOfShiftDay);
+        }
+
+        // If the next week is week 52 (or 53), Christmas weeks, then move the shiftday back 1 day.
+        // Although .... *sigh* .... in the case were the week before Christmas is early, empirical defined
+        // as "shiftday falls before december 20."
+        LOGGER.debug("Checking if next week from {} is start of the Christmas days", dateOfShiftDay);
+        int weekOfShiftDay = weekNumbering.weekOfWeekBasedYear(dateOfShiftDay);
+        if (weekOfShiftDay >= 51 && dateOfShiftDay.getDayOfWeek() != DayOfWeek.MONDAY && dateOfShiftDay.getDayOfMonth() >= 20) {
+            dateOfShiftDay = dateOfShiftDay.minusDays(1);
+            LOGGER.debug("Shiftday adjusted to {} due to next week being Christmas week", dateOfShiftDay);
+        }
+
+        LOGGER.debug("Final shiftday is set to {}", dateOfShiftDay.getDayOfWeek());
+        return dateOfShiftDay.getDayOfWeek();
+    }
+
+    /**
+     * Check if the given date is a closed date
+     * @param expectedDate The calendar date expected as release date
+     * @param allowEndOfYearWeeks If set to true, then week 52 and 53 is allowed, otherwise these days are also closing days
+     * @return True if the date is a closing day, otherwise false
+     */
+    private boolean isClosingDay(LocalDate expectedDate, boolean allowEndOfYearWeeks) {
+        return closingDayCalendar.isClosingDay(expectedDate, allowEndOfYearWeeks);
+    }
+
+    private LocalDate getMonday(LocalDate date) {
+        return date.minusDays( date.getDayOfWeek().getValue() - DayOfWeek.MONDAY.getValue());
+    }
+
+    private LocalDate getFriday(LocalDate date) {
+        return date.plusDays( DayOfWeek.FRIDAY.getValue() - date.getDayOfWeek().getValue());
+    }
+
+    /**
+     * Check if the given date is a date within the Easter week
+     * @param expectedDate The date to check
+     * @return True if the date is within the Easter week
+     */
+    private boolean isEasterWeek(LocalDate expectedDate) {
+
+        // Get the date of sunday in this week and the Easter sunday
+        LocalDate dateOfSunday = getDateOfSunday(expectedDate);
+        LocalDate easterSunday = Holidays.of(dateOfSunday.getYear()).getEasterSunday();
+
+        // Check if the expected date is before Maundy Thursday
+        if( dateOfSunday.isEqual(easterSunday)) {
+            LOGGER.debug("{} is in the Easter week", expectedDate);
+            return true;
+        }
+
+        // Expected date is not somewhere in the Easter period.
+        LOGGER.debug("{} is not in the Easter week", expectedDate);
+        return false;
+    }
+
+    /**
+     * Check if the given date is a date within the pentecost week
+     * @param expectedDate The date to check
+     * @return True if the date is within the pentecost week
+     */
+    private boolean isPentecostWeek(LocalDate expectedDate) {
+
+        // Get the date of sunday in this week and pentecost. 7. sunday after Easter sunday
+        LocalDate dateOfSunday = getDateOfSunday(expectedDate);
+        LocalDate pentecost = Holidays.of(dateOfSunday.getYear()).getPentecost();
+        LOGGER.debug("Pentecost is {}", pentecost);
+        if( dateOfSunday.isEqual(pentecost) ) {
+            LOGGER.debug("{} is ", dateOfSunday);
+            return true;
+        }
+
+        // Expected date is not somewhere in the pentecost period.
+        LOGGER.debug("{} is not in the pentecost week", expectedDate);
+        return false;
+    }
+
+    private boolean isWeekBeforeMayFirst(LocalDate expectedDate) {
+
+        // Get the date of sunday in this week and Easter sunday
+        LocalDate dateOfSunday = getDateOfSunday(expectedDate);
+
+        if (dateOfSunday.getMonth() == Month.APRIL && dateOfSunday.getDayOfMonth() == 30) {
+            LOGGER.debug("{} is the day before may 1st.", dateOfSunday);
+            return true;
+        } else {
+            LOGGER.debug("{} is not the day before may 1st.", dateOfSunday);
+            return false;
+        }
+    }
+
+    // Ahem.. "Constitution Day" is not the most correct translation of "Grundlovsday", but anywho.. :)
+    private boolean isWeekBeforeConstitutionDay(LocalDate expectedDate) {
+
+        // Get the date of sunday in this week and Easter sunday
+        LocalDate dateOfSunday = getDateOfSunday(expectedDate);
+
+        if (dateOfSunday.getMonth() == Month.JUNE && dateOfSunday.getDayOfMonth() == 4) {
+            LOGGER.debug("{} is the day before Grundlovsdag", dateOfSunday);
+            return true;
+        } else {
+            LOGGER.debug("{} is not the day before Grundlovsdag", dateOfSunday);
+            return false;
+        }
+    }
+
+    /**
+     * Check if the given date is a date within the Easter or related closing days
+     * (pentecost, ascension Day)
+     * @param expectedDate The date to check
+     * @return True if the date is within the Easter, pentecost or ascension days, otherwise false
+     */
+    static boolean isEasterAndRelatedClosingDay(LocalDate expectedDate) {
+
+        Holidays holidays = Holidays.of(expectedDate.getYear());
+        LOGGER.debug("Easter sunday for {} is {}", expectedDate.getYear(), holidays.getEasterSunday());
+
+        // Check if the expected date is within maundy thursday and Easter monday
+        if( holidays.isWithinEaster(expectedDate) ) {
+            LOGGER.debug("{} is within Easter", expectedDate);
+            return true;
+        }
+
+        // Whit monday, the day after pentecost
+        if( expectedDate.isEqual(holidays.getWhitMonday()) ) { // Check for withsun
+            LOGGER.debug("{} is withsun", expectedDate);
+            return true;
+        }
+
+        // Ascension day. 6.th thursday after maundy thursday. Check also for pinched friday
+        if( expectedDate.isEqual(holidays.getAscensionDay()) ) {
+            LOGGER.debug("{} is ascension day", expectedDate);
+            return true;
+        }
+        if( expectedDate.isEqual(holidays.getPinchedFridayAfterAscensionDay()) ) {
+            LOGGER.debug("{} is pinched friday after ascension day", expectedDate);
+            return true;
+        }
+
+        // Check for 'store bededag', tounge-in-cheek english name 'prayers day'
+        LocalDate prayersDay = holidays.getPrayersDay();
+        if (prayersDay != null) {
+            if (expectedDate.isEqual(prayersDay)) {
+                LOGGER.debug("{} is prayers day ('store bededag')", expectedDate);
+                return true;
+            }
+            if (expectedDate.isEqual(prayersDay.plusDays(1)) && expectedDate.getDayOfWeek() == DayOfWeek.FRIDAY) {
+                LOGGER.debug("{} is pinched friday after prayers day ('store bededag')", expectedDate);
+                return true;
+            }
+        }
+
+        // Expected date is not somewhere in the Easter period or on any related closing days
+        LOGGER.debug("{} is not Easter, pentecost or ascension day", expectedDate);
+        return false;
+    }
+
+    private LocalDate getDateOfSunday(LocalDate expectedDate) {
+        LocalDate dateOfSunday = expectedDate.plusDays(DayOfWeek.SUNDAY.getValue() - expectedDate.getDayOfWeek().getValue());
+        LOGGER.debug("Sunday in this week is {}", dateOfSunday);
+        return dateOfSunday;
+    }
+
+    /**
+     * Get the description of the week of the given date. Descriptions are cached, and each caller gets a copy,
+     * since the description is set on a result that the caller may modify
+     * @param configuration Configuration of the cataloguecode
+     * @param date The date
+     * @param weekcode The weekcode of the date
+     * @return The description
+     */
+    private WeekDescription getWeekDescription(WeekCodeConfiguration configuration, LocalDate date, String weekcode) {
+        DescriptionKey key = new DescriptionKey(configuration, date, weekcode.substring(3));
+        return new WeekDescription(descriptions.get(key, k -> calculateWeekDescription(configuration, date, weekcode)));
+    }
+
+    /**
+     * @return Cache of week descriptions
+     */
+    public BoundedCache<?, ?> getDescriptionCache() {
+        return descriptions;
+    }
+
+    /**
+     * @return All caches of the engine
+     */
+    public List<BoundedCache<?, ?>> getCaches() {
+        return List.of(descriptions, yearPlans);
+    }
+
+    // Not cached, see getWeekDescription()
+    WeekDescription calculateWeekDescription(WeekCodeConfiguration configuration, LocalDate date, String weekcode) {
+        DayOfWeek shiftDay = null;
+        LocalDate lastShiftDate = null;
+        if (configuration.getShiftDay() != null) {
+            shiftDay = adjustShiftDay(date, configuration.getShiftDay(), configuration.getAllowEndOfYear());
+            lastShiftDate = findLastShiftDate(configuration, getMonday(date));
+        }
+        return describeWeek(configuration, date, weekcode.substring(3), shiftDay, lastShiftDate);
+    }
+
+    /**
+     * Find the last shiftday before the given week, in a week with production. This is the first day of the weekcode
+     * given in the week
+     * @param configuration Configuration of the cataloguecode, must have a shiftday
+     * @param monday Monday in the week
+     * @return The date of the shiftday
+     */
+    private LocalDate findLastShiftDate(WeekCodeConfiguration configuration, LocalDate monday) {
+        // Move back week after week until we reach a week when we have a shiftday
+        LocalDate previousMonday = monday;
+        DayOfWeek previousShiftDay;
+        do {
+            previousMonday = previousMonday.minusWeeks(1);
+            previousShiftDay = adjustShiftDay(previousMonday, configuration.getShiftDay(), configuration.getAllowEndOfYear());
+        } while (!isProductionShiftDay(previousShiftDay));
+        return previousMonday.plusDays(previousShiftDay.getValue() - 1);
+    }
+
+    // When the adjusted shiftday is monday, it means that the shiftday could not be shifted any more backwards,
+    // which (as no shiftday at all) indicates that we have a week without production
+    private static boolean isProductionShiftDay(DayOfWeek adjustedShiftDay) {
+        return adjustedShiftDay != null && adjustedShiftDay != DayOfWeek.MONDAY;
+    }
+
+    /**
+     * Describe a week
+     * @param configuration Configuration of the cataloguecode
+     * @param date A date in the week
+     * @param weekCodeShort The weekcode without the cataloguecode
+     * @param shiftDay The adjusted shiftday of the week, null if the configuration has no shiftday or the week has no shiftday
+     * @param lastShiftDate The last shiftday with production before the week, null if the configuration has no shiftday
+     * @return The description
+     */
+    private WeekDescription describeWeek(WeekCodeConfiguration configuration, LocalDate date, String weekCodeShort,
+                                         DayOfWeek shiftDay, LocalDate lastShiftDate) {
+        WeekDescription description = new WeekDescription();
+
+        // Find monday in this week since all calculations of dates is done from that day
+        LocalDate monday = date.minusDays(date.getDayOfWeek().getValue() - 1);
+
+        // Set week number of actual week
+        description.setWeekNumber(String.valueOf(weekNumbering.weekOfWeekBasedYear(monday)));
+
+        // BKM code
+        description.setWeekCodeShort(weekCodeShort);
+
+        // Shiftday. The shiftday indicates if we have a week without production
+        if (isProductionShiftDay(shiftDay)) {
+            description.setShiftDay(fromLocalDate(monday.plusDays(shiftDay.getValue() - 1)));
+        } else {
+            description.setNoProduction(true);
+        }
+
+        // The first assignment of this weekcode, is the last shiftday before this week
+        if (lastShiftDate != null) {
+            description.setWeekCodeFirst(fromLocalDate(lastShiftDate));
+            LOGGER.debug("WEEKCODE_FIRST = {}", description.getWeekCodeFirst());
+        }
+
+        // If week of no production, then leave other fields than the starting date blank
+        // (starting date must be set to be able to merge with the next row when presenting the data)
+        if (description.getNoProduction()) {
+            return description;
+        }
+
+        // Last day this weekcode is assigned
+        description.setWeekCodeLast(fromLocalDate(fromDate(description.getShiftDay()).minusDays(1)));
+        LOGGER.debug("WEEKCODE_LAST = {}", description.getWeekCodeLast());
+
+        // Book cart the next working day after shiftday. Here we ignore Christmas weeks since
+        // the book cart can be handled on working days in the Christmas weeks. Also the book cart
+        // is allowed on the pinched friday after "Grundlovsdag", when pentecost is in that weekend
+        // (and "Grundlovsdag" is a thursday)
+        LocalDate bookCart = fromDate(description.getShiftDay());
+        do {
+            // Exception: If "Grundlovsdag" and pentecost conflicts, such that
+            // we have a pinced friday after "Grundlovsdag". Place the book cart here
+            if (bookCart.getMonth() == Month.JUNE && bookCart.getDayOfMonth() == 6 && bookCart.getDayOfWeek() == DayOfWeek.FRIDAY) {
+                LOGGER.debug("Book cart is allowed to run on pinched friday {} between pentecost and \"Grundlovsdag\"", bookCart);
+                break;
+            }
+            bookCart = bookCart.plusDays(1);
+        } while (isClosingDay(bookCart, true));
+        description.setBookCart(fromLocalDate(bookCart));
+        LOGGER.debug("BOOKCART = {}", description.getBookCart());
+
+        // Proof can start at 17.00 the day the book cart has been handled
+        description.setProofFrom(description.getBookCart());
+        LOGGER.debug("PROOF_FROM = {}", description.getProofFrom());
+
+        // Proof. The first working day after proof start, not in the Christmas week and before New Year's Eve,
+        // Proof must not be within the Easter week
+        LocalDate proof = fromDate(description.getProofFrom());
+        do {
+            proof = proof.plusDays(1);
+        } while (isClosingDay(proof, configuration.getAllowEndOfYear()) || isBetweenChristmasAndNewYearsEve(proof) || isEasterWeek(proof) || (proof.getYear() > date.getYear() && proof.getDayOfWeek() != DayOfWeek.TUESDAY));
+        description.setProof(fromLocalDate(proof));
+        LOGGER.debug("PROOF = {}", description.getProof());
+
+        // Proof must be completed by tuesday in the next week at 17.00., same as 'proof' (No adjustments unless proof is earlier than tuesday, due to christmas etc.)
+        while (proof.getDayOfWeek().getValue() < DayOfWeek.TUESDAY.getValue()) {
+            proof = proof.plusDays(1);
+        }
+        description.setProofTo(fromLocalDate(proof));
+        LOGGER.debug("PROOF_TO = {}", description.getProofTo());
+
+        // BKM-red. Wednesday in the next week., the day after proof ended
+        // Make sure that BKM-red does not end up on a closing day
+        LocalDate bkm = fromDate(description.getProofTo());
+        do {
+            bkm = bkm.plusDays(1);
+        } while (isClosingDay(bkm, configuration.getAllowEndOfYear()) || isEasterWeek(bkm));
+        description.setBkm(fromLocalDate(bkm));
+        LOGGER.debug("BKM = {}", description.getBkm());
+
+        // Publish date. Always friday
+        LocalDate publish = getFriday(fromDate(description.getProofTo()));
+        description.setPublish(fromLocalDate(publish));
+        LOGGER.debug("PUBLISH = {}", description.getPublish());
+
+        return description;
+    }
+
+    public boolean isBetweenChristmasAndNewYearsEve(LocalDate date) {
+        return date.getMonth() == Month.DECEMBER && date.getDayOfMonth() >= 24;
+    }
+
+    public Date fromLocalDate(LocalDate date) {
+        return Date.from(date.atStartOfDay(zoneId).toInstant());
+    }
+
+    public LocalDate fromDate(Date date) {
+        return LocalDate.ofInstant(date.toInstant(), zoneId);
+    }
+
+    private List<YearPlanResult.YearPlanRowColumn> getHeadersAsRow(Boolean displayAllDays) {
+        // Make sure that results are returned in this order by getResultAsRow()
+
+        return List.of(
+                new YearPlanResult.YearPlanRowColumn("Katalogkode", false, true),
+                new YearPlanResult.YearPlanRowColumn("DBCKat ugekode start", false, true),
+                new YearPlanResult.YearPlanRowColumn("DBCKat ugekode slut", false, true),
+                new YearPlanResult.YearPlanRowColumn("DBCKat ugeafslutning", false, true),
+                new YearPlanResult.YearPlanRowColumn("Bogvogn", false, true),
+                new YearPlanResult.YearPlanRowColumn("Ugekorrekturen køres", false, displayAllDays),
+                new YearPlanResult.YearPlanRowColumn("Ugekorrektur", false, true),
+                new YearPlanResult.YearPlanRowColumn("Slutredaktion (ugekorrektur)", false, displayAllDays),
+                new YearPlanResult.YearPlanRowColumn("BKM-red.", false, true),
+                new YearPlanResult.YearPlanRowColumn("Udgivelsesdato", false, true),
+                new YearPlanResult.YearPlanRowColumn("Ugenummber", false, true)
+        );
+    }
+
+    private List<YearPlanResult.YearPlanRowColumn> getResultAsRow(WeekResolverResult result, Boolean showAbnormalDayNames, Boolean displayAllDays) {
+        // Make sure that headers are returned in same order as the rows are added below by getHeadersAsRow()
+
+        if (result.getDescription().getNoProduction()) {
+            return List.of(
+                    new YearPlanResult.YearPlanRowColumn(result.getDescription().getWeekCodeShort()),
+                    new YearPlanResult.YearPlanRowColumn(),
+                    new YearPlanResult.YearPlanRowColumn(),
+                    new YearPlanResult.YearPlanRowColumn(),
+                    new YearPlanResult.YearPlanRowColumn(),
+                    new YearPlanResult.YearPlanRowColumn().withVisible(displayAllDays),
+                    new YearPlanResult.YearPlanRowColumn(),
+                    new YearPlanResult.YearPlanRowColumn().withVisible(displayAllDays),
+                    new YearPlanResult.YearPlanRowColumn(),
+                    new YearPlanResult.YearPlanRowColumn(),
+                    new YearPlanResult.YearPlanRowColumn(result.getDescription().getWeekNumber())
+            );
+        }
+
+        return List.of(
+                new YearPlanResult.YearPlanRowColumn(result.getDescription().getWeekCodeShort()),
+                rowContentFromDate(isSpecialDay(result.getDescription().getWeekCodeFirst(), DayOfWeek.FRIDAY),
+                        result.getDescription().getWeekCodeFirst(), true, showAbnormalDayNames, true),
+                rowContentFromDate(isSpecialDay(result.getDescription().getWeekCodeLast(), DayOfWeek.THURSDAY),
+                        result.getDescription().getWeekCodeLast(), true, showAbnormalDayNames, true),
+                rowContentFromDate(isSpecialDay(result.getDescription().getShiftDay(), DayOfWeek.FRIDAY),
+                        result.getDescription().getShiftDay(), true, showAbnormalDayNames, true),
+                rowContentFromDate(isSpecialDay(result.getDescription().getBookCart(), DayOfWeek.MONDAY),
+                        result.getDescription().getBookCart(), true, showAbnormalDayNames, true),
+                rowContentFromDate(result.getDescription().getProofFrom(), true, displayAllDays),
+                rowContentFromDate(isSpecialDay(result.getDescription().getProof(), DayOfWeek.TUESDAY),
+                        result.getDescription().getProof(), true, showAbnormalDayNames, true),
+                rowContentFromDate(result.getDescription().getProofTo(), true, displayAllDays),
+                rowContentFromDate(isSpecialDay(result.getDescription().getBkm(), DayOfWeek.WEDNESDAY),
+                        result.getDescription().getBkm(), true, showAbnormalDayNames, true),
+                rowContentFromDate(result.getDescription().getPublish(), true, true),
+                new YearPlanResult.YearPlanRowColumn(result.getDescription().getWeekNumber())
+        );
+    }
+
+    private Boolean isSpecialDay(Date date, DayOfWeek expectedDayOfWeek) {
+        if (date == null) {
+            return false;
+        }
+        LocalDate actualDayOfWeek = fromDate(date);
+        return actualDayOfWeek.getDayOfWeek() != expectedDayOfWeek;
+    }
+
+    public YearPlanResult.YearPlanRowColumn rowContentFromDate(Date date) {
+        return rowContentFromDate(date, false, true);
+    }
+
+    private YearPlanResult.YearPlanRowColumn rowContentFromDate(Date date, boolean quoted, boolean displayAllDays) {
+        return rowContentFromDate(false, date, quoted, false, displayAllDays);
+    }
+
+    private YearPlanResult.YearPlanRowColumn rowContentFromDate(Boolean isAbnormalDay, Date date, boolean quoted, Boolean showAbnormalDayNames, boolean displayAllDays) {
+        if (date == null) {
+            return new YearPlanResult.YearPlanRowColumn(quoted ? "\"\"" : "", false, displayAllDays);
+        }
+
+        LocalDate actualDayOfWeek = fromDate(date);
+        String prefix = isAbnormalDay && showAbnormalDayNames
+                ? actualDayOfWeek.getDayOfWeek().getDisplayName(TextStyle.FULL, locale).toUpperCase() + "   "
+                : "";
+
+        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd", locale);
+        LocalDate localDate = fromDate(date);
+        return new YearPlanResult.YearPlanRowColumn(
+                (quoted ? "\"" : "") + prefix + localDate.format(formatter) + (quoted ? "\"" : ""),
+                isAbnormalDay, displayAllDays);
+    }
+
+    /**
+     * @param year The year
+     * @return True if the year is within {@link #FIRST_SUPPORTED_YEAR} to {@link #LAST_SUPPORTED_YEAR}
+     */
+    public static boolean isSupportedYear(int year) {
+        return year >= FIRST_SUPPORTED_YEAR && year <= LAST_SUPPORTED_YEAR;
+    }
+
+    /**
+     * @param date Date as yyyy-MM-dd
+     * @return The date
+     * @throws DateTimeParseException if the date can not be parsed, or is not in a supported year
+     */
+    public LocalDate fromString(String date) throws DateTimeParseException {
+        LocalDate parsed = LocalDate.parse(date, DateTimeFormatter.ofPattern("yyyy-MM-dd"));
+        if (!isSupportedYear(parsed.getYear())) {
+            throw new DateTimeParseException(String.format("Year %d is outside the supported years %d-%d",
+                    parsed.getYear(), FIRST_SUPPORTED_YEAR, LAST_SUPPORTED_YEAR), date, 0);
+        }
+        return parsed;
+    }
+
+    /**
+     * The rules of a configuration, compiled into the steps needed by that configuration:
+     * <ol>
+     *     <li>Shiftday: on or after the (adjusted) shiftday, move to the next open day in the next week</li>
+     *     <li>Closed weeks: if the next week is closed (christmas, Easter), move to the week before the next open week</li>
+     *     <li>Add the configured number of weeks</li>
+     *     <li>Short weeks: if the previous week (in january) has too few working days, move to the next week</li>
+     *     <li>Week 01: never land in week 01, unless end-of-year weeks are allowed</li>
+     * </ol>
+     * Each pipeline has its own table of precomputed dates, the rules are only used when building the table
+     * and for dates outside the table.
+     */
+    private abstract class Pipeline {
+        final int addWeeks;
+        final boolean allowEndOfYear;
+        private final WeekCodeTable table;
+
+        Pipeline(WeekCodeConfiguration configuration) {
+            this.addWeeks = configuration.getAddWeeks();
+            this.allowEndOfYear = configuration.getAllowEndOfYear();
+            WeekCodeTableSnapshot snapshot = tableSnapshot;
+            this.table = new WeekCodeTable(date -> weekCodeDate(date, DecisionTrace.NONE),
+                    date -> currentWeekCodeDate(date, DecisionTrace.NONE),
+                    snapshot == null ? null : snapshot.getTable(configuration));
+        }
+
+        LocalDate getWeekCodeDate(LocalDate date) {
+            return table.getWeekCodeDate(date);
+        }
+
+        LocalDate getCurrentWeekCodeDate(LocalDate date) {
+            return table.getCurrentWeekCodeDate(date);
+        }
+
+        abstract LocalDate weekCodeDate(LocalDate date, DecisionTrace trace);
+
+        // There is no adjustments and no checks for closing days for the current weekcode, unless there is a shiftday
+        LocalDate currentWeekCodeDate(LocalDate date, DecisionTrace trace) {
+            return date;
+        }
+
+        // Step 2: If the week after the one we are currently in, are totally closed (christmas, easter),
+        //         then there is no way to handle BKM. and proof, so move to the week before the first open week
+        LocalDate skipClosedWeeks(LocalDate date, DecisionTrace trace) {
+            LocalDate nextWeek = getMonday(date.plusWeeks(1));
+            LocalDate openWeek = getMonday(closingDayCalendar.nextOpenDay(nextWeek, allowEndOfYear));
+            while (isEasterWeek(openWeek)) {
+                openWeek = getMonday(closingDayCalendar.nextOpenDay(openWeek.plusWeeks(1), allowEndOfYear));
+            }
+            if (openWeek.isAfter(nextWeek)) {
+                trace.record(WeekCodeDecision.Rule.CLOSED_WEEK, date, openWeek.minusWeeks(1));
+                return openWeek.minusWeeks(1);
+            }
+            return date;
+        }
+
+        // Step 3: Add the selected number of weeks
+        LocalDate addWeeks(LocalDate date, DecisionTrace trace) {
+            if (addWeeks == 0) {
+                return date;
+            }
+            trace.record(WeekCodeDecision.Rule.ADD_WEEKS, date, date.plusWeeks(addWeeks));
+            return date.plusWeeks(addWeeks);
+        }
+
+        // Step 4: Check that bkm-red. and publish does not collide, if so, then push another week (example is end of 2024)
+        //         We do this by checking that the week before the selected day has at least enough days
+        //         so that proof and BKM-red can be finished by thursday
+        LocalDate skipShortWeek(LocalDate date, DecisionTrace trace) {
+            if (previousWeekIsTooShort(date, 4)) {
+                trace.record(WeekCodeDecision.Rule.SHORT_WEEK, date, getMonday(date.plusWeeks(1)));
+                return getMonday(date.plusWeeks(1));
+            }
+            return date;
+        }
+
+        // Step 5: Never land in week 01, unless allowed by configuration
+        LocalDate skipWeekOne(LocalDate date, DecisionTrace trace) {
+            if (!allowEndOfYear && weekNumbering.weekOfWeekBasedYear(date) == 1) {
+                trace.record(WeekCodeDecision.Rule.WEEK_ONE, date, weekNumbering.startOfNextWeek(date));
+                return weekNumbering.startOfNextWeek(date);
+            }
+            return date;
+        }
+    }
+
+    // Fixed weekcode, the date is not used
+    private class FixedPipeline extends Pipeline {
+        FixedPipeline(WeekCodeConfiguration configuration) {
+            super(configuration);
+        }
+
+        @Override
+        LocalDate getWeekCodeDate(LocalDate date) {
+            return date;
+        }
+
+        @Override
+        LocalDate getCurrentWeekCodeDate(LocalDate date) {
+            return date;
+        }
+
+        @Override
+        LocalDate weekCodeDate(LocalDate date, DecisionTrace trace) {
+            return date;
+        }
+    }
+
+    // Closing days are ignored, but a shiftday (not adjusted) and closed weeks are honored
+    private class IgnoreClosingDaysPipeline extends Pipeline {
+        private final int shiftDay;
+
+        IgnoreClosingDaysPipeline(WeekCodeConfiguration configuration) {
+            super(configuration);
+            this.shiftDay = configuration.getShiftDay() == null ? Integer.MAX_VALUE : configuration.getShiftDay().getValue();
+        }
+
+        @Override
+        LocalDate weekCodeDate(LocalDate date, DecisionTrace trace) {
+            LocalDate expectedDate = date;
+            if (expectedDate.getDayOfWeek().getValue() >= shiftDay) {
+                expectedDate = getMonday(expectedDate.plusWeeks(1));
+                trace.record(WeekCodeDecision.Rule.SHIFT_DAY, date, expectedDate);
+            }
+            return skipWeekOne(addWeeks(skipClosedWeeks(expectedDate, trace), trace), trace);
+        }
+    }
+
+    // Closing days without a shiftday
+    private class ClosingDaysPipeline extends Pipeline {
+        ClosingDaysPipeline(WeekCodeConfiguration configuration) {
+            super(configuration);
+        }
+
+        @Override
+        LocalDate weekCodeDate(LocalDate date, DecisionTrace trace) {
+            return skipWeekOne(skipShortWeek(addWeeks(skipClosedWeeks(date, trace), trace), trace), trace);
+        }
+    }
+
+    // Closing days and a shiftday that is adjusted for holidays
+    private class ShiftDayPipeline extends Pipeline {
+        private final DayOfWeek shiftDay;
+
+        ShiftDayPipeline(WeekCodeConfiguration configuration) {
+            super(configuration);
+            this.shiftDay = configuration.getShiftDay();
+        }
+
+        @Override
+        LocalDate weekCodeDate(LocalDate date, DecisionTrace trace) {
+            LocalDate expectedDate = date;
+
+            // Step 1: Is this on or after the adjusted shiftday ?
+            DayOfWeek adjustedShiftDay = adjustShiftDay(expectedDate, shiftDay, allowEndOfYear);
+            if (adjustedShiftDay == null || expectedDate.getDayOfWeek().getValue() >= adjustedShiftDay.getValue()) {
+                LocalDate monday = getMonday(expectedDate.plusWeeks(1));
+                trace.record(adjustedShiftDay == null ? WeekCodeDecision.Rule.NO_SHIFT_DAY : WeekCodeDecision.Rule.SHIFT_DAY, expectedDate, monday);
+                expectedDate = closingDayCalendar.nextOpenDay(monday, allowEndOfYear);
+                if (expectedDate.isAfter(monday)) {
+                    trace.record(WeekCodeDecision.Rule.CLOSING_DAY, monday, expectedDate);
+                }
+                while (isEasterWeek(expectedDate)) {
+                    LocalDate easter = expectedDate;
+                    expectedDate = closingDayCalendar.nextOpenDay(getMonday(expectedDate.plusWeeks(1)), allowEndOfYear);
+                    trace.record(WeekCodeDecision.Rule.EASTER_WEEK, easter, expectedDate);
+                }
+            }
+            return skipWeekOne(skipShortWeek(addWeeks(skipClosedWeeks(expectedDate, trace), trace), trace), trace);
+        }
+
+        @Override
+        LocalDate currentWeekCodeDate(LocalDate date, DecisionTrace trace) {
+            // Check if we have passed the shiftday. There is no adjustments and no checks for closing
+            // days, since we just want the code for the actual day.
+            if (date.getDayOfWeek().getValue() >= shiftDay.getValue()) {
+                trace.record(WeekCodeDecision.Rule.CURRENT_SHIFT_DAY, date, date.plusWeeks(1));
+                return date.plusWeeks(1);
+            }
+            return date;
+        }
+    }
+
+    /**
+     * Key of a cached week description. The description only depends on the shiftday and end-of-year setting of
+     * the configuration, the monday of the week, the year of the date (proof is moved to tuesday when it crosses
+     * into the next year) and the weekcode
+     */
+    static final class DescriptionKey {
+        private final DayOfWeek shiftDay;
+        private final boolean allowEndOfYear;
+        private final long monday;
+        private final int year;
+        private final String weekCodeShort;
+
+        DescriptionKey(WeekCodeConfiguration configuration, LocalDate date, String weekCodeShort) {
+            this.shiftDay = configuration.getShiftDay();
+            this.allowEndOfYear = configuration.getAllowEndOfYear();
+            this.monday = date.toEpochDay() - date.getDayOfWeek().getValue() + 1;
+            this.year = date.getYear();
+            this.weekCodeShort = weekCodeShort;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            DescriptionKey that = (DescriptionKey) o;
+            return allowEndOfYear == that.allowEndOfYear && monday == that.monday && year == that.year
+                    && shiftDay == that.shiftDay && weekCodeShort.equals(that.weekCodeShort);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(shiftDay, allowEndOfYear, monday, year, weekCodeShort);
+        }
+    }
+
+    static final class YearPlanKey {
+        private final WeekCodeConfiguration configuration;
+        // Any code with the configuration, the year plan does not depend on which. Not part of the key
+        private final String catalogueCode;
+        private final int year;
+        private final boolean showAbnormalDayNames;
+        private final boolean displayAllDays;
+
+        YearPlanKey(WeekCodeConfiguration configuration, String catalogueCode, int year, boolean showAbnormalDayNames, boolean displayAllDays) {
+            this.configuration = configuration;
+            this.catalogueCode = catalogueCode;
+            this.year = year;
+            this.showAbnormalDayNames = showAbnormalDayNames;
+            this.displayAllDays = displayAllDays;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            YearPlanKey that = (YearPlanKey) o;
+            return year == that.year && showAbnormalDayNames == that.showAbnormalDayNames
+                    && displayAllDays == that.displayAllDays && configuration.equals(that.configuration);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(configuration, year, showAbnormalDayNames, displayAllDays);
+        }
+    }
+
+    private static final class Fingerprint {
+        private final WeekCodeRegistry registry;
+        private final String value;
+
+        Fingerprint(WeekCodeRegistry registry, String value) {
+            this.registry = registry;
+            this.value = value;
+        }
+    }
+
+    private static final class CurrentCodes extends AbstractMap<String, WeekCodeConfiguration> {
+        @Override
+        public Set<Entry<String, WeekCodeConfiguration>> entrySet() {
+            return getRegistry().getCodes().entrySet();
+        }
+
+        @Override
+        public WeekCodeConfiguration get(Object key) {
+            return getRegistry().getCodes().get(key);
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return getRegistry().getCodes().containsKey(key);
+        }
+    }
+}
@@ -3,13 +3,19 @@ package dk.dbc.weekresolver.service;
 import dk.dbc.commons.jsonb.JSONBContext;
 import dk.dbc.commons.jsonb.JSONBException;
 
+import dk.dbc.weekresolver.model.CacheStatistics;
+import dk.dbc.weekresolver.model.DayPlanFormat;
 import dk.dbc.weekresolver.model.WeekCodeConfiguration;
+import dk.dbc.weekresolver.model.WeekCodeFulfilledRequest;
 import dk.dbc.weekresolver.model.WeekCodeFulfilledResult;
+import dk.dbc.weekresolver.model.WeekCodeIntervalResult;
+import dk.dbc.weekresolver.model.WeekResolverBinaryFormat;
 import dk.dbc.weekresolver.model.WeekResolverQueryParameterDays;
 import dk.dbc.weekresolver.model.WeekResolverQueryParameterDisplay;
 import dk.dbc.weekresolver.model.WeekResolverResult;
 import dk.dbc.weekresolver.model.YearPlanFormat;
 import dk.dbc.weekresolver.model.YearPlanResult;
+import jakarta.annotation.PostConstruct;
 import jakarta.ejb.Stateless;
 import jakarta.inject.Inject;
 import jakarta.ws.rs.DefaultValue;
@@ -18,22 +24,37 @@ import org.eclipse.microprofile.config.inject.ConfigProperty;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import jakarta.ws.rs.Consumes;
 import jakarta.ws.rs.GET;
+import jakarta.ws.rs.HeaderParam;
+import jakarta.ws.rs.POST;
 import jakarta.ws.rs.Path;
 import jakarta.ws.rs.PathParam;
 import jakarta.ws.rs.Produces;
 import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.Response;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDate;
 import java.time.Month;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.SortedMap;
+import java.util.SortedSet;
 import java.util.TreeMap;
-import java.util.stream.Collectors;
+import java.util.TreeSet;
 
 @Stateless
 @Path("/api")
@@ -42,26 +63,78 @@ public class WeekResolverService {
     private static final JSONBContext jsonbContext = new JSONBContext();
 
     public final static String TEXT_CSV = "text/csv";
+    public final static String APPLICATION_ZIP = "application/zip";
+    public final static String APPLICATION_NDJSON = "application/x-ndjson";
+
+    // Maximum number of years in an export
+    private static final int MAX_EXPORT_YEARS = 25;
 
     @Inject
     @ConfigProperty(name = "TZ")
     String timeZone;
 
+    // Maximum number of days in a day plan
+    @Inject
+    @ConfigProperty(name = "DAY_PLAN_MAX_DAYS", defaultValue = "3700")
+    int dayPlanMaxDays;
+
+    // Maximum number of days in a day plan outside the precomputed years, each of these is calculated by the rules
+    @Inject
+    @ConfigProperty(name = "DAY_PLAN_MAX_CALCULATED_DAYS", defaultValue = "400")
+    int dayPlanMaxCalculatedDays;
+
+    // Maximum number of weekcodes in a single request to check if weekcodes have been fulfilled
+    @Inject
+    @ConfigProperty(name = "FULFILLED_MAX_WEEK_CODES", defaultValue = "100000")
+    int fulfilledMaxWeekCodes;
+
+    // Maximum number of items in a single request to resolve many dates
+    @Inject
+    @ConfigProperty(name = "BATCH_MAX_ITEMS", defaultValue = "100000")
+    int batchMaxItems;
+
+    // Number of seconds that responses for an explicit date or year may be cached
+    @Inject
+    @ConfigProperty(name = "CACHE_MAX_AGE", defaultValue = "86400")
+    int cacheMaxAge;
+
+    @Inject
+    WorkerPool workerPool;
+
+    private WeekResolverEngine engine;
+
+    // Shared by all instances of the bean. Keyed by engine (time zone and locale), format and year plan
+    private static final BoundedCache<RenderedYearPlanKey, byte[]> RENDERED_YEAR_PLANS = new BoundedCache<>("renderedYearPlans", 500);
+
+    @PostConstruct
+    public void init() {
+        engine = WeekResolverEngine.of(timeZone);
+    }
+
     /**
      * Endpoint for getting the week code based on catalogueCode and todays date
      *
      * @param catalogueCode Cataloguecode
+     * @param explain If true, then the decisions that moved the date are added to the result
+     * @param accept The Accept header, the binary format is used if preferred
      * @return a HTTP 200 with the week-code as a string
      * @throws DateTimeParseException        if specified date is not parseable (should not be possible)
      * @throws UnsupportedOperationException if the specified cataloguecode is unkown or unsupported
      */
     @GET
     @Path("v1/date/{catalogueCode}")
-    @Produces(MediaType.APPLICATION_JSON)
-    public Response getWeekCode(@PathParam("catalogueCode") final String catalogueCode) {
+    @Produces({MediaType.APPLICATION_JSON, WeekResolverBinaryFormat.MEDIA_TYPE})
+    public Response getWeekCode(@PathParam("catalogueCode") final String catalogueCode,
+                                @DefaultValue("false") @QueryParam("explain") final boolean explain,
+                                @HeaderParam("Accept") final String accept) {
         LOGGER.info("getWeekCode({})", catalogueCode);
 
-        return getWeekCodeFromDate(catalogueCode, LocalDate.now().toString());
+        LocalDate today = LocalDate.now(engine.getZoneId());
+        Response response = getWeekCodeFromDate(catalogueCode, today.toString(), explain, accept);
+        if (response.getStatus() != 200) {
+            return response;
+        }
+        return expiring(response, explain ? today.plusDays(1) : engine.getNextResultChange(catalogueCode, today, false));
     }
 
     /**
@@ -69,69 +142,160 @@ public class WeekResolverService {
      *
      * @param catalogueCode Cataloguecode
      * @param date (yyyy-MM-dd)
-     * @return a HTTP 200 with the week-code as a string
+     * @param explain If true, then the decisions that moved the date are added to the result
+     * @param accept The Accept header, the binary format is used if preferred
+     * @param ifNoneMatch The If-None-Match header
+     * @return a HTTP 200 with the week-code as a string, or HTTP 304 if the caller has the current result
      * @throws DateTimeParseException        if specified date is not parseable
      * @throws UnsupportedOperationException if the specified cataloguecode is unkown or unsupported
      */
     @GET
     @Path("v1/date/{catalogueCode}/{date}")
-    @Produces(MediaType.APPLICATION_JSON)
+    @Produces({MediaType.APPLICATION_JSON, WeekResolverBinaryFormat.MEDIA_TYPE})
     public Response getWeekCodeForDate(@PathParam("catalogueCode") final String catalogueCode,
-                                @PathParam("date") final String date) {
+                                @PathParam("date") final String date,
+                                @DefaultValue("false") @QueryParam("explain") final boolean explain,
+                                @HeaderParam("Accept") final String accept,
+                                @HeaderParam("If-None-Match") final String ifNoneMatch) {
         LOGGER.info("getWeekCode({}, {})", catalogueCode, date);
 
-        return getWeekCodeFromDate(catalogueCode, date);
+        // The result only depends on the path and the rules, so a matching tag is answered without resolving anything.
+        // A tag (or "*") only matches when there is a result, so the cataloguecode and the date are checked first
+        String entityTag = EntityTags.of(engine.getFingerprint(),
+                WeekResolverBinaryFormat.isPreferred(accept) ? "binary" : "json");
+        if (EntityTags.matches(ifNoneMatch, entityTag) && isResolvable(catalogueCode, date)) {
+            LOGGER.info("Not modified: {}", entityTag);
+            return cacheable(Response.notModified().header("Vary", "Accept"), entityTag);
+        }
+
+        Response response = getWeekCodeFromDate(catalogueCode, date, explain, accept);
+        if (response.getStatus() != 200) {
+            return response;
+        }
+        return cacheable(Response.fromResponse(response), entityTag);
+    }
+
+    /**
+     * Endpoint for getting the week codes of a JSON array of {@code {"catalogueCode": .., "date": ..}} items
+     * <p>
+     * All items are read before the results are sent, so the client does not have to read the response while
+     * sending the items. At most BATCH_MAX_ITEMS items.
+     * </p>
+     *
+     * @param items The items
+     * @param accept The Accept header
+     * @return a HTTP 200 with a JSON array (or the binary format) with the items and their weekcode (or error), in the same order
+     */
+    @POST
+    @Path("v1/date")
+    @Consumes({MediaType.APPLICATION_JSON})
+    @Produces({MediaType.APPLICATION_JSON, WeekResolverBinaryFormat.MEDIA_TYPE})
+    public Response getWeekCodes(final InputStream items, @HeaderParam("Accept") final String accept) {
+        LOGGER.info("getWeekCodes()");
+        return getWeekCodesFromItems(items, false, accept, MediaType.APPLICATION_JSON);
+    }
+
+    /**
+     * Endpoint for getting the week codes of NDJSON {@code {"catalogueCode": .., "date": ..}} items
+     * <p>
+     * All items are read before the results are sent, so the client does not have to read the response while
+     * sending the items. At most BATCH_MAX_ITEMS items.
+     * </p>
+     *
+     * @param items The items
+     * @param accept The Accept header
+     * @return a HTTP 200 with NDJSON (or the binary format) with the items and their weekcode (or error), in the same order
+     */
+    @POST
+    @Path("v1/date")
+    @Consumes({APPLICATION_NDJSON})
+    @Produces({APPLICATION_NDJSON, WeekResolverBinaryFormat.MEDIA_TYPE})
+    public Response getWeekCodesNdjson(final InputStream items, @HeaderParam("Accept") final String accept) {
+        LOGGER.info("getWeekCodesNdjson()");
+        return getWeekCodesFromItems(items, true, accept, APPLICATION_NDJSON);
     }
 
     /**
      * Endpoint for getting the current week code based on catalogueCode and todays date
      *
      * @param catalogueCode Cataloguecode
+     * @param explain If true, then the decisions that moved the date are added to the result
+     * @param accept The Accept header, the binary format is used if preferred
      * @return a HTTP 200 with the week-code as a string
      * @throws DateTimeParseException        if specified date is not parseable
      * @throws UnsupportedOperationException if the specified cataloguecode is unkown or unsupported
      */
     @GET
     @Path("v1/current/{catalogueCode}")
-    @Produces(MediaType.APPLICATION_JSON)
-    public Response getCurrentWeekCode(@PathParam("catalogueCode") final String catalogueCode) {
+    @Produces({MediaType.APPLICATION_JSON, WeekResolverBinaryFormat.MEDIA_TYPE})
+    public Response getCurrentWeekCode(@PathParam("catalogueCode") final String catalogueCode,
+                                       @DefaultValue("false") @QueryParam("explain") final boolean explain,
+                                       @HeaderParam("Accept") final String accept) {
         LOGGER.info("getCurrentWeekCode({})", catalogueCode);
 
-        return getCurrentWeekCodeFromDate(catalogueCode, LocalDate.now().toString());
+        // The explanation is not part of the snapshot of current weekcodes
+        LocalDate today = LocalDate.now(engine.getZoneId());
+        if (explain) {
+            Response response = getCurrentWeekCodeFromDate(catalogueCode, today.toString(), true, accept);
+            if (response.getStatus() != 200) {
+                return response;
+            }
+            return expiring(response, today.plusDays(1));
+        }
+
+        try {
+            WeekResolverResult result = engine.getCurrentWeekCodes().get(catalogueCode, today);
+            LOGGER.info("Current weekcode of cataloguecode {} is {}", result.getCatalogueCode(), result.getWeekCode());
+            return expiring(resultResponse(result, accept), engine.getNextResultChange(catalogueCode, today, true));
+        }
+        catch( UnsupportedOperationException unsupportedOperationException) {
+            LOGGER.error("Unsupported cataloguecode {}", catalogueCode);
+            return Response.status(400, "Unsupported cataloguecode").build();
+        }
+        catch( JSONBException jsonbException ) {
+            LOGGER.error(String.format("Failed to serialize result object: %s", jsonbException.getCause()));
+            return Response.status(500, "Internal error when serializing result").build();
+        }
     }
 
     /**
      * Endpoint for getting the current week code based on catalogueCode and a date
      *
      * @param catalogueCode Cataloguecode
+     * @param explain If true, then the decisions that moved the date are added to the result
+     * @param accept The Accept header, the binary format is used if preferred
      * @return a HTTP 200 with the week-code as a string
      * @throws DateTimeParseException        if specified date is not parseable
      * @throws UnsupportedOperationException if the specified cataloguecode is unkown or unsupported
      */
     @GET
     @Path("v1/current/{catalogueCode}/{date}")
-    @Produces(MediaType.APPLICATION_JSON)
+    @Produces({MediaType.APPLICATION_JSON, WeekResolverBinaryFormat.MEDIA_TYPE})
     public Response getCurrentWeekCodeForDate(@PathParam("catalogueCode") final String catalogueCode,
-                                              @PathParam("date") final String date) {
+                                              @PathParam("date") final String date,
+                                              @DefaultValue("false") @QueryParam("explain") final boolean explain,
+                                              @HeaderParam("Accept") final String accept) {
         LOGGER.info("getCurrentWeekCode({}, {})", catalogueCode, date);
 
-        return getCurrentWeekCodeFromDate(catalogueCode, date);
+        return getCurrentWeekCodeFromDate(catalogueCode, date, explain, accept);
     }
 
     /**
      * Endpoint for getting a year plan for the given code and the current year
      *
      * @param catalogueCode Cataloguecode
+     * @param accept The Accept header, a JSON year plan is sent in the binary format if preferred
      * @return a HTTP 200 with a csv document containing the year plan
      * @throws UnsupportedOperationException if the specified cataloguecode is unkown or unsupported
      */
     @GET
     @Path("v1/year/{format}/{catalogueCode}")
-    @Produces({MediaType.APPLICATION_JSON, TEXT_CSV})
+    @Produces({MediaType.APPLICATION_JSON, TEXT_CSV, WeekResolverBinaryFormat.MEDIA_TYPE})
     public Response getYearPlanForCode(@PathParam("format") final YearPlanFormat format,
                                        @PathParam("catalogueCode") final String catalogueCode,
                                        @DefaultValue ("ON") @QueryParam("days") final String days,
-                                       @DefaultValue("BKM") @QueryParam("display") final String display) {
+                                       @DefaultValue("BKM") @QueryParam("display") final String display,
+                                       @HeaderParam("Accept") final String accept) {
         LOGGER.info("getYearPlanForCode({}, {}, {})", format, catalogueCode, days);
 
         // Avoid week 53 problems by moving to no later than november
@@ -140,7 +304,7 @@ public class WeekResolverService {
             now = now.minusMonths(1);
         }
 
-        return getYearPlanFromCodeAndYear(format, catalogueCode, now.getYear(),
+        return getYearPlanFromCodeAndYear(negotiate(format, accept), catalogueCode, now.getYear(),
                 days.equals(WeekResolverQueryParameterDays.ON.name()),
                 display.equals(WeekResolverQueryParameterDisplay.ALL.name()));
     }
@@ -151,39 +315,119 @@ public class WeekResolverService {
      *
      * @param catalogueCode Cataloguecode
      * @param year Year
-     * @return a HTTP 200 with a csv document containing the year plan
+     * @param accept The Accept header, a JSON year plan is sent in the binary format if preferred
+     * @param ifNoneMatch The If-None-Match header
+     * @return a HTTP 200 with a csv document containing the year plan, or HTTP 304 if the caller has the current year plan
      * @throws UnsupportedOperationException if the specified cataloguecode is unkown or unsupported
      */
     @GET
     @Path("v1/year/{format}/{catalogueCode}/{year}")
-    @Produces({MediaType.APPLICATION_JSON, TEXT_CSV, MediaType.TEXT_HTML})
+    @Produces({MediaType.APPLICATION_JSON, TEXT_CSV, MediaType.TEXT_HTML, WeekResolverBinaryFormat.MEDIA_TYPE})
     public Response getYearPlanForCodeAndYear(@PathParam("format") final YearPlanFormat format,
                                               @PathParam("catalogueCode") final String catalogueCode,
                                               @PathParam("year") final Integer year,
                                               @DefaultValue ("ON") @QueryParam("days") final String days,
-                                              @DefaultValue("BKM") @QueryParam("display") final String display) {
+                                              @DefaultValue("BKM") @QueryParam("display") final String display,
+                                              @HeaderParam("Accept") final String accept,
+                                              @HeaderParam("If-None-Match") final String ifNoneMatch) {
         LOGGER.info("getYearPlanForCodeAndYear({}, {}, {}, {})", format, catalogueCode, year, days);
-        return getYearPlanFromCodeAndYear(format, catalogueCode, year,
+
+        // A tag (or "*") only matches when there is a year plan, so the cataloguecode and the year are checked first
+        YearPlanRendering negotiated = negotiate(format, accept);
+        String entityTag = EntityTags.of(engine.getFingerprint(), negotiated.name().toLowerCase());
+        if (EntityTags.matches(ifNoneMatch, entityTag) && hasYearPlan(catalogueCode, year)) {
+            LOGGER.info("Not modified: {}", entityTag);
+            return cacheable(Response.notModified().header("Vary", "Accept"), entityTag);
+        }
+
+        Response response = getYearPlanFromCodeAndYear(negotiated, catalogueCode, year,
+                days.equals(WeekResolverQueryParameterDays.ON.name()),
+                display.equals(WeekResolverQueryParameterDisplay.ALL.name()));
+        if (response.getStatus() != 200) {
+            return response;
+        }
+        return cacheable(Response.fromResponse(response), entityTag);
+    }
+
+    /**
+     * Endpoint for getting the year plans of a number of codes and years, as a ZIP archive with a file per code and year
+     *
+     * @param format Format of the files in the archive
+     * @param fromYear First year
+     * @param toYear Last year
+     * @param catalogueCodes Comma separated cataloguecodes. If not given, then all codes with a year plan
+     * @return a HTTP 200 with a streamed ZIP archive
+     */
+    @GET
+    @Path("v1/export/{format}/{fromYear}/{toYear}")
+    @Produces({APPLICATION_ZIP})
+    public Response getYearPlanExport(@PathParam("format") final YearPlanFormat format,
+                                      @PathParam("fromYear") final Integer fromYear,
+                                      @PathParam("toYear") final Integer toYear,
+                                      @QueryParam("codes") final String catalogueCodes,
+                                      @DefaultValue ("ON") @QueryParam("days") final String days,
+                                      @DefaultValue("BKM") @QueryParam("display") final String display) {
+        LOGGER.info("getYearPlanExport({}, {}, {}, {}, {})", format, fromYear, toYear, catalogueCodes, days);
+        return getYearPlanExportFromCodesAndYears(format, fromYear, toYear, catalogueCodes,
                 days.equals(WeekResolverQueryParameterDays.ON.name()),
                 display.equals(WeekResolverQueryParameterDisplay.ALL.name()));
     }
 
     /**
-     * Endpoint for getting a list of weekcodes for a range of days
+     * Endpoint for getting a list of weekcodes for a range of days. The list is streamed while the days are resolved
      *
      * @param catalogueCode Cataloguecode
      * @param start Start date
-     * @return a HTTP 200 with a csv document containing the year plan
+     * @param end End date (included)
+     * @param format Format of the list, JSON (an object with the dates as keys), NDJSON or CSV
+     * @param intervals If true, then list each run of days with the same weekcode as [from, to, weekCode]
+     * @return a HTTP 200 with the weekcode of each day, or each run of days
      * @throws UnsupportedOperationException if the specified cataloguecode is unkown or unsupported
      */
     @GET
     @Path("v1/day/{catalogueCode}/{start}/{end}")
-    @Produces({MediaType.APPLICATION_JSON, TEXT_CSV, MediaType.TEXT_HTML})
+    @Produces({MediaType.APPLICATION_JSON, APPLICATION_NDJSON, TEXT_CSV})
     public Response getDayPlan(@PathParam("catalogueCode") final String catalogueCode,
                                @PathParam("start") final String start,
-                               @PathParam("end") final String end) {
-        LOGGER.info("getDayPlan({}, {}, {})", catalogueCode, start, end);
-        return getDayPlanFromDateToDate(catalogueCode, start, end);
+                               @PathParam("end") final String end,
+                               @DefaultValue("JSON") @QueryParam("format") final DayPlanFormat format,
+                               @DefaultValue("false") @QueryParam("intervals") final boolean intervals) {
+        LOGGER.info("getDayPlan({}, {}, {}, {}, {})", catalogueCode, start, end, format, intervals);
+        return getDayPlanFromDateToDate(catalogueCode, start, end, format, intervals);
+    }
+
+    /**
+     * Endpoint for getting the dates that give a weekcode, and the description of the week
+     *
+     * @param weekCode Week code
+     * @return a HTTP 200 with a WeekCodeIntervalResult object, or HTTP 404 if no date within the precomputed years gives the weekcode
+     * @throws UnsupportedOperationException if the specified catalogue code is unknown, unsupported or has a fixed weekcode
+     */
+    @GET
+    @Path("v1/weekcode/{weekCode}")
+    @Produces({MediaType.APPLICATION_JSON})
+    public Response getWeekCodeInterval(@PathParam("weekCode") final String weekCode) {
+        LOGGER.info("getWeekCodeInterval({})", weekCode);
+
+        if (weekCode == null || weekCode.length() != 9) {
+            LOGGER.error("Incorrect weekcode in request to getWeekCodeInterval({})", weekCode);
+            return Response.status(400, "Invalid week code").build();
+        }
+
+        try {
+            WeekCodeIntervalResult result = engine.getWeekCodeInterval(weekCode);
+            if (result == null) {
+                LOGGER.info("No dates give the weekcode {}", weekCode);
+                return Response.status(404, "Unknown week code").build();
+            }
+            return Response.ok(jsonbContext.marshall(result), MediaType.APPLICATION_JSON).build();
+        } catch( UnsupportedOperationException unsupportedOperationException) {
+            LOGGER.error("Unsupported cataloguecode {}: {}", weekCode.substring(0, 3), unsupportedOperationException.getMessage());
+            return Response.status(400, "Unsupported cataloguecode").build();
+        } catch (JSONBException jsonbException) {
+            LOGGER.error(String.format("Failed to serialize result object: %s", jsonbException.getCause()));
+            return Response.status(500, "Internal error when serializing result").build();
+        }
     }
 
     /**
@@ -205,10 +449,7 @@ public class WeekResolverService {
         }
 
         try {
-            WeekResolverResult currentResult = new WeekResolver(timeZone)
-                    .withDate(LocalDate.now().toString())
-                    .withCatalogueCode(weekCode.substring(0, 3).toUpperCase())
-                    .getCurrentWeekCode();
+            WeekResolverResult currentResult = engine.getCurrentWeekCodes().get(weekCode.substring(0, 3));
             LOGGER.debug("Current weekcode for {} is {}", currentResult.getCatalogueCode(), currentResult.getWeekCode());
 
             // Extract weeks and compare them
@@ -234,6 +475,58 @@ public class WeekResolverService {
         }
     }
 
+    /**
+     * Endpoint for checking if a number of weekcodes have been fulfilled (current weekcode is same or newer)
+     * <p>
+     * The request is a {@link WeekCodeFulfilledRequest} with the weekcodes and an optional date (yyyy-MM-dd) to
+     * check as of, default today. The request is parsed while it is read, and rejected as soon as it has more
+     * than FULFILLED_MAX_WEEK_CODES weekcodes. The current weekcode is calculated once per cataloguecode.
+     * </p>
+     *
+     * @param request The request as JSON
+     * @return a HTTP 200 with a JSON array with requestedWeekCode and isFulfilled for each weekcode, in the same order
+     */
+    @POST
+    @Path("v1/fulfilled")
+    @Consumes({MediaType.APPLICATION_JSON})
+    @Produces({MediaType.APPLICATION_JSON})
+    public Response getWeekCodesFulfilled(final InputStream request) {
+        WeekCodeFulfilledRequest fulfilledRequest;
+        try {
+            fulfilledRequest = WeekCodeFulfilledStream.readRequest(request, fulfilledMaxWeekCodes);
+        } catch (IllegalArgumentException illegalArgumentException) {
+            LOGGER.error("Invalid request to getWeekCodesFulfilled: {}", illegalArgumentException.getMessage());
+            return Response.status(400, illegalArgumentException.getMessage()).build();
+        }
+        LOGGER.info("getWeekCodesFulfilled({})", fulfilledRequest);
+
+        if (fulfilledRequest.getWeekCodes() == null) {
+            return Response.status(400, "Missing week codes").build();
+        }
+
+        try {
+            WeekCodeFulfilledStream stream;
+            if (fulfilledRequest.getDate() == null) {
+                stream = new WeekCodeFulfilledStream(fulfilledRequest.getWeekCodes(), engine.getCurrentWeekCodes()::get);
+            } else {
+                LocalDate date = engine.fromString(fulfilledRequest.getDate());
+                stream = new WeekCodeFulfilledStream(fulfilledRequest.getWeekCodes(), code -> engine.getCurrentWeekCode(code, date));
+            }
+            LOGGER.info("Checking {} weekcodes with {} cataloguecodes as of {}", fulfilledRequest.getWeekCodes().size(),
+                    stream.getNumberOfCatalogueCodes(), fulfilledRequest.getDate() == null ? "today" : fulfilledRequest.getDate());
+            return Response.ok(stream, MediaType.APPLICATION_JSON).build();
+        } catch( IllegalArgumentException illegalArgumentException) {
+            LOGGER.error(illegalArgumentException.getMessage());
+            return Response.status(400, "Invalid week code").build();
+        } catch( UnsupportedOperationException unsupportedOperationException) {
+            LOGGER.error("Unsupported cataloguecode: {}", unsupportedOperationException.getMessage());
+            return Response.status(400, "Unsupported cataloguecode").build();
+        } catch( DateTimeParseException dateTimeParseException ) {
+            LOGGER.error("Invalid date {}: {}", fulfilledRequest.getDate(), dateTimeParseException.getMessage());
+            return Response.status( 400, "Unable to parse the date").build();
+        }
+    }
+
     /**
      * Endpoint for getting current code configuration
      *
@@ -245,31 +538,47 @@ public class WeekResolverService {
     public Response getCodes() throws JSONBException {
         LOGGER.info("getCodes()");
 
-        SortedMap<String, WeekCodeConfiguration> sortedMap = new TreeMap<>();
-        for (String code : WeekResolver.CODES.keySet().stream().sorted().collect(Collectors.toCollection(ArrayList::new))) {
-            sortedMap.putIfAbsent(code, WeekResolver.CODES.get(code));
-        }
+        SortedMap<String, WeekCodeConfiguration> sortedMap = new TreeMap<>(WeekResolverEngine.getRegistry().getCodes());
 
         return Response.ok(jsonbContext.marshall(sortedMap), MediaType.APPLICATION_JSON).build();
     }
 
+    /**
+     * Endpoint for getting the size and hit/miss counts of the caches
+     *
+     * @return a HTTP 200 with a list of CacheStatistics objects
+     */
+    @GET
+    @Path("v1/caches")
+    @Produces({MediaType.APPLICATION_JSON})
+    public Response getCacheStatistics() throws JSONBException {
+        LOGGER.info("getCacheStatistics()");
+
+        List<CacheStatistics> statistics = new ArrayList<>();
+        for (BoundedCache<?, ?> cache : engine.getCaches()) {
+            statistics.add(cache.getStatistics());
+        }
+        statistics.add(RENDERED_YEAR_PLANS.getStatistics());
+
+        return Response.ok(jsonbContext.marshall(statistics), MediaType.APPLICATION_JSON).build();
+    }
+
     /**
      * Get week code based on catalogCode and a date
      * @param date Date
      * @param catalogueCode Catalogue code
+     * @param explain Add the decisions that moved the date
+     * @param accept The Accept header
      * @return A weekcode result on success
      */
-    private Response getWeekCodeFromDate(final String catalogueCode, final String date) {
+    private Response getWeekCodeFromDate(final String catalogueCode, final String date, final boolean explain, final String accept) {
         WeekResolverResult result;
 
         try {
-            result = new WeekResolver(timeZone)
-                    .withDate(date)
-                    .withCatalogueCode(catalogueCode)
-                    .getWeekCode();
+            result = engine.getWeekCode(catalogueCode, engine.fromString(date), explain);
 
             LOGGER.info("Calculated weekcode by use of cataloguecode {} is {}", result.getCatalogueCode(), result.getWeekCode());
-            return Response.ok(jsonbContext.marshall(result), MediaType.APPLICATION_JSON).build();
+            return resultResponse(result, accept);
         }
         catch( UnsupportedOperationException unsupportedOperationException) {
             LOGGER.error("Unsupported cataloguecode {}", catalogueCode);
@@ -285,23 +594,44 @@ public class WeekResolverService {
         }
     }
 
+    /**
+     * Resolve the weekcodes of a batch of items
+     * @param items The items
+     * @param ndjson If true, then the items are NDJSON, otherwise a JSON array
+     * @param accept The Accept header
+     * @param mediaType Media type of the results, unless the binary format is preferred
+     * @return The results on success
+     */
+    private Response getWeekCodesFromItems(final InputStream items, final boolean ndjson, final String accept, final String mediaType) {
+        boolean binary = WeekResolverBinaryFormat.isPreferred(accept);
+        try {
+            WeekCodeBatchStream stream = new WeekCodeBatchStream(engine, workerPool.getPool(), items, ndjson, binary, batchMaxItems);
+            return Response.ok(stream, binary ? WeekResolverBinaryFormat.MEDIA_TYPE : mediaType).build();
+        } catch( IllegalArgumentException illegalArgumentException) {
+            LOGGER.error("Invalid batch request: {}", illegalArgumentException.getMessage());
+            return Response.status(400, illegalArgumentException.getMessage()).build();
+        } catch( IOException ioException) {
+            LOGGER.error("Unable to read the batch request: {}", ioException.getMessage());
+            return Response.status(400, "Unable to read the items").build();
+        }
+    }
+
     /**
      * Get current week code based on catalogCode and a date
      * @param date Date
      * @param catalogueCode Catalogue code
+     * @param explain Add the decisions that moved the date
+     * @param accept The Accept header
      * @return A weekcode result on success
      */
-    private Response getCurrentWeekCodeFromDate(final String catalogueCode, final String date) {
+    private Response getCurrentWeekCodeFromDate(final String catalogueCode, final String date, final boolean explain, final String accept) {
         WeekResolverResult result;
 
         try {
-            result = new WeekResolver(timeZone)
-                    .withDate(date)
-                    .withCatalogueCode(catalogueCode)
-                    .getCurrentWeekCode();
+            result = engine.getCurrentWeekCode(catalogueCode, engine.fromString(date), explain);
 
             LOGGER.info("Calculated weekcode by use of cataloguecode {} is {}", result.getCatalogueCode(), result.getWeekCode());
-            return Response.ok(jsonbContext.marshall(result), MediaType.APPLICATION_JSON).build();
+            return resultResponse(result, accept);
         }
         catch( UnsupportedOperationException unsupportedOperationException) {
             LOGGER.error("Unsupported cataloguecode {}", catalogueCode);
@@ -317,6 +647,24 @@ public class WeekResolverService {
         }
     }
 
+    /**
+     * Build the response with a result, in the binary format if preferred by the caller, otherwise as JSON
+     * @param result The result
+     * @param accept The Accept header
+     * @return The response
+     * @throws JSONBException if the result can not be serialized
+     */
+    private Response resultResponse(WeekResolverResult result, String accept) throws JSONBException {
+        if (WeekResolverBinaryFormat.isPreferred(accept)) {
+            return Response.ok(WeekResolverBinaryFormat.encode(result, engine.getZoneId()), WeekResolverBinaryFormat.MEDIA_TYPE)
+                    .header("Vary", "Accept")
+                    .build();
+        }
+        return Response.ok(jsonbContext.marshall(result), MediaType.APPLICATION_JSON)
+                .header("Vary", "Accept")
+                .build();
+    }
+
     /**
      * Get year plan based on format, catalogCode and a year
      * @param format Format
@@ -324,52 +672,254 @@ public class WeekResolverService {
      * @param year Year
      * @return A year plan on success
      */
-    private Response getYearPlanFromCodeAndYear(final YearPlanFormat format, final String catalogueCode, final Integer year,
+    private Response getYearPlanFromCodeAndYear(final YearPlanRendering format, final String catalogueCode, final Integer year,
                                                 Boolean showAbnormalDayNames, Boolean displayAllDates) {
-        YearPlanResult result;
+        String mediaType;
+        if (format == YearPlanRendering.JSON) {
+            mediaType = MediaType.APPLICATION_JSON;
+        } else if (format == YearPlanRendering.CSV) {
+            mediaType = TEXT_CSV;
+        } else if (format == YearPlanRendering.HTML) {
+            mediaType = MediaType.TEXT_HTML;
+        } else if (format == YearPlanRendering.BINARY) {
+            mediaType = WeekResolverBinaryFormat.MEDIA_TYPE;
+        } else {
+            LOGGER.error("Unsupported format {}", format);
+            return Response.status(400, "Unsupported format").build();
+        }
+
+        if (!WeekResolverEngine.isSupportedYear(year)) {
+            LOGGER.error("Unsupported year {}", year);
+            return Response.status(400, String.format("Unsupported year, the years %d-%d are supported",
+                    WeekResolverEngine.FIRST_SUPPORTED_YEAR, WeekResolverEngine.LAST_SUPPORTED_YEAR)).build();
+        }
 
         try {
-            result = new WeekResolver(timeZone)
-                    .withCatalogueCode(catalogueCode)
-                    .getYearPlan(year, showAbnormalDayNames, displayAllDates);
-
-            if (format == YearPlanFormat.JSON) {
-                return Response.ok(jsonbContext.marshall(result), MediaType.APPLICATION_JSON).build();
-            } else if (format == YearPlanFormat.CSV) {
-                String csv = CsvFormatter.format(result);
-                return Response.ok((csv), TEXT_CSV).build();
-            } else if (format == YearPlanFormat.HTML) {
-                String html = HtmlFormatter.format(result);
-                return Response.ok((html), MediaType.TEXT_HTML).build();
-            } else {
-                LOGGER.error("Unsupported format {}", format);
-                return Response.status(400, "Unsupported format").build();
+            if (!engine.hasYearPlan(catalogueCode)) {
+                LOGGER.error("No year plan for cataloguecode {}", catalogueCode);
+                return Response.status(400, "No year plan for cataloguecode").build();
             }
+            WeekResolverEngine.YearPlanKey key = engine.yearPlanKey(catalogueCode, year, showAbnormalDayNames, displayAllDates);
+            byte[] rendered = getRenderedYearPlan(engine, format, key);
+            return Response.ok(rendered, mediaType)
+                    .header("Vary", "Accept")
+                    .build();
         }
         catch( UnsupportedOperationException unsupportedOperationException) {
             LOGGER.error("Unsupported cataloguecode {}", catalogueCode);
             return Response.status(400, "Unsupported cataloguecode").build();
         }
-        catch( JSONBException jsonbException ) {
-            LOGGER.error(String.format("Failed to serialize result object: %s", jsonbException.getCause()));
+        catch( RenderingException renderingException ) {
+            LOGGER.error(String.format("Failed to serialize result object: %s", renderingException.getCause().getCause()));
             return Response.status(500, "Internal error when serializing result").build();
         }
     }
 
-    private Response getDayPlanFromDateToDate(final String catalogueCode, final String start, final String end) {
-        Map<String, String> days = new LinkedHashMap<>();
+    /**
+     * Check that a weekcode can be resolved for the cataloguecode and the date, without resolving it
+     * @param catalogueCode Catalogue code
+     * @param date Date
+     * @return True if the cataloguecode is supported and the date can be parsed
+     */
+    private boolean isResolvable(final String catalogueCode, final String date) {
+        try {
+            engine.getConfiguration(catalogueCode);
+            engine.fromString(date);
+            return true;
+        } catch (UnsupportedOperationException | DateTimeParseException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Check that there is a year plan for the cataloguecode and the year, without calculating it
+     * @param catalogueCode Catalogue code
+     * @param year Year
+     * @return True if the cataloguecode is supported and has a year plan, and the year is supported
+     */
+    private boolean hasYearPlan(final String catalogueCode, final Integer year) {
+        try {
+            return WeekResolverEngine.isSupportedYear(year) && engine.hasYearPlan(catalogueCode);
+        } catch (UnsupportedOperationException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Add the validators and caching headers of a response that only depends on the request and the rules
+     * @param response The response
+     * @param entityTag The entity tag
+     * @return The response
+     */
+    private Response cacheable(Response.ResponseBuilder response, String entityTag) {
+        return response
+                .header("ETag", entityTag)
+                .header("Cache-Control", "public, max-age=" + cacheMaxAge)
+                .build();
+    }
+
+    /**
+     * Add the caching headers of a response that is valid until the start of a day in the time zone of the engine
+     * @param response The response
+     * @param validUntil The first day with another response
+     * @return The response
+     */
+    private Response expiring(Response response, LocalDate validUntil) {
+        ZonedDateTime expires = validUntil.atStartOfDay(engine.getZoneId());
+        long maxAge = Math.max(0, Duration.between(Instant.now(), expires.toInstant()).getSeconds());
+        return Response.fromResponse(response)
+                .header("Cache-Control", "public, max-age=" + maxAge)
+                .header("Expires", DateTimeFormatter.RFC_1123_DATE_TIME.format(expires.withZoneSameInstant(ZoneOffset.UTC)))
+                .header("X-Valid-Until", DateTimeFormatter.ISO_OFFSET_DATE_TIME.format(expires))
+                .build();
+    }
+
+    /**
+     * JSON year plans are sent in the binary format instead, if preferred by the caller
+     * @param format The requested format
+     * @param accept The Accept header
+     * @return The format to use
+     */
+    private static YearPlanRendering negotiate(YearPlanFormat format, String accept) {
+        if (format == YearPlanFormat.JSON && WeekResolverBinaryFormat.isPreferred(accept)) {
+            return YearPlanRendering.BINARY;
+        }
+        return YearPlanRendering.of(format);
+    }
+
+    /**
+     * Get a year plan export based on format, years and catalogue codes
+     * @param format Format
+     * @param fromYear First year
+     * @param toYear Last year
+     * @param catalogueCodes Comma separated catalogue codes, or empty for all codes with a year plan
+     * @return A streamed ZIP archive on success
+     */
+    private Response getYearPlanExportFromCodesAndYears(final YearPlanFormat format, final Integer fromYear, final Integer toYear,
+                                                        final String catalogueCodes, Boolean showAbnormalDayNames, Boolean displayAllDates) {
+        if (fromYear > toYear || toYear - fromYear >= MAX_EXPORT_YEARS
+                || !WeekResolverEngine.isSupportedYear(fromYear) || !WeekResolverEngine.isSupportedYear(toYear)) {
+            LOGGER.error("Invalid years {} to {}", fromYear, toYear);
+            return Response.status(400, String.format("Invalid years, at most %d years within %d-%d can be exported",
+                    MAX_EXPORT_YEARS, WeekResolverEngine.FIRST_SUPPORTED_YEAR, WeekResolverEngine.LAST_SUPPORTED_YEAR)).build();
+        }
+
+        SortedSet<String> codes = new TreeSet<>();
+        if (catalogueCodes == null || catalogueCodes.isBlank()) {
+            for (String code : WeekResolverEngine.getRegistry().getCodes().keySet()) {
+                if (engine.hasYearPlan(code)) {
+                    codes.add(code);
+                }
+            }
+        } else {
+            for (String code : catalogueCodes.split(",")) {
+                code = code.trim().toUpperCase();
+                try {
+                    if (!engine.hasYearPlan(code)) {
+                        LOGGER.error("No year plan for cataloguecode {}", code);
+                        return Response.status(400, "No year plan for cataloguecode").build();
+                    }
+                } catch( UnsupportedOperationException unsupportedOperationException) {
+                    LOGGER.error("Unsupported cataloguecode {}", code);
+                    return Response.status(400, "Unsupported cataloguecode").build();
+                }
+                codes.add(code);
+            }
+        }
+
+        // Keep codes with the same year plan next to each other, then each year plan is only rendered once
+        List<YearPlanExport.Entry> entries = new ArrayList<>();
+        String extension = format.name().toLowerCase();
+        for (int year = fromYear; year <= toYear; year++) {
+            Map<WeekResolverEngine.YearPlanKey, List<String>> codesByYearPlan = new LinkedHashMap<>();
+            for (String code : codes) {
+                codesByYearPlan.computeIfAbsent(engine.yearPlanKey(code, year, showAbnormalDayNames, displayAllDates),
+                        key -> new ArrayList<>()).add(code);
+            }
+            for (Map.Entry<WeekResolverEngine.YearPlanKey, List<String>> yearPlan : codesByYearPlan.entrySet()) {
+                for (String code : yearPlan.getValue()) {
+                    entries.add(new YearPlanExport.Entry(String.format("%04d/%s.%s", year, code, extension), yearPlan.getKey()));
+                }
+            }
+        }
 
+        WeekResolverEngine exportEngine = engine;
+        YearPlanRendering rendering = YearPlanRendering.of(format);
+        YearPlanExport export = new YearPlanExport(workerPool.getPool(), entries, key -> getRenderedYearPlan(exportEngine, rendering, key));
+        return Response.ok(export, APPLICATION_ZIP)
+                .header("Content-Disposition", String.format("attachment; filename=\"yearplans-%04d-%04d-%s.zip\"", fromYear, toYear, extension))
+                .build();
+    }
+
+    /**
+     * Get a rendered year plan. The rendered year plan is the same for all codes with the same configuration,
+     * and never changes, so it is cached
+     * @param engine The engine
+     * @param format Format
+     * @param key The year plan
+     * @return The rendered year plan
+     */
+    private static byte[] getRenderedYearPlan(WeekResolverEngine engine, YearPlanRendering format, WeekResolverEngine.YearPlanKey key) {
+        return RENDERED_YEAR_PLANS.get(new RenderedYearPlanKey(engine, format, key), k -> render(format, engine.getYearPlan(key)));
+    }
+
+    private static byte[] render(YearPlanRendering format, YearPlanResult result) {
         try {
-            WeekResolver wr = new WeekResolver(timeZone).withCatalogueCode(catalogueCode);
+            if (format == YearPlanRendering.JSON) {
+                return jsonbContext.marshall(result).getBytes(StandardCharsets.UTF_8);
+            } else if (format == YearPlanRendering.CSV) {
+                return CsvFormatter.format(result).getBytes(StandardCharsets.UTF_8);
+            } else if (format == YearPlanRendering.BINARY) {
+                return WeekResolverBinaryFormat.encode(result);
+            } else {
+                return HtmlFormatter.format(result).getBytes(StandardCharsets.UTF_8);
+            }
+        } catch (JSONBException jsonbException) {
+            throw new RenderingException(jsonbException);
+        }
+    }
 
-            LocalDate startDate = wr.fromString(start);
-            LocalDate endDate = wr.fromString(end);
+    /**
+     * Get the weekcodes of a range of days, streamed
+     * @param catalogueCode Catalogue code
+     * @param start Start date
+     * @param end End date
+     * @param format Format
+     * @param intervals List runs of days with the same weekcode
+     * @return A day plan on success
+     */
+    private Response getDayPlanFromDateToDate(final String catalogueCode, final String start, final String end,
+                                              final DayPlanFormat format, final boolean intervals) {
+        String mediaType;
+        if (format == DayPlanFormat.JSON) {
+            mediaType = MediaType.APPLICATION_JSON;
+        } else if (format == DayPlanFormat.NDJSON) {
+            mediaType = APPLICATION_NDJSON;
+        } else if (format == DayPlanFormat.CSV) {
+            mediaType = TEXT_CSV;
+        } else {
+            LOGGER.error("Unsupported format {}", format);
+            return Response.status(400, "Unsupported format").build();
+        }
 
-            while (startDate.isBefore(endDate) || startDate.isEqual(endDate)) {
-                days.put(wr.rowContentFromDate(wr.fromLocalDate(startDate)).getContent(), wr.getWeekCode(startDate).getWeekCode());
-                startDate = startDate.plusDays(1);
+        try {
+            LocalDate startDate = engine.fromString(start);
+            LocalDate endDate = engine.fromString(end);
+
+            // Check the limits before streaming, so that the caller gets a proper status
+            long days = ChronoUnit.DAYS.between(startDate, endDate) + 1;
+            if (days > dayPlanMaxDays) {
+                LOGGER.error("Too many days from {} to {}: {}", start, end, days);
+                return Response.status(400, String.format("Too many days, at most %d days", dayPlanMaxDays)).build();
+            }
+            long calculatedDays = WeekCodeTable.daysOutsideTable(startDate, endDate);
+            if (calculatedDays > dayPlanMaxCalculatedDays) {
+                LOGGER.error("Too many days outside {}-{} from {} to {}: {}", WeekCodeTable.FIRST_YEAR, WeekCodeTable.LAST_YEAR, start, end, calculatedDays);
+                return Response.status(400, String.format("Too many days outside the years %d-%d, at most %d days",
+                        WeekCodeTable.FIRST_YEAR, WeekCodeTable.LAST_YEAR, dayPlanMaxCalculatedDays)).build();
             }
-            return Response.ok(jsonbContext.marshall(days), MediaType.APPLICATION_JSON).build();
+
+            return Response.ok(new DayPlanStream(engine, catalogueCode, startDate, endDate, format, intervals), mediaType).build();
         }
         catch( UnsupportedOperationException unsupportedOperationException) {
             LOGGER.error("Unsupported cataloguecode {}", catalogueCode);
@@ -379,9 +929,53 @@ public class WeekResolverService {
             LOGGER.error("Invalid date {} and/or {}: {}", start, end, dateTimeParseException.getCause());
             return Response.status( 400, "Unable to parse the dates").build();
         }
-        catch( JSONBException jsonbException ) {
-            LOGGER.error(String.format("Failed to serialize result object: %s", jsonbException.getCause()));
-            return Response.status(500, "Internal error when serializing result").build();
+    }
+
+    /**
+     * Formats that year plans are rendered in: the formats that can be requested in the path, and the binary format
+     * that is only sent instead of JSON when the caller prefers it (see {@link #negotiate(YearPlanFormat, String)})
+     */
+    private enum YearPlanRendering {
+        JSON,
+        CSV,
+        HTML,
+        BINARY;
+
+        static YearPlanRendering of(YearPlanFormat format) {
+            return valueOf(format.name());
+        }
+    }
+
+    private static final class RenderedYearPlanKey {
+        private final WeekResolverEngine engine;
+        private final YearPlanRendering format;
+        private final WeekResolverEngine.YearPlanKey yearPlan;
+
+        RenderedYearPlanKey(WeekResolverEngine engine, YearPlanRendering format, WeekResolverEngine.YearPlanKey yearPlan) {
+            this.engine = engine;
+            this.format = format;
+            this.yearPlan = yearPlan;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            RenderedYearPlanKey that = (RenderedYearPlanKey) o;
+            return engine == that.engine && format == that.format && yearPlan.equals(that.yearPlan);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(engine, format, yearPlan);
+        }
+    }
+
+    private static final class RenderingException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        RenderingException(JSONBException cause) {
+            super(cause);
         }
     }
 }
@@ -0,0 +1,45 @@
+package dk.dbc.weekresolver.service;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.ejb.Lock;
+import jakarta.ejb.LockType;
+import jakarta.ejb.Singleton;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The fork-join pool for work that is done in parallel within a single request, shared by all requests. The pool
+ * belongs to the application and is shut down with it, so its threads do not outlive a redeploy
+ */
+@Singleton
+public class WorkerPool {
+    private static final Logger LOGGER = LoggerFactory.getLogger(WorkerPool.class);
+
+    private ForkJoinPool pool;
+
+    @PostConstruct
+    public void init() {
+        pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+    }
+
+    @PreDestroy
+    public void destroy() {
+        pool.shutdownNow();
+        try {
+            if (!pool.awaitTermination(10, TimeUnit.SECONDS)) {
+                LOGGER.warn("Worker pool did not terminate");
+            }
+        } catch (InterruptedException interruptedException) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Lock(LockType.READ)
+    public ForkJoinPool getPool() {
+        return pool;
+    }
+}
@@ -0,0 +1,96 @@
+package dk.dbc.weekresolver.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Function;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import jakarta.ws.rs.core.StreamingOutput;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Streams a number of rendered year plans as a ZIP archive.
+ * <p>
+ * The year plans are rendered in parallel on the worker pool, a limited number of entries ahead of the entry
+ * being written, and each entry is written as soon as it is ready. So neither the archive nor all the year plans
+ * are held in memory. Entries with the same year plan (cataloguecodes with the same configuration) must be next
+ * to each other, then the year plan is only rendered once.
+ * </p>
+ */
+public class YearPlanExport implements StreamingOutput {
+    private static final Logger LOGGER = LoggerFactory.getLogger(YearPlanExport.class);
+
+    private final ForkJoinPool pool;
+    private final List<Entry> entries;
+    private final Function<WeekResolverEngine.YearPlanKey, byte[]> renderer;
+
+    // Number of entries being rendered ahead of the entry being written
+    private final int window;
+
+    /**
+     * @param pool The pool that renders the year plans (see {@link WorkerPool})
+     * @param entries The entries of the archive, in order
+     * @param renderer Function that renders a year plan
+     */
+    YearPlanExport(ForkJoinPool pool, List<Entry> entries, Function<WeekResolverEngine.YearPlanKey, byte[]> renderer) {
+        this.pool = pool;
+        this.entries = entries;
+        this.renderer = renderer;
+        this.window = 2 * pool.getParallelism();
+    }
+
+    @Override
+    public void write(OutputStream output) throws IOException {
+        LOGGER.info("Exporting {} year plans", entries.size());
+        HashMap<WeekResolverEngine.YearPlanKey, ForkJoinTask<byte[]>> tasks = new HashMap<>();
+        try {
+            ZipOutputStream zip = new ZipOutputStream(output);
+            int submitted = 0;
+            for (int i = 0; i < entries.size(); i++) {
+                for (; submitted < entries.size() && submitted <= i + window; submitted++) {
+                    tasks.computeIfAbsent(entries.get(submitted).yearPlan, key -> pool.submit(() -> renderer.apply(key)));
+                }
+
+                Entry entry = entries.get(i);
+                byte[] content = tasks.get(entry.yearPlan).join();
+                if (i + 1 == entries.size() || !entries.get(i + 1).yearPlan.equals(entry.yearPlan)) {
+                    tasks.remove(entry.yearPlan);
+                }
+
+                zip.putNextEntry(new ZipEntry(entry.name));
+                zip.write(content);
+                zip.closeEntry();
+            }
+
+            // Only finish the archive when all entries are written. If rendering fails, the response is
+            // aborted without the central directory, so that the client can not mistake it for a complete archive
+            zip.finish();
+            zip.flush();
+        } finally {
+            tasks.values().forEach(task -> task.cancel(false));
+        }
+    }
+
+    /**
+     * An entry of the archive
+     */
+    static final class Entry {
+        private final String name;
+        private final WeekResolverEngine.YearPlanKey yearPlan;
+
+        /**
+         * @param name Name of the entry (file) in the archive
+         * @param yearPlan The year plan
+         */
+        Entry(String name, WeekResolverEngine.YearPlanKey yearPlan) {
+            this.name = name;
+            this.yearPlan = yearPlan;
+        }
+    }
+}
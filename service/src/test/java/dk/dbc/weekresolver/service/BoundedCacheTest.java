@@ -0,0 +1,31 @@
+package dk.dbc.weekresolver.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+class BoundedCacheTest {
+
+    @Test
+    void testHitsAndMisses() {
+        BoundedCache<Integer, String> cache = new BoundedCache<>("test", 100);
+        assertThat(cache.get(1, String::valueOf), is("1"));
+        assertThat(cache.get(1, k -> "other"), is("1"));
+        assertThat(cache.get(2, String::valueOf), is("2"));
+
+        assertThat(cache.getHits(), is(1L));
+        assertThat(cache.getMisses(), is(2L));
+        assertThat(cache.size(), is(2));
+    }
+
+    @Test
+    void testEviction() {
+        BoundedCache<Integer, Integer> cache = new BoundedCache<>("test", 20);
+        for (int i = 0; i < 100; i++) {
+            assertThat(cache.get(i, k -> k * 2), is(i * 2));
+            assertThat(cache.size() <= 20, is(true));
+        }
+        assertThat(cache.getEvictions() > 0, is(true));
+    }
+}
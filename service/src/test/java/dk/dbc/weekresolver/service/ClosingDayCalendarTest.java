@@ -0,0 +1,59 @@
+package dk.dbc.weekresolver.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.Locale;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+class ClosingDayCalendarTest {
+    private final ClosingDayCalendar calendar = ClosingDayCalendar.forLocale(new Locale("da", "DK"));
+
+    @Test
+    void testSharedPerLocale() {
+        assertThat(ClosingDayCalendar.forLocale(new Locale("da", "DK")), is(sameInstance(calendar)));
+    }
+
+    @Test
+    void testClosingDays() {
+        // Easter 2024: maundy thursday, good friday and easter monday
+        assertThat(calendar.isClosingDay(LocalDate.parse("2024-03-27"), true), is(false));
+        assertThat(calendar.isClosingDay(LocalDate.parse("2024-03-28"), true), is(true));
+        assertThat(calendar.isClosingDay(LocalDate.parse("2024-03-29"), true), is(true));
+        assertThat(calendar.isClosingDay(LocalDate.parse("2024-04-01"), true), is(true));
+        assertThat(calendar.isClosingDay(LocalDate.parse("2024-04-02"), true), is(false));
+
+        // Week 52 of 2024 has only 1 working day, so it is closed unless end-of-year weeks are allowed
+        assertThat(calendar.isClosingDay(LocalDate.parse("2024-12-23"), true), is(false));
+        assertThat(calendar.isClosingDay(LocalDate.parse("2024-12-23"), false), is(true));
+    }
+
+    @Test
+    void testNextOpenDay() {
+        assertThat(calendar.nextOpenDay(LocalDate.parse("2024-03-28"), true), is(LocalDate.parse("2024-04-02")));
+        assertThat(calendar.nextOpenDay(LocalDate.parse("2024-04-02"), true), is(LocalDate.parse("2024-04-02")));
+
+        // Across the year change. Week 01 of 2025 has 3 working days, so it is allowed
+        assertThat(calendar.nextOpenDay(LocalDate.parse("2024-12-24"), true), is(LocalDate.parse("2024-12-30")));
+        assertThat(calendar.nextOpenDay(LocalDate.parse("2024-12-31"), true), is(LocalDate.parse("2025-01-02")));
+        assertThat(calendar.nextOpenDay(LocalDate.parse("2024-12-23"), false), is(LocalDate.parse("2024-12-30")));
+    }
+
+    @Test
+    void testClosedWeek() {
+        assertThat(calendar.isClosedWeek(LocalDate.parse("2024-12-25"), true), is(false));
+        assertThat(calendar.isClosedWeek(LocalDate.parse("2024-12-25"), false), is(true));
+        assertThat(calendar.isClosedWeek(LocalDate.parse("2024-12-30"), false), is(false));
+        assertThat(calendar.isClosedWeek(LocalDate.parse("2025-01-06"), false), is(false));
+    }
+
+    @Test
+    void testNumberOfWorkingDays() {
+        assertThat(calendar.numberOfWorkingDaysInWeekOf(LocalDate.parse("2024-12-23")), is(1));
+        assertThat(calendar.numberOfWorkingDaysInWeekOf(LocalDate.parse("2025-01-01")), is(3));
+        assertThat(calendar.numberOfWorkingDaysInWeekOf(LocalDate.parse("2025-01-08")), is(5));
+    }
+}
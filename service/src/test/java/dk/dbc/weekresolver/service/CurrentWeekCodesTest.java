@@ -0,0 +1,70 @@
+package dk.dbc.weekresolver.service;
+
+import dk.dbc.weekresolver.model.WeekResolverResult;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class CurrentWeekCodesTest {
+    private final WeekResolverEngine engine = WeekResolverEngine.of("Europe/Copenhagen");
+    private final ZoneId zone = engine.getZoneId();
+
+    @Test
+    void testSnapshot() {
+        TestClock clock = new TestClock(ZonedDateTime.of(2024, 12, 19, 23, 59, 0, 0, zone).toInstant());
+        CurrentWeekCodes currentWeekCodes = new CurrentWeekCodes(engine, clock);
+
+        assertThat(currentWeekCodes.refresh(), is(ZonedDateTime.of(2024, 12, 20, 0, 0, 0, 0, zone).toInstant()));
+        WeekResolverResult result = currentWeekCodes.get("bkm");
+        assertSame(result, engine.getCurrentWeekCode("BKM", LocalDate.parse("2024-12-19")));
+        assertThat(currentWeekCodes.get("BKM"), is(sameInstance(result)));
+        assertSame(currentWeekCodes.get("DIS"), engine.getCurrentWeekCode("DIS", LocalDate.parse("2024-12-19")));
+        assertThat(currentWeekCodes.get("BKM", LocalDate.parse("2024-12-19")), is(sameInstance(result)));
+        assertSame(currentWeekCodes.get("BKM", LocalDate.parse("2024-12-20")), engine.getCurrentWeekCode("BKM", LocalDate.parse("2024-12-20")));
+
+        // Expires at the start of the next day in the time zone of the engine
+        clock.instant = ZonedDateTime.of(2024, 12, 20, 0, 0, 0, 0, zone).toInstant();
+        assertSame(currentWeekCodes.get("BKM"), engine.getCurrentWeekCode("BKM", LocalDate.parse("2024-12-20")));
+        assertThat(currentWeekCodes.refresh(), is(ZonedDateTime.of(2024, 12, 21, 0, 0, 0, 0, zone).toInstant()));
+
+        assertThrows(UnsupportedOperationException.class, () -> currentWeekCodes.get("XYZ"));
+    }
+
+    private static void assertSame(WeekResolverResult actual, WeekResolverResult expected) {
+        assertThat(actual.getWeekCode(), is(expected.getWeekCode()));
+        assertThat(actual.getDate(), is(expected.getDate()));
+        assertThat(actual.getDescription().toString(), is(expected.getDescription().toString()));
+    }
+
+    private static class TestClock extends Clock {
+        private Instant instant;
+
+        TestClock(Instant instant) {
+            this.instant = instant;
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneId.of("UTC");
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Instant instant() {
+            return instant;
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package dk.dbc.weekresolver.service;
+
+import dk.dbc.weekresolver.model.DayPlanFormat;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+class DayPlanStreamTest {
+    private final WeekResolverEngine engine = WeekResolverEngine.of("Europe/Copenhagen");
+
+    @Test
+    void testFormats() throws IOException {
+        LocalDate start = LocalDate.parse("2024-11-07");
+        LocalDate end = LocalDate.parse("2024-11-08");
+
+        assertThat(write(start, end, DayPlanFormat.JSON),
+                is("{\"2024-11-07\":\"BKM202447\",\"2024-11-08\":\"BKM202448\"}"));
+        assertThat(write(start, end, DayPlanFormat.NDJSON),
+                is("{\"date\":\"2024-11-07\",\"weekCode\":\"BKM202447\"}\n{\"date\":\"2024-11-08\",\"weekCode\":\"BKM202448\"}\n"));
+        assertThat(write(start, end, DayPlanFormat.CSV),
+                is("Dato;Ugekode\n2024-11-07;BKM202447\n2024-11-08;BKM202448\n"));
+        assertThat(write(end, start, DayPlanFormat.JSON), is("{}"));
+    }
+
+    @Test
+    void testSameAsWeekCode() throws IOException {
+        LocalDate start = LocalDate.parse("2023-12-01");
+        String[] lines = write(start, LocalDate.parse("2024-02-01"), DayPlanFormat.CSV).split("\n");
+        for (int i = 1; i < lines.length; i++) {
+            LocalDate date = start.plusDays(i - 1);
+            assertThat(lines[i], is(date + ";" + engine.getWeekCode("BKM", date).getWeekCode()));
+        }
+    }
+
+    @Test
+    void testIntervals() throws IOException {
+        LocalDate start = LocalDate.parse("2024-11-07");
+        assertThat(write("BKM", start, LocalDate.parse("2024-11-15"), DayPlanFormat.JSON, true),
+                is("[[\"2024-11-07\",\"2024-11-07\",\"BKM202447\"],[\"2024-11-08\",\"2024-11-14\",\"BKM202448\"],"
+                        + "[\"2024-11-15\",\"2024-11-15\",\"BKM202449\"]]"));
+        assertThat(write("DIS", start, LocalDate.parse("2030-01-01"), DayPlanFormat.CSV, true),
+                is("Fra;Til;Ugekode\n2024-11-07;2030-01-01;DIS197605\n"));
+    }
+
+    @Test
+    void testIntervalsSameAsDays() throws IOException {
+        LocalDate start = LocalDate.parse("2015-10-01");
+        LocalDate end = LocalDate.parse("2041-03-01");
+        for (String code : List.of("BKM", "DPF", "EMO", "ACC", "DAN", "PLA")) {
+            String[] days = write(code, start, end, DayPlanFormat.CSV, false).split("\n");
+            String[] runs = write(code, start, end, DayPlanFormat.CSV, true).split("\n");
+            int day = 1;
+            for (int run = 1; run < runs.length; run++) {
+                String[] columns = runs[run].split(";");
+                for (LocalDate date = LocalDate.parse(columns[0]); !date.isAfter(LocalDate.parse(columns[1])); date = date.plusDays(1)) {
+                    assertThat(code, days[day++], is(date + ";" + columns[2]));
+                }
+                if (run > 1) {
+                    assertThat(code + " " + runs[run], columns[2].equals(runs[run - 1].split(";")[2]), is(false));
+                }
+            }
+            assertThat(code, day, is(days.length));
+        }
+    }
+
+    @Test
+    void testIntervalsWithRecurringWeekCode() throws IOException {
+        // Before the precomputed years, PLA199305 is given both before and after PLA199306
+        LocalDate start = LocalDate.parse("1993-05-01");
+        LocalDate end = LocalDate.parse("1993-07-31");
+        String runs = write("PLA", start, end, DayPlanFormat.CSV, true);
+        assertThat(runs.contains("1993-05-31;1993-05-31;PLA199305\n"), is(true));
+
+        String[] days = write("PLA", start, end, DayPlanFormat.CSV, false).split("\n");
+        String[] lines = runs.split("\n");
+        int day = 1;
+        for (int run = 1; run < lines.length; run++) {
+            String[] columns = lines[run].split(";");
+            for (LocalDate date = LocalDate.parse(columns[0]); !date.isAfter(LocalDate.parse(columns[1])); date = date.plusDays(1)) {
+                assertThat(days[day++], is(date + ";" + columns[2]));
+            }
+        }
+        assertThat(day, is(days.length));
+    }
+
+    private String write(LocalDate start, LocalDate end, DayPlanFormat format) throws IOException {
+        return write("BKM", start, end, format, false);
+    }
+
+    private String write(String catalogueCode, LocalDate start, LocalDate end, DayPlanFormat format, boolean intervals) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        new DayPlanStream(engine, catalogueCode, start, end, format, intervals).write(output);
+        return output.toString(StandardCharsets.UTF_8);
+    }
+}
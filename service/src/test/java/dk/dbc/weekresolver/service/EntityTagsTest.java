@@ -0,0 +1,38 @@
+package dk.dbc.weekresolver.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.ZoneId;
+import java.util.Locale;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+class EntityTagsTest {
+
+    @Test
+    void testFingerprint() {
+        WeekResolverEngine engine = WeekResolverEngine.of("Europe/Copenhagen");
+
+        assertThat(engine.getFingerprint().length(), is(20));
+        assertThat(engine.getFingerprint(), is(engine.getFingerprint()));
+        assertThat(WeekResolverEngine.of(ZoneId.of("UTC"), Locale.forLanguageTag("da-DK")).getFingerprint(),
+                is(not(engine.getFingerprint())));
+    }
+
+    @Test
+    void testMatches() {
+        String tag = EntityTags.of("0123456789abcdef0123", "json");
+        assertThat(tag, is("\"0123456789abcdef0123-json\""));
+
+        assertThat(EntityTags.matches(null, tag), is(false));
+        assertThat(EntityTags.matches("", tag), is(false));
+        assertThat(EntityTags.matches(tag, tag), is(true));
+        assertThat(EntityTags.matches("W/" + tag, tag), is(true));
+        assertThat(EntityTags.matches("\"other\", " + tag, tag), is(true));
+        assertThat(EntityTags.matches("*", tag), is(true));
+        assertThat(EntityTags.matches(EntityTags.of("0123456789abcdef0123", "binary"), tag), is(false));
+        assertThat(EntityTags.matches("\"0123456789abcdef0123-json", tag), is(false));
+    }
+}
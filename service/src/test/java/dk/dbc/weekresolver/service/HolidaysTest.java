@@ -0,0 +1,64 @@
+package dk.dbc.weekresolver.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+class HolidaysTest {
+
+    // Easter sundays (source https://ugenr.dk)
+    private static final List<String> EASTER_SUNDAYS = List.of(
+            "2016-03-27", "2017-04-16", "2018-04-01", "2019-04-21", "2020-04-12",
+            "2021-04-04", "2022-04-17", "2023-04-09", "2024-03-31", "2025-04-20",
+            "2026-04-05", "2027-03-28", "2028-04-16", "2029-04-01", "2030-04-21",
+            "2031-04-13", "2032-03-28", "2033-04-17", "2034-04-09", "2035-03-25",
+            "2036-04-13", "2037-04-05", "2038-04-25", "2039-04-10", "2040-04-01");
+
+    @Test
+    void testEasterSunday() {
+        for (String easterSunday : EASTER_SUNDAYS) {
+            LocalDate date = LocalDate.parse(easterSunday);
+            assertThat(easterSunday, Holidays.of(date.getYear()).getEasterSunday(), is(date));
+        }
+
+        // Outside the years that used to be supported
+        assertThat(Holidays.calculateEasterSunday(2000), is(LocalDate.parse("2000-04-23")));
+        assertThat(Holidays.calculateEasterSunday(2041), is(LocalDate.parse("2041-04-21")));
+        assertThat(Holidays.calculateEasterSunday(2285), is(LocalDate.parse("2285-03-22")));
+    }
+
+    @Test
+    void testRelatedHolidays() {
+        Holidays holidays = Holidays.of(2023);
+        assertThat(holidays, is(sameInstance(Holidays.of(2023))));
+        assertThat(holidays.getMaundyThursday(), is(LocalDate.parse("2023-04-06")));
+        assertThat(holidays.getEasterMonday(), is(LocalDate.parse("2023-04-10")));
+        assertThat(holidays.getPrayersDay(), is(LocalDate.parse("2023-05-05")));
+        assertThat(holidays.getAscensionDay(), is(LocalDate.parse("2023-05-18")));
+        assertThat(holidays.getPinchedFridayAfterAscensionDay(), is(LocalDate.parse("2023-05-19")));
+        assertThat(holidays.getPentecost(), is(LocalDate.parse("2023-05-28")));
+        assertThat(holidays.getWhitMonday(), is(LocalDate.parse("2023-05-29")));
+
+        assertThat(holidays.isWithinEaster(LocalDate.parse("2023-04-05")), is(false));
+        assertThat(holidays.isWithinEaster(LocalDate.parse("2023-04-06")), is(true));
+        assertThat(holidays.isWithinEaster(LocalDate.parse("2023-04-10")), is(true));
+        assertThat(holidays.isWithinEaster(LocalDate.parse("2023-04-11")), is(false));
+
+        // Store bededag is no longer a holiday from 2024
+        assertThat(Holidays.of(2024).getPrayersDay(), is(nullValue()));
+    }
+
+    @Test
+    void testOnlySupportedYearsAreKept() {
+        assertThat(Holidays.of(2999), is(sameInstance(Holidays.of(2999))));
+        assertThat(Holidays.of(99999), is(not(sameInstance(Holidays.of(99999)))));
+        assertThat(Holidays.of(99999).getEasterSunday(), is(Holidays.calculateEasterSunday(99999)));
+    }
+}
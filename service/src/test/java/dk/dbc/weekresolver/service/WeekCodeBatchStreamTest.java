@@ -0,0 +1,154 @@
+package dk.dbc.weekresolver.service;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+class WeekCodeBatchStreamTest {
+    private final WeekResolverEngine engine = WeekResolverEngine.of("Europe/Copenhagen");
+
+    @Test
+    void testNdjson() throws IOException {
+        String items = "{\"catalogueCode\":\"bkm\",\"date\":\"2024-11-07\"}\n"
+                + "\n"
+                + "{\"catalogueCode\":\"BKM\",\"date\":\"2024-11-08\",\"id\":17}\n"
+                + "{\"catalogueCode\":\"XYZ\",\"date\":\"2024-11-08\"}\n"
+                + "{\"catalogueCode\":\"BKM\",\"date\":\"2024-13-01\"}\n"
+                + "{\"catalogueCode\":\"BKM\"}\n"
+                + "{\"catalogueCode\":\"BKM\",\n"
+                + "[\"BKM\",\"2024-11-08\"]\n"
+                + "{\"catalogueCode\":\"DIS\",\"date\":\"2024-11-08\"}\n"
+                + "{\"catalogueCode\":\"BKM\",\"date\":\"+99999-06-01\"}";
+        assertThat(write(items, true), is(
+                "{\"catalogueCode\":\"bkm\",\"date\":\"2024-11-07\",\"weekCode\":\"BKM202447\"}\n"
+                + "{\"catalogueCode\":\"BKM\",\"date\":\"2024-11-08\",\"weekCode\":\"BKM202448\"}\n"
+                + "{\"catalogueCode\":\"XYZ\",\"date\":\"2024-11-08\",\"error\":\"Unsupported cataloguecode\"}\n"
+                + "{\"catalogueCode\":\"BKM\",\"date\":\"2024-13-01\",\"error\":\"Unable to parse the date\"}\n"
+                + "{\"catalogueCode\":\"BKM\",\"date\":null,\"error\":\"Missing catalogueCode or date\"}\n"
+                + "{\"catalogueCode\":null,\"date\":null,\"error\":\"Invalid JSON\"}\n"
+                + "{\"catalogueCode\":null,\"date\":null,\"error\":\"Item is not an object\"}\n"
+                + "{\"catalogueCode\":\"DIS\",\"date\":\"2024-11-08\",\"weekCode\":\"DIS197605\"}\n"
+                + "{\"catalogueCode\":\"BKM\",\"date\":\"+99999-06-01\",\"error\":\"Unable to resolve the date\"}\n"));
+    }
+
+    @Test
+    void testArray() throws IOException {
+        assertThat(write("[{\"catalogueCode\":\"bkm\",\"date\":\"2024-11-07\"}, {\"catalogueCode\":\"a\\\"b\",\"date\":\"x\"}]", false), is(
+                "[{\"catalogueCode\":\"bkm\",\"date\":\"2024-11-07\",\"weekCode\":\"BKM202447\"},"
+                + "{\"catalogueCode\":\"a\\\"b\",\"date\":\"x\",\"error\":\"Unsupported cataloguecode\"}]"));
+        assertThat(write(" [ ] ", false), is("[]"));
+
+        assertThrows(IllegalArgumentException.class, () -> write("{\"catalogueCode\":\"bkm\",\"date\":\"2024-11-07\"}", false));
+        assertThrows(IllegalArgumentException.class, () -> write("", false));
+        assertThrows(IllegalArgumentException.class, () -> write("[{\"catalogueCode\":\"bkm\",\"date\":\"2024-11-07\"},", false));
+    }
+
+    @Test
+    void testSameAsWeekCode() throws IOException {
+        // More than a chunk, so that the items are resolved in parallel
+        LocalDate start = LocalDate.parse("2023-12-01");
+        int days = 3 * WeekCodeBatchStream.CHUNK_SIZE + 17;
+        StringBuilder items = new StringBuilder();
+        for (int i = 0; i < days; i++) {
+            items.append("{\"catalogueCode\":\"DPF\",\"date\":\"").append(start.plusDays(i)).append("\"}\n");
+        }
+
+        String[] lines = write(items.toString(), true).split("\n");
+        assertThat(lines.length, is(days));
+        for (int i = 0; i < days; i++) {
+            LocalDate date = start.plusDays(i);
+            assertThat(lines[i], is("{\"catalogueCode\":\"DPF\",\"date\":\"" + date + "\",\"weekCode\":\""
+                    + engine.getWeekCode("DPF", date).getWeekCode() + "\"}"));
+        }
+    }
+
+    @Test
+    void testMaxItems() throws IOException {
+        String items = "{\"catalogueCode\":\"BKM\",\"date\":\"2024-11-07\"}\n".repeat(3);
+        assertThat(write(items, true, 3).split("\n").length, is(3));
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () -> write(items, true, 2));
+        assertThat(exception.getMessage(), is("No more than 2 items"));
+    }
+
+    @Test
+    void testReadBeforeWrite() throws IOException {
+        // All items are read and resolved before anything is written
+        String item = "{\"catalogueCode\":\"BKM\",\"date\":\"2024-11-07\"}\n";
+        ByteArrayInputStream input = new ByteArrayInputStream(item.repeat(2).getBytes(StandardCharsets.UTF_8));
+        WeekCodeBatchStream stream = new WeekCodeBatchStream(engine, ForkJoinPool.commonPool(), input, true, false, 10);
+        assertThat(input.available(), is(0));
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        stream.write(output);
+        assertThat(output.toString(StandardCharsets.UTF_8).split("\n").length, is(2));
+    }
+
+    @Test
+    void testClientSendingAllItemsBeforeReading() throws IOException {
+        // A batch (and its results) much larger than the socket buffers, sent by a client that does not read the
+        // response until the whole request is sent
+        HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/api/v1/date", exchange -> {
+            try {
+                WeekCodeBatchStream stream = new WeekCodeBatchStream(engine, ForkJoinPool.commonPool(),
+                        exchange.getRequestBody(), true, false, 100000);
+                exchange.sendResponseHeaders(200, 0);
+                stream.write(exchange.getResponseBody());
+            } finally {
+                exchange.close();
+            }
+        });
+        server.start();
+        try {
+            byte[] items = "{\"catalogueCode\":\"BKM\",\"date\":\"2024-11-07\"}\n".repeat(100000).getBytes(StandardCharsets.UTF_8);
+            HttpURLConnection connection = (HttpURLConnection) new URL("http://localhost:" + server.getAddress().getPort()
+                    + "/api/v1/date").openConnection();
+            connection.setDoOutput(true);
+            connection.setRequestMethod("POST");
+            connection.setRequestProperty("Content-Type", "application/x-ndjson");
+            connection.setFixedLengthStreamingMode(items.length);
+
+            long lines = assertTimeoutPreemptively(Duration.ofSeconds(60), () -> {
+                try (OutputStream output = connection.getOutputStream()) {
+                    output.write(items);
+                }
+                assertThat(connection.getResponseCode(), is(200));
+                try (InputStream input = connection.getInputStream()) {
+                    return new String(input.readAllBytes(), StandardCharsets.UTF_8).lines().count();
+                }
+            });
+            assertThat(lines, is(100000L));
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    private String write(String items, boolean ndjson) throws IOException {
+        return write(items, ndjson, 100000);
+    }
+
+    private String write(String items, boolean ndjson, int maxItems) throws IOException {
+        WeekCodeBatchStream stream = new WeekCodeBatchStream(engine, ForkJoinPool.commonPool(),
+                new ByteArrayInputStream(items.getBytes(StandardCharsets.UTF_8)), ndjson, false, maxItems);
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        stream.write(output);
+        return output.toString(StandardCharsets.UTF_8);
+    }
+}
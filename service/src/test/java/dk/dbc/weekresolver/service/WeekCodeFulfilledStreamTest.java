@@ -0,0 +1,101 @@
+package dk.dbc.weekresolver.service;
+
+import dk.dbc.weekresolver.model.WeekCodeFulfilledRequest;
+import dk.dbc.weekresolver.model.WeekResolverResult;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class WeekCodeFulfilledStreamTest {
+    private final WeekResolverEngine engine = WeekResolverEngine.of("Europe/Copenhagen");
+
+    @Test
+    void testFulfilled() throws IOException {
+        LocalDate date = LocalDate.parse("2024-11-07");
+        int current = Integer.parseInt(engine.getCurrentWeekCode("BKM", date).getWeekCode().substring(3));
+
+        Function<String, WeekResolverResult> currentWeekCode = code -> engine.getCurrentWeekCode(code, date);
+        WeekCodeFulfilledStream stream = new WeekCodeFulfilledStream(
+                List.of("BKM" + current, "bkm" + (current - 1), "BKM" + (current + 1), "DIS197605", "DPF" + (current + 1)), currentWeekCode);
+        assertThat(stream.getNumberOfCatalogueCodes(), is(3));
+        assertThat(write(stream), is("["
+                + "{\"requestedWeekCode\":\"BKM" + current + "\",\"isFulfilled\":true},"
+                + "{\"requestedWeekCode\":\"BKM" + (current - 1) + "\",\"isFulfilled\":true},"
+                + "{\"requestedWeekCode\":\"BKM" + (current + 1) + "\",\"isFulfilled\":false},"
+                + "{\"requestedWeekCode\":\"DIS197605\",\"isFulfilled\":true},"
+                + "{\"requestedWeekCode\":\"DPF" + (current + 1) + "\",\"isFulfilled\":false}]"));
+
+        assertThat(write(new WeekCodeFulfilledStream(List.of(), currentWeekCode)), is("[]"));
+    }
+
+    @Test
+    void testInvalid() {
+        LocalDate date = LocalDate.parse("2024-11-07");
+        Function<String, WeekResolverResult> currentWeekCode = code -> engine.getCurrentWeekCode(code, date);
+        assertThrows(IllegalArgumentException.class, () -> new WeekCodeFulfilledStream(List.of("BKM2024"), currentWeekCode));
+        assertThrows(IllegalArgumentException.class, () -> new WeekCodeFulfilledStream(List.of("BKM2024XX"), currentWeekCode));
+        assertThrows(IllegalArgumentException.class, () -> new WeekCodeFulfilledStream(Arrays.asList("BKM202401", null), currentWeekCode));
+        assertThrows(UnsupportedOperationException.class, () -> new WeekCodeFulfilledStream(List.of("XYZ202401"), currentWeekCode));
+    }
+
+    @Test
+    void testReadRequest() {
+        WeekCodeFulfilledRequest request = WeekCodeFulfilledStream.readRequest(input(
+                "{\"other\": {\"a\": [1]}, \"weekCodes\": [\"BKM202401\", null], \"date\": \"2024-11-07\"}"), 2);
+        assertThat(request.getWeekCodes(), is(Arrays.asList("BKM202401", null)));
+        assertThat(request.getDate(), is("2024-11-07"));
+
+        request = WeekCodeFulfilledStream.readRequest(input("{\"date\": null}"), 2);
+        assertThat(request.getWeekCodes(), is(nullValue()));
+        assertThat(request.getDate(), is(nullValue()));
+
+        assertThrows(IllegalArgumentException.class, () -> WeekCodeFulfilledStream.readRequest(input("[\"BKM202401\"]"), 2));
+        assertThrows(IllegalArgumentException.class, () -> WeekCodeFulfilledStream.readRequest(input("{\"weekCodes\": [1]}"), 2));
+        assertThrows(IllegalArgumentException.class, () -> WeekCodeFulfilledStream.readRequest(input("{\"weekCodes\": [\"BKM202401\""), 2));
+        assertThrows(IllegalArgumentException.class, () -> WeekCodeFulfilledStream.readRequest(input("{} {}"), 2));
+    }
+
+    @Test
+    void testReadTooManyWeekCodes() {
+        // The request is rejected before the rest of it is read
+        String weekCodes = IntStream.range(0, 10000).mapToObj(i -> "\"BKM202401\"").collect(Collectors.joining(","));
+        InputStream unreadable = new InputStream() {
+            @Override
+            public int read() throws IOException {
+                throw new IOException("Read beyond the maximum number of weekcodes");
+            }
+        };
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () -> WeekCodeFulfilledStream.readRequest(
+                new SequenceInputStream(input("{\"weekCodes\": [" + weekCodes + ","), unreadable), 100));
+        assertThat(exception.getMessage(), is("No more than 100 week codes"));
+
+        assertThat(WeekCodeFulfilledStream.readRequest(input("{\"weekCodes\": [\"BKM202401\", \"BKM202402\"]}"), 2)
+                .getWeekCodes().size(), is(2));
+    }
+
+    private static InputStream input(String request) {
+        return new ByteArrayInputStream(request.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private String write(WeekCodeFulfilledStream stream) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        stream.write(output);
+        return output.toString(StandardCharsets.UTF_8);
+    }
+}
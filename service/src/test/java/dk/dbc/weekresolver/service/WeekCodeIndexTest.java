@@ -0,0 +1,41 @@
+package dk.dbc.weekresolver.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+class WeekCodeIndexTest {
+    private static final LocalDate FIRST = LocalDate.parse("2024-01-01");
+
+    @Test
+    void testSingleRuns() {
+        WeekCodeIndex index = new WeekCodeIndex(date -> "2024" + (date.getMonthValue() < 10 ? "0" : "") + date.getMonthValue(),
+                FIRST, LocalDate.parse("2024-12-31"));
+        assertThat(index.hasSingleRuns(), is(true));
+        assertThat(index.getInterval("202402").getFrom(), is(LocalDate.parse("2024-02-01")));
+        assertThat(index.getInterval("202402").getTo(), is(LocalDate.parse("2024-02-29")));
+
+        // The first and the last run may continue outside the range
+        assertThat(index.getInterval("202401"), is(nullValue()));
+        assertThat(index.getInterval("202412"), is(nullValue()));
+        assertThat(index.size(), is(10));
+    }
+
+    @Test
+    void testRecurringWeekCode() {
+        // Same as PLA before the precomputed years, where a weekcode may be given again after a later weekcode
+        String[] weekCodes = {"01", "02", "03", "02", "04", "05"};
+        WeekCodeIndex index = new WeekCodeIndex(date -> weekCodes[Math.min((date.getDayOfMonth() - 1) / 5, 5)],
+                FIRST, LocalDate.parse("2024-01-31"));
+        assertThat(index.hasSingleRuns(), is(false));
+        assertThat(index.getInterval("02"), is(nullValue()));
+        assertThat(index.getInterval("03").getFrom(), is(LocalDate.parse("2024-01-11")));
+        assertThat(index.getInterval("03").getTo(), is(LocalDate.parse("2024-01-15")));
+        assertThat(index.getInterval("04").getFrom(), is(LocalDate.parse("2024-01-21")));
+        assertThat(index.size(), is(2));
+    }
+}
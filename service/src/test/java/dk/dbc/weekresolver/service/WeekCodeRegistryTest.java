@@ -0,0 +1,104 @@
+package dk.dbc.weekresolver.service;
+
+import dk.dbc.commons.jsonb.JSONBContext;
+import dk.dbc.commons.jsonb.JSONBException;
+import dk.dbc.weekresolver.model.WeekCodeConfiguration;
+import org.junit.jupiter.api.Test;
+
+import java.io.StringReader;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.Map;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.lessThan;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class WeekCodeRegistryTest {
+
+    @Test
+    void testConfigurationEquality() {
+        WeekCodeConfiguration a = new WeekCodeConfiguration().withShiftDay(DayOfWeek.FRIDAY).addWeeks(2);
+        WeekCodeConfiguration b = new WeekCodeConfiguration().addWeeks(2).withShiftDay(DayOfWeek.FRIDAY);
+        WeekCodeConfiguration c = new WeekCodeConfiguration().addWeeks(2).withShiftDay(DayOfWeek.FRIDAY).allowEndOfYear();
+
+        assertThat(a, is(b));
+        assertThat(a.hashCode(), is(b.hashCode()));
+        assertThat(a.fingerprint(), is(b.fingerprint()));
+        assertThat(a, is(not(c)));
+        assertThat(a.fingerprint(), is(not(c.fingerprint())));
+    }
+
+    @Test
+    void testEqualConfigurationsAreShared() {
+        WeekCodeRegistry registry = new WeekCodeRegistry(Map.of(
+                "aaa", new WeekCodeConfiguration().allowEndOfYear().ignoreClosingDays(),
+                "BBB", new WeekCodeConfiguration().allowEndOfYear().ignoreClosingDays(),
+                "CCC", new WeekCodeConfiguration().withShiftDay(DayOfWeek.FRIDAY)));
+
+        assertThat(registry.getConfiguration("AAA"), is(sameInstance(registry.getConfiguration("bbb"))));
+        assertThat(registry.getConfiguration("AAA"), is(not(registry.getConfiguration("CCC"))));
+        assertThat(registry.getConfiguration("DDD"), is(nullValue()));
+        assertThat(registry.getConfigurations().size(), is(2));
+        assertThat(registry.getCodes(registry.getConfiguration("aaa")), contains("AAA", "BBB"));
+    }
+
+    @Test
+    void testDefaultCodes() {
+        WeekCodeRegistry registry = WeekResolverEngine.DEFAULT_REGISTRY;
+        assertThat(registry.getConfiguration("ACC"), is(sameInstance(registry.getConfiguration("ACE"))));
+        assertThat(registry.getConfiguration("DPF"), is(sameInstance(registry.getConfiguration("FPF"))));
+        assertThat(registry.getConfigurations().size(), is(lessThan(registry.getCodes().size() / 3)));
+    }
+
+    @Test
+    void testRead() throws JSONBException {
+        WeekCodeRegistry registry = WeekCodeRegistry.read(new StringReader(
+                "{\"aaa\": {\"addWeeks\": 1, \"shiftDay\": \"FRIDAY\", \"allowEndOfYear\": true}, \"BBB\": {\"fixedWeekCode\": \"197605\", \"shiftDay\": null}}"));
+        assertThat(registry.getConfiguration("AAA"), is(new WeekCodeConfiguration().addWeeks(1).withShiftDay(DayOfWeek.FRIDAY).allowEndOfYear()));
+        assertThat(registry.getConfiguration("BBB"), is(new WeekCodeConfiguration().withFixedWeekCode("197605")));
+
+        // Same form as the v1/codes endpoint
+        String codes = new JSONBContext().marshall(WeekResolverEngine.DEFAULT_REGISTRY.getCodes());
+        assertThat(WeekCodeRegistry.read(new StringReader(codes)).getCodes(), is(WeekResolverEngine.DEFAULT_REGISTRY.getCodes()));
+
+        for (String invalid : new String[] {"", "[]", "{}", "{\"AAAA\": {}}", "{\"AAA\": 1}", "{\"AAA\": {}, \"aaa\": {}}",
+                "{\"AAA\": {\"shiftDay\": \"FREDAG\"}}", "{\"AAA\": {\"addWeeks\": -1}}", "{\"AAA\": {\"addWeeks\": \"1\"}}",
+                "{\"AAA\": {\"fixedWeekCode\": \"1976\"}}", "{\"AAA\": {\"allowEndOfYear\": 1}}", "{\"AAA\": {\"shift\": \"FRIDAY\"}}"}) {
+            assertThrows(IllegalArgumentException.class, () -> WeekCodeRegistry.read(new StringReader(invalid)), invalid);
+        }
+    }
+
+    @Test
+    void testSetRegistry() {
+        WeekResolverEngine engine = WeekResolverEngine.of("Europe/Copenhagen");
+        String fingerprint = engine.getFingerprint();
+        LocalDate today = LocalDate.now(engine.getZoneId());
+        String weekCode = engine.getWeekCode("BKM", LocalDate.parse("2024-12-20")).getWeekCode();
+        String dpf = engine.getWeekCode("DPF", LocalDate.parse("2024-12-20")).getWeekCode();
+        try {
+            WeekResolverEngine.setRegistry(new WeekCodeRegistry(Map.of("XYZ", engine.getConfiguration("BKM"))));
+            assertThat(engine.getWeekCode("xyz", LocalDate.parse("2024-12-20")).getWeekCode(), is("XYZ" + weekCode.substring(3)));
+            assertThat(engine.getCurrentWeekCodes().get("XYZ").getWeekCode(), is(engine.getCurrentWeekCode("XYZ", today).getWeekCode()));
+            assertThrows(UnsupportedOperationException.class, () -> engine.getConfiguration("BKM"));
+            assertThrows(UnsupportedOperationException.class, () -> engine.getCurrentWeekCodes().get("BKM"));
+            assertThat(WeekResolverEngine.CODES.keySet(), contains("XYZ"));
+            assertThat(engine.getFingerprint(), is(not(fingerprint)));
+            assertThat(engine.hasPipeline(engine.getConfiguration("XYZ")), is(true));
+
+            // A request that still uses the old registry gets its weekcode, but the pipeline is not kept
+            WeekCodeConfiguration dropped = WeekResolverEngine.DEFAULT_REGISTRY.getConfiguration("DPF");
+            assertThat(engine.resolveWeekCode(dropped, "DPF", LocalDate.parse("2024-12-20")), is(dpf));
+            assertThat(engine.hasPipeline(dropped), is(false));
+        } finally {
+            WeekResolverEngine.setRegistry(WeekResolverEngine.DEFAULT_REGISTRY);
+        }
+        assertThat(engine.getFingerprint(), is(fingerprint));
+        assertThat(engine.getCurrentWeekCodes().get("BKM").getWeekCode(), is(engine.getCurrentWeekCode("BKM", today).getWeekCode()));
+    }
+}
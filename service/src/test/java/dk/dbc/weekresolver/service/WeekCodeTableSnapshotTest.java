@@ -0,0 +1,76 @@
+package dk.dbc.weekresolver.service;
+
+import dk.dbc.weekresolver.model.WeekCodeConfiguration;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class WeekCodeTableSnapshotTest {
+    private final WeekResolverEngine engine = WeekResolverEngine.of("Europe/Copenhagen");
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testWriteAndMap() throws IOException {
+        Path path = directory.resolve("tables.bin");
+        WeekCodeTableSnapshot.write(engine, WeekResolverEngine.DEFAULT_REGISTRY.getConfigurations(), path);
+        WeekCodeTableSnapshot snapshot = WeekCodeTableSnapshot.map(path);
+
+        assertThat(snapshot.size(), is(WeekResolverEngine.DEFAULT_REGISTRY.getConfigurations().size()));
+        assertThat(snapshot.getCalendarFingerprint(), is(engine.getCalendarFingerprint()));
+        for (WeekCodeConfiguration configuration : WeekResolverEngine.DEFAULT_REGISTRY.getConfigurations()) {
+            int[] table = new int[WeekCodeTable.DAYS];
+            snapshot.getTable(configuration).duplicate().get(table);
+            assertThat(Arrays.equals(table, engine.getTable(configuration)), is(true));
+        }
+        assertThat(snapshot.getTable(new WeekCodeConfiguration().addWeeks(7)), is(nullValue()));
+
+        // An engine with the same closing days gives the same results from the snapshot. The engine is not
+        // shared, so the snapshot is not used by other tests
+        WeekResolverEngine mapped = WeekResolverEngine.unshared(ZoneId.of("UTC"), WeekResolverEngine.DEFAULT_LOCALE);
+        mapped.useTableSnapshot(snapshot);
+        for (String code : List.of("BKM", "DPF", "PLA", "ACC", "EMO")) {
+            for (LocalDate date = LocalDate.parse("2023-11-01"); date.isBefore(LocalDate.parse("2025-03-01")); date = date.plusDays(1)) {
+                assertThat(code + " " + date, mapped.getWeekCode(code, date).getWeekCode(), is(engine.getWeekCode(code, date).getWeekCode()));
+                assertThat(code + " " + date, mapped.getCurrentWeekCode(code, date).getWeekCode(), is(engine.getCurrentWeekCode(code, date).getWeekCode()));
+            }
+        }
+        assertThat(mapped.getWeekCode("BKM", LocalDate.parse("2050-06-01")), is(notNullValue()));
+        assertThat(WeekResolverEngine.of(ZoneId.of("UTC"), WeekResolverEngine.DEFAULT_LOCALE), is(not(sameInstance(mapped))));
+
+        WeekResolverEngine other = WeekResolverEngine.unshared(ZoneId.of("UTC"), Locale.forLanguageTag("sv-SE"));
+        assertThrows(IllegalArgumentException.class, () -> other.useTableSnapshot(snapshot));
+    }
+
+    @Test
+    void testInvalidFile() throws IOException {
+        Path path = directory.resolve("tables.bin");
+        WeekCodeTableSnapshot.write(engine, WeekResolverEngine.DEFAULT_REGISTRY.getConfigurations(), path);
+        byte[] bytes = Files.readAllBytes(path);
+
+        Files.write(path, Arrays.copyOf(bytes, bytes.length - 4));
+        assertThrows(IllegalArgumentException.class, () -> WeekCodeTableSnapshot.map(path));
+        Files.write(path, Arrays.copyOf(bytes, 20));
+        assertThrows(IllegalArgumentException.class, () -> WeekCodeTableSnapshot.map(path));
+        bytes[0] = 0;
+        Files.write(path, bytes);
+        assertThrows(IllegalArgumentException.class, () -> WeekCodeTableSnapshot.map(path));
+    }
+}
@@ -0,0 +1,52 @@
+package dk.dbc.weekresolver.service;
+
+import dk.dbc.weekresolver.model.WeekCodeConfiguration;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.Locale;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class WeekCodeTableTest {
+    private static final Locale LOCALE = new Locale("da", "DK");
+
+    @Test
+    void testTableMatchesRules() {
+        WeekResolverEngine rules = WeekResolverEngine.of(WeekResolverEngine.DEFAULT_ZONE, LOCALE);
+        WeekCodeConfiguration configuration = rules.getConfiguration("BKM");
+        WeekCodeTable table = new WeekCodeTable(date -> rules.calculateWeekCodeDate(configuration, date),
+                date -> rules.calculateCurrentWeekCodeDate(configuration, date));
+
+        for (LocalDate date = LocalDate.parse("2024-01-01"); date.getYear() < 2026; date = date.plusDays(1)) {
+            assertThat(date.toString(), table.getWeekCodeDate(date), is(rules.calculateWeekCodeDate(configuration, date)));
+            assertThat(date.toString(), table.getCurrentWeekCodeDate(date), is(rules.calculateCurrentWeekCodeDate(configuration, date)));
+        }
+    }
+
+    @Test
+    void testOutsideTable() {
+        WeekCodeTable table = new WeekCodeTable(date -> date.plusDays(1), date -> date.plusDays(2));
+        LocalDate before = LocalDate.of(WeekCodeTable.FIRST_YEAR - 1, 6, 1);
+        LocalDate after = LocalDate.of(WeekCodeTable.LAST_YEAR + 1, 6, 1);
+
+        assertThat(table.getWeekCodeDate(before), is(before.plusDays(1)));
+        assertThat(table.getCurrentWeekCodeDate(after), is(after.plusDays(2)));
+    }
+
+    @Test
+    void testUnresolvedDaysUseRules() {
+        WeekCodeTable table = new WeekCodeTable(date -> {
+            if (date.getDayOfMonth() == 1) {
+                throw new IllegalStateException("no answer");
+            }
+            return date;
+        }, date -> date);
+        LocalDate date = LocalDate.parse("2030-03-02");
+
+        assertThat(table.getWeekCodeDate(date), is(date));
+        assertThrows(IllegalStateException.class, () -> table.getWeekCodeDate(date.minusDays(1)));
+    }
+}
@@ -0,0 +1,43 @@
+package dk.dbc.weekresolver.service;
+
+import dk.dbc.weekresolver.model.WeekNumbering;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Locale;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+class WeekNumberingTest {
+
+    @Test
+    void testSameAsFormatter() {
+        for (Locale locale : List.of(new Locale("da", "DK"), new Locale("en", "US"), new Locale("ar", "EG"), new Locale("en", "GB"))) {
+            WeekNumbering weekNumbering = WeekNumbering.of(locale);
+            DateTimeFormatter week = DateTimeFormatter.ofPattern("w", locale);
+            //noinspection SuspiciousDateFormat
+            DateTimeFormatter weekYear = DateTimeFormatter.ofPattern("YYYY", locale);
+
+            for (LocalDate date = LocalDate.parse("1990-01-01"); date.getYear() < 2060; date = date.plusDays(1)) {
+                assertThat(locale + " " + date, weekNumbering.weekOfWeekBasedYear(date), is(Integer.parseInt(date.format(week))));
+                assertThat(locale + " " + date, weekNumbering.weekBasedYear(date), is(Integer.parseInt(date.format(weekYear))));
+            }
+        }
+    }
+
+    @Test
+    void testStartOfNextWeek() {
+        WeekNumbering danish = WeekNumbering.of(new Locale("da", "DK"));
+        WeekNumbering american = WeekNumbering.of(new Locale("en", "US"));
+
+        // 2025-01-01 is a wednesday
+        assertThat(danish.startOfNextWeek(LocalDate.parse("2025-01-01")), is(LocalDate.parse("2025-01-06")));
+        assertThat(danish.startOfNextWeek(LocalDate.parse("2025-01-05")), is(LocalDate.parse("2025-01-06")));
+        assertThat(danish.startOfNextWeek(LocalDate.parse("2025-01-06")), is(LocalDate.parse("2025-01-13")));
+        assertThat(american.startOfNextWeek(LocalDate.parse("2025-01-01")), is(LocalDate.parse("2025-01-05")));
+        assertThat(american.startOfNextWeek(LocalDate.parse("2025-01-05")), is(LocalDate.parse("2025-01-12")));
+    }
+}
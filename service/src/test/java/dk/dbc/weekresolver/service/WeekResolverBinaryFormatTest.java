@@ -0,0 +1,88 @@
+package dk.dbc.weekresolver.service;
+
+import dk.dbc.commons.jsonb.JSONBContext;
+import dk.dbc.commons.jsonb.JSONBException;
+import dk.dbc.weekresolver.model.WeekCodeBatchItem;
+import dk.dbc.weekresolver.model.WeekResolverBinaryFormat;
+import dk.dbc.weekresolver.model.WeekResolverResult;
+import dk.dbc.weekresolver.model.YearPlanResult;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.lessThan;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class WeekResolverBinaryFormatTest {
+    private final JSONBContext jsonbContext = new JSONBContext();
+    private final WeekResolverEngine engine = WeekResolverEngine.of("Europe/Copenhagen");
+
+    @Test
+    void testResult() throws IOException, JSONBException {
+        for (String code : List.of("BKM", "DPF", "ACC", "DIS", "FSF", "PLA")) {
+            for (LocalDate date = LocalDate.parse("2024-12-01"); date.isBefore(LocalDate.parse("2025-01-15")); date = date.plusDays(1)) {
+                for (WeekResolverResult result : List.of(engine.getWeekCode(code, date, true), engine.getCurrentWeekCode(code, date))) {
+                    byte[] encoded = WeekResolverBinaryFormat.encode(result, engine.getZoneId());
+                    WeekResolverResult decoded = WeekResolverBinaryFormat.decodeResult(new ByteArrayInputStream(encoded));
+                    assertThat(jsonbContext.marshall(decoded), is(jsonbContext.marshall(result)));
+                }
+            }
+        }
+
+        WeekResolverResult result = engine.getWeekCode("BKM", LocalDate.parse("2025-01-01"));
+        assertThat(WeekResolverBinaryFormat.encode(result, engine.getZoneId()).length,
+                lessThan(jsonbContext.marshall(result).getBytes(StandardCharsets.UTF_8).length / 4));
+    }
+
+    @Test
+    void testYearPlan() throws IOException, JSONBException {
+        for (boolean display : List.of(true, false)) {
+            YearPlanResult yearPlan = engine.getYearPlan("BKM", 2025, true, display);
+            byte[] encoded = WeekResolverBinaryFormat.encode(yearPlan);
+            YearPlanResult decoded = WeekResolverBinaryFormat.decodeYearPlan(new ByteArrayInputStream(encoded));
+            assertThat(jsonbContext.marshall(decoded), is(jsonbContext.marshall(yearPlan)));
+        }
+    }
+
+    @Test
+    void testBatch() throws IOException {
+        String items = "{\"catalogueCode\":\"bkm\",\"date\":\"2024-11-07\"}\n"
+                + "{\"catalogueCode\":\"DPF\",\"date\":\"2024-11-07\"}\n"
+                + "{\"catalogueCode\":\"XYZ\",\"date\":\"2024-11-08\"}\n"
+                + "{\"catalogueCode\":\"BKM\",\"date\":\"2024-11-08\"}\n"
+                + "no json\n";
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        new WeekCodeBatchStream(engine, ForkJoinPool.commonPool(), new ByteArrayInputStream(items.getBytes(StandardCharsets.UTF_8)), true, true, 100).write(output);
+
+        List<WeekCodeBatchItem> decoded = WeekResolverBinaryFormat.decodeBatch(new ByteArrayInputStream(output.toByteArray()));
+        assertThat(decoded.size(), is(5));
+        assertThat(decoded.get(0).getWeekCode(), is("BKM202447"));
+        assertThat(decoded.get(1).getWeekCode(), is(engine.getWeekCode("DPF", LocalDate.parse("2024-11-07")).getWeekCode()));
+        assertThat(decoded.get(2).getError(), is(WeekResolverBinaryFormat.ERROR_UNSUPPORTED));
+        assertThat(decoded.get(3).getWeekCode(), is("BKM202448"));
+        assertThat(decoded.get(4).getError(), is(WeekResolverBinaryFormat.ERROR_INVALID_JSON));
+
+        // A batch that is cut short is not mistaken for a complete batch
+        byte[] truncated = new byte[output.size() - 1];
+        System.arraycopy(output.toByteArray(), 0, truncated, 0, truncated.length);
+        assertThrows(IOException.class, () -> WeekResolverBinaryFormat.decodeBatch(new ByteArrayInputStream(truncated)));
+    }
+
+    @Test
+    void testPreferred() {
+        assertThat(WeekResolverBinaryFormat.isPreferred(null), is(false));
+        assertThat(WeekResolverBinaryFormat.isPreferred("application/json"), is(false));
+        assertThat(WeekResolverBinaryFormat.isPreferred("*/*"), is(false));
+        assertThat(WeekResolverBinaryFormat.isPreferred(WeekResolverBinaryFormat.MEDIA_TYPE), is(true));
+        assertThat(WeekResolverBinaryFormat.isPreferred(WeekResolverBinaryFormat.MEDIA_TYPE + ", application/json;q=0.5"), is(true));
+        assertThat(WeekResolverBinaryFormat.isPreferred("application/json, " + WeekResolverBinaryFormat.MEDIA_TYPE + ";q=0.5"), is(false));
+    }
+}
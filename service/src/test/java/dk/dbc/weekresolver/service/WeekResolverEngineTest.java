@@ -0,0 +1,187 @@
+package dk.dbc.weekresolver.service;
+
+import dk.dbc.weekresolver.model.WeekCodeConfiguration;
+import dk.dbc.weekresolver.model.WeekCodeDecision;
+import dk.dbc.weekresolver.model.WeekCodeIntervalResult;
+import dk.dbc.weekresolver.model.WeekResolverResult;
+import dk.dbc.weekresolver.model.YearPlanResult;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+class WeekResolverEngineTest {
+    private final WeekResolverEngine engine = WeekResolverEngine.of("Europe/Copenhagen");
+
+    @Test
+    void testSharedPerZoneAndLocale() {
+        assertThat(WeekResolverEngine.of(ZoneId.of("Europe/Copenhagen"), new Locale("da", "DK")), is(sameInstance(engine)));
+        assertThat(WeekResolverEngine.of(ZoneId.of("UTC"), new Locale("da", "DK")), is(not(sameInstance(engine))));
+    }
+
+    @Test
+    void testCodesAreUnmodifiable() {
+        assertThrows(UnsupportedOperationException.class, () -> WeekResolverEngine.CODES.put("XXX", new WeekCodeConfiguration()));
+        assertThrows(UnsupportedOperationException.class, () -> engine.getConfiguration("XXX"));
+    }
+
+    @Test
+    void testSameAsBuilder() {
+        WeekResolver resolver = new WeekResolver("Europe/Copenhagen").withCatalogueCode("bkm");
+        for (LocalDate date = LocalDate.parse("2024-11-01"); date.isBefore(LocalDate.parse("2025-02-01")); date = date.plusDays(1)) {
+            assertThat(engine.getWeekCode("bkm", date).getWeekCode(), is(resolver.getWeekCode(date).getWeekCode()));
+            assertThat(engine.getCurrentWeekCode("bkm", date).getWeekCode(), is(resolver.getCurrentWeekCode(date).getWeekCode()));
+        }
+    }
+
+    @Test
+    void testSharedDescriptionsAreNotChangedByYearPlan() {
+        LocalDate date = LocalDate.parse("2024-12-30");
+        String before = engine.getWeekCode("BKM", date).getDescription().toString();
+        engine.getYearPlan("BKM", 2024, true, true);
+        engine.getYearPlan("BKM", 2025, true, true);
+
+        assertThat(engine.getWeekCode("BKM", date).getDescription().toString(), is(before));
+    }
+
+    @Test
+    void testCachedResultsAreNotChangedByCallers() {
+        LocalDate date = LocalDate.parse("2024-12-30");
+        String description = engine.getWeekCode("BKM", date).getDescription().toString();
+        engine.getWeekCode("BKM", date).getDescription().setWeekCodeShort("changed");
+        engine.getCurrentWeekCode("BKM", date).getDescription().setWeekCodeShort("changed");
+        assertThat(engine.getWeekCode("BKM", date).getDescription().toString(), is(description));
+
+        String yearPlan = CsvFormatter.format(engine.getYearPlan("BKM", 2025, true, true));
+        YearPlanResult changed = engine.getYearPlan("BKM", 2025, true, true);
+        changed.getRows().get(1).getColumns().get(0).setContent("changed");
+        changed.getRows().remove(2);
+        assertThat(CsvFormatter.format(engine.getYearPlan("BKM", 2025, true, true)), is(yearPlan));
+    }
+
+    @Test
+    void testExplain() {
+        // Friday before christmas: shiftday, then closed weeks and the added weeks
+        WeekResolverResult result = engine.getWeekCode("BKM", LocalDate.parse("2024-12-20"), true);
+        assertThat(result.getWeekCode(), is(engine.getWeekCode("BKM", LocalDate.parse("2024-12-20")).getWeekCode()));
+        assertThat(result.getDecisions().get(0).getRule(), is(WeekCodeDecision.Rule.SHIFT_DAY));
+        assertThat(result.getDecisions().get(0).getFrom(), is(LocalDate.parse("2024-12-20")));
+
+        // No decisions unless asked for, and none for codes that does not move the date
+        assertThat(engine.getWeekCode("BKM", LocalDate.parse("2024-12-20")).getDecisions(), is(nullValue()));
+        assertThat(engine.getWeekCode("ACC", LocalDate.parse("2024-06-12"), true).getDecisions().isEmpty(), is(true));
+    }
+
+    @Test
+    void testExplainSameAsTable() {
+        for (LocalDate date = LocalDate.parse("2024-11-01"); date.isBefore(LocalDate.parse("2025-05-01")); date = date.plusDays(1)) {
+            for (String code : List.of("BKM", "DPF", "ACC")) {
+                WeekResolverResult explained = engine.getWeekCode(code, date, true);
+                assertThat(code + " " + date, explained.getWeekCode(), is(engine.getWeekCode(code, date).getWeekCode()));
+                if (!explained.getDecisions().isEmpty()) {
+                    WeekCodeDecision last = explained.getDecisions().get(explained.getDecisions().size() - 1);
+                    assertThat(code + " " + date, engine.fromLocalDate(last.getTo()), is(explained.getDate()));
+                }
+                assertThat(code + " " + date, engine.getCurrentWeekCode(code, date, true).getWeekCode(),
+                        is(engine.getCurrentWeekCode(code, date).getWeekCode()));
+            }
+        }
+    }
+
+    @Test
+    void testYearPlanSharedByCodesWithSameRules() {
+        YearPlanResult bkm = engine.getYearPlan(engine.yearPlanKey("BKM", 2025, true, false));
+        assertThat(engine.getYearPlan(engine.yearPlanKey("DBF", 2025, true, false)), is(sameInstance(bkm)));
+        assertThat(engine.getYearPlan(engine.yearPlanKey("BKM", 2025, false, false)), is(not(sameInstance(bkm))));
+        assertThat(engine.getYearPlan(engine.yearPlanKey("BKX", 2025, true, false)), is(not(sameInstance(bkm))));
+    }
+
+    @Test
+    void testYearPlanSameAsCsvFixtures() throws IOException {
+        for (int year = 2021; year <= 2026; year++) {
+            try (InputStream fixture = getClass().getClassLoader().getResourceAsStream(year + ".csv")) {
+                String expected = new String(Objects.requireNonNull(fixture).readAllBytes(), StandardCharsets.UTF_8).trim();
+                assertThat(String.valueOf(year), CsvFormatter.format(engine.getYearPlan("BKM", year, true, true)), is(expected));
+            }
+        }
+    }
+
+    @Test
+    void testYearPlanWithoutProductionStops() {
+        // Codes without a shiftday never have a production week, so only the hard limit stops the sweep
+        assertThat(engine.hasYearPlan("DAN"), is(false));
+        assertThrows(UnsupportedOperationException.class, () -> engine.getYearPlan("DAN", 2024, true, false));
+        YearPlanResult yearPlan = assertTimeoutPreemptively(Duration.ofSeconds(5),
+                () -> engine.calculateYearPlan(engine.getConfiguration("DAN"), "DAN", 2024, true, false));
+        assertThat(yearPlan.size() < 60, is(true));
+    }
+
+    @Test
+    void testSupportedYears() {
+        assertThat(engine.fromString("2999-12-31"), is(LocalDate.parse("2999-12-31")));
+        assertThat(engine.getWeekCode("BKM", engine.fromString("2999-12-01")).getWeekCode().length(), is(9));
+        assertThrows(DateTimeParseException.class, () -> engine.fromString("1899-12-31"));
+        assertThrows(DateTimeParseException.class, () -> engine.fromString("+99999-06-01"));
+        assertThrows(DateTimeParseException.class, () -> engine.fromString("+999999999-12-20"));
+        assertThrows(IllegalArgumentException.class, () -> engine.getYearPlan("BKM", 3000, true, false));
+    }
+
+    @Test
+    void testWeekCodeInterval() {
+        // Same as the last row in the year plan for 2024
+        WeekCodeIntervalResult result = engine.getWeekCodeInterval("bkm202503");
+        assertThat(result.getWeekCode(), is("BKM202503"));
+        assertThat(result.getFrom(), is(LocalDate.parse("2024-12-13")));
+        assertThat(result.getTo(), is(LocalDate.parse("2025-01-02")));
+        assertThat(engine.fromDate(result.getDescription().getShiftDay()), is(LocalDate.parse("2025-01-03")));
+
+        for (String weekCode : List.of("BKM202612", "DPF203001", "PLA202402", "ACC201830")) {
+            result = engine.getWeekCodeInterval(weekCode);
+            assertThat(weekCode, engine.getWeekCode(weekCode.substring(0, 3), result.getFrom()).getWeekCode(), is(weekCode));
+            assertThat(weekCode, engine.getWeekCode(weekCode.substring(0, 3), result.getTo()).getWeekCode(), is(weekCode));
+            assertThat(weekCode, engine.getWeekCode(weekCode.substring(0, 3), result.getFrom().minusDays(1)).getWeekCode(), is(not(weekCode)));
+            assertThat(weekCode, engine.getWeekCode(weekCode.substring(0, 3), result.getTo().plusDays(1)).getWeekCode(), is(not(weekCode)));
+        }
+
+        assertThat(engine.getWeekCodeInterval("BKM202553"), is(nullValue()));
+        assertThrows(UnsupportedOperationException.class, () -> engine.getWeekCodeInterval("DIS197605"));
+    }
+
+    // The result is the same until the next change, which may be earlier than needed (new week, new year)
+    @Test
+    void testNextResultChange() {
+        for (String code : List.of("BKM", "DPF", "PLA", "ACC", "DIS", "EMO")) {
+            for (LocalDate date = LocalDate.parse("2024-12-01"); date.isBefore(LocalDate.parse("2025-06-01")); date = date.plusDays(1)) {
+                for (boolean current : List.of(false, true)) {
+                    LocalDate next = engine.getNextResultChange(code, date, current);
+                    String expected = resultOf(code, date, current);
+                    for (LocalDate same = date.plusDays(1); same.isBefore(next); same = same.plusDays(1)) {
+                        assertThat(code + " " + same, resultOf(code, same, current), is(expected));
+                    }
+                    assertThat(code + " " + date, next.isAfter(date) && !next.isAfter(date.plusDays(7)), is(true));
+                }
+            }
+        }
+    }
+
+    private String resultOf(String code, LocalDate date, boolean current) {
+        WeekResolverResult result = current ? engine.getCurrentWeekCode(code, date) : engine.getWeekCode(code, date);
+        return result.getWeekCode() + " " + result.getDate() + " " + result.getDescription();
+    }
+}
@@ -1,15 +1,20 @@
 package dk.dbc.weekresolver.service;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.time.LocalDate;
 import java.util.Objects;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
 
 import dk.dbc.httpclient.HttpGet;
 import dk.dbc.weekresolver.connector.WeekResolverConnector;
 import dk.dbc.weekresolver.connector.WeekResolverConnectorException;
 import dk.dbc.weekresolver.model.WeekCodeFulfilledResult;
+import dk.dbc.weekresolver.model.WeekResolverBinaryFormat;
 import dk.dbc.weekresolver.model.WeekResolverResult;
 import dk.dbc.weekresolver.model.YearPlanFormat;
 import dk.dbc.weekresolver.model.YearPlanResult;
@@ -171,6 +176,83 @@ class WeekResolverResourceIT extends AbstractWeekResolverServiceContainerTest {
         assertThat(result.getIsFulfilled(), is(false));
     }
 
+    @Test
+    void getYearPlanExportCsv() throws IOException {
+        final HttpGet httpGet = new HttpGet(httpClient)
+                .withBaseUrl(weekresolverServiceBaseUrl)
+                .withPathElements("api", "v1", "export", "CSV", "2021", "2026")
+                .withQueryParameter("codes", "BKM,DBF")
+                .withQueryParameter("display", "ALL");
+
+        try (final Response response = httpClient.execute(httpGet);
+             final ZipInputStream zip = new ZipInputStream(response.readEntity(InputStream.class))) {
+            assertThat("status code", response.getStatus(), is(200));
+            int entries = 0;
+            for (ZipEntry entry = zip.getNextEntry(); entry != null; entry = zip.getNextEntry()) {
+                String year = entry.getName().substring(0, 4);
+                String[] actualCsv = new String(zip.readAllBytes(), StandardCharsets.UTF_8).split("\n");
+                assertThat(entry.getName(), actualCsv, is(getCsvYearPlan(year)));
+                entries++;
+            }
+            assertThat(entries, is(12));
+        }
+    }
+
+    @Test
+    void testNotModified() {
+        String entityTag;
+        try (final Response response = httpClient.execute(new HttpGet(httpClient)
+                .withBaseUrl(weekresolverServiceBaseUrl)
+                .withPathElements("api", "v1", "date", "BKM", "2024-11-07"))) {
+            assertThat("status code", response.getStatus(), is(200));
+            entityTag = response.getHeaderString("ETag");
+        }
+
+        assertThat(getStatus(entityTag, "api", "v1", "date", "BKM", "2024-11-07"), is(304));
+        assertThat(getStatus("*", "api", "v1", "date", "BKM", "2024-11-07"), is(304));
+        assertThat(getStatus("*", "api", "v1", "year", "CSV", "BKM", "2024"), is(304));
+
+        // A copied tag, or "*", must not hide that there is no result
+        assertThat(getStatus(entityTag, "api", "v1", "date", "XXX", "2024-11-07"), is(400));
+        assertThat(getStatus("*", "api", "v1", "date", "XXX", "2024-11-07"), is(400));
+        assertThat(getStatus("*", "api", "v1", "date", "BKM", "2024-13-07"), is(400));
+        assertThat(getStatus("*", "api", "v1", "date", "BKM", "3000-01-01"), is(400));
+        assertThat(getStatus("*", "api", "v1", "year", "CSV", "XXX", "2024"), is(400));
+        assertThat(getStatus("*", "api", "v1", "year", "CSV", "BKM", "3000"), is(400));
+        assertThat(getStatus("*", "api", "v1", "year", "CSV", "DAN", "2024"), is(400));
+    }
+
+    @Test
+    void testBinaryYearPlanOnlyByAccept() throws IOException {
+        // The binary format is not a format of the path, it is only sent instead of JSON
+        try (final Response response = httpClient.execute(new HttpGet(httpClient)
+                .withBaseUrl(weekresolverServiceBaseUrl)
+                .withPathElements("api", "v1", "year", "BINARY", "BKM", "2024"))) {
+            assertThat("status code", response.getStatus(), is(404));
+        }
+
+        try (final Response response = httpClient.execute(new HttpGet(httpClient)
+                .withBaseUrl(weekresolverServiceBaseUrl)
+                .withPathElements("api", "v1", "year", "JSON", "BKM", "2024")
+                .withHeader("Accept", WeekResolverBinaryFormat.MEDIA_TYPE))) {
+            assertThat("status code", response.getStatus(), is(200));
+            assertThat(response.getHeaderString("Content-Type"), is(WeekResolverBinaryFormat.MEDIA_TYPE));
+            YearPlanResult yearPlan = WeekResolverBinaryFormat.decodeYearPlan(response.readEntity(InputStream.class));
+            assertThat(yearPlan.getYear(), is("2024"));
+        }
+    }
+
+    private int getStatus(String ifNoneMatch, String... pathElements) {
+        final HttpGet httpGet = new HttpGet(httpClient)
+                .withBaseUrl(weekresolverServiceBaseUrl)
+                .withPathElements(pathElements)
+                .withHeader("If-None-Match", ifNoneMatch);
+
+        try (final Response response = httpClient.execute(httpGet)) {
+            return response.getStatus();
+        }
+    }
+
     private String[] getCsvYearPlan(String year) throws IOException {
         String content = Files.readString(
                 Path.of(Objects.requireNonNull(
@@ -0,0 +1,95 @@
+package dk.dbc.weekresolver.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class YearPlanExportTest {
+    private final WeekResolverEngine engine = WeekResolverEngine.of("Europe/Copenhagen");
+
+    @Test
+    void testWrite() throws IOException {
+        // BKM and DBF have the same rules, so they share a year plan
+        List<YearPlanExport.Entry> entries = new ArrayList<>();
+        for (int year = 2025; year <= 2026; year++) {
+            for (String code : List.of("BKM", "DBF", "DPF")) {
+                entries.add(new YearPlanExport.Entry(String.format("%04d/%s.csv", year, code),
+                        engine.yearPlanKey(code, year, true, false)));
+            }
+        }
+
+        AtomicInteger rendered = new AtomicInteger();
+        Map<WeekResolverEngine.YearPlanKey, Integer> renderings = new ConcurrentHashMap<>();
+        YearPlanExport export = new YearPlanExport(ForkJoinPool.commonPool(), entries, key -> {
+            renderings.merge(key, 1, Integer::sum);
+            return ("year plan " + rendered.incrementAndGet()).getBytes(StandardCharsets.UTF_8);
+        });
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        export.write(output);
+
+        List<String> names = new ArrayList<>();
+        List<String> contents = new ArrayList<>();
+        try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(output.toByteArray()))) {
+            ZipEntry entry;
+            while ((entry = zip.getNextEntry()) != null) {
+                names.add(entry.getName());
+                contents.add(new String(zip.readAllBytes(), StandardCharsets.UTF_8));
+            }
+        }
+        assertThat(names, is(List.of("2025/BKM.csv", "2025/DBF.csv", "2025/DPF.csv", "2026/BKM.csv", "2026/DBF.csv", "2026/DPF.csv")));
+        assertThat(contents.get(1), is(contents.get(0)));
+        assertThat(contents.get(4), is(contents.get(3)));
+        assertThat(contents.get(2).equals(contents.get(0)), is(false));
+        assertThat(renderings.size(), is(4));
+        assertThat(rendered.get(), is(4));
+    }
+
+    @Test
+    void testRenderingFails() {
+        WeekResolverEngine.YearPlanKey failing = engine.yearPlanKey("DPF", 2025, true, false);
+        List<YearPlanExport.Entry> entries = List.of(
+                new YearPlanExport.Entry("2025/BKM.csv", engine.yearPlanKey("BKM", 2025, true, false)),
+                new YearPlanExport.Entry("2025/DPF.csv", failing));
+        YearPlanExport export = new YearPlanExport(ForkJoinPool.commonPool(), entries, key -> {
+            if (key.equals(failing)) {
+                throw new IllegalStateException("Rendering failed");
+            }
+            return "year plan".getBytes(StandardCharsets.UTF_8);
+        });
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        assertThrows(IllegalStateException.class, () -> export.write(output));
+
+        // The entries before the failure may be written, but the archive has no central directory
+        byte[] endOfCentralDirectory = {0x50, 0x4b, 0x05, 0x06};
+        assertThat(indexOf(output.toByteArray(), endOfCentralDirectory), is(-1));
+    }
+
+    private static int indexOf(byte[] bytes, byte[] pattern) {
+        for (int i = 0; i + pattern.length <= bytes.length; i++) {
+            boolean found = true;
+            for (int j = 0; j < pattern.length && found; j++) {
+                found = bytes[i + j] == pattern[j];
+            }
+            if (found) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}